@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -94,6 +94,9 @@ public @interface CacheNamespace {
 
   /**
    * Returns property values for a implementation object.
+   * <p>
+   * The {@code expireAfterWrite}, {@code expireAfterAccess} and {@code refreshAhead} properties enable per entry
+   * expiration on the default cache implementation.
    *
    * @return property values
    * @since 3.4.2
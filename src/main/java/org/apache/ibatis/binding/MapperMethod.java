@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -23,6 +23,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
@@ -37,6 +42,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 
 /**
  * @author Clinton Begin
@@ -55,6 +61,27 @@ public class MapperMethod {
   }
 
   public Object execute(SqlSession sqlSession, Object[] args) {
+    if (method.returnsFuture()) {
+      return executeAsync(sqlSession.getConfiguration(), args);
+    }
+    return executeInSession(sqlSession, args);
+  }
+
+  private CompletableFuture<Object> executeAsync(Configuration configuration, Object[] args) {
+    ExecutorService executorService = configuration.getAsyncMapperExecutorService();
+    if (executorService == null) {
+      executorService = SharedPoolHolder.POOL;
+    }
+    return CompletableFuture.supplyAsync(() -> {
+      try (SqlSession sqlSession = new DefaultSqlSessionFactory(configuration).openSession()) {
+        Object result = executeInSession(sqlSession, args);
+        sqlSession.commit();
+        return result;
+      }
+    }, executorService);
+  }
+
+  private Object executeInSession(SqlSession sqlSession, Object[] args) {
     Object result;
     switch (command.getType()) {
       case INSERT: {
@@ -202,6 +229,15 @@ public class MapperMethod {
     return result;
   }
 
+  private static class SharedPoolHolder {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-async-mapper-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   public static class ParamMap<V> extends HashMap<String, V> {
 
     private static final long serialVersionUID = -2212268410512043556L;
@@ -279,6 +315,7 @@ public class MapperMethod {
     private final boolean returnsVoid;
     private final boolean returnsCursor;
     private final boolean returnsOptional;
+    private final boolean returnsFuture;
     private final Class<?> returnType;
     private final String mapKey;
     private final Integer resultHandlerIndex;
@@ -287,18 +324,28 @@ public class MapperMethod {
 
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      this.returnsFuture = CompletableFuture.class.equals(method.getReturnType()) || CompletionStage.class.equals(method.getReturnType());
+      if (returnsFuture) {
+        // the statement is mapped to the type the future completes with
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      }
       if (resolvedReturnType instanceof Class<?>) {
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) {
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
       } else {
-        this.returnType = method.getReturnType();
+        this.returnType = returnsFuture ? Object.class : method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || (returnsFuture && Void.class.equals(this.returnType));
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
+      if (returnsFuture && returnsCursor) {
+        throw new BindingException("Mapper method '" + mapperInterface.getName() + "." + method.getName()
+            + "' cannot return a Cursor asynchronously because it is closed with the session it is read from.");
+      }
       this.returnsOptional = Optional.class.equals(this.returnType);
-      this.mapKey = getMapKey(method);
+      this.mapKey = getMapKey(method, returnsFuture ? this.returnType : method.getReturnType());
       this.returnsMap = this.mapKey != null;
       this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
       this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
@@ -355,6 +402,17 @@ public class MapperMethod {
       return returnsOptional;
     }
 
+    /**
+     * Returns whether the method returns a {@code CompletableFuture} or {@code CompletionStage}. The other
+     * {@code returns} methods and {@link #getReturnType()} then describe the type the future completes with.
+     *
+     * @return {@code true}, if the statement is executed asynchronously
+     * @since 3.5.10
+     */
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
       final Class<?>[] argTypes = method.getParameterTypes();
@@ -374,9 +432,9 @@ public class MapperMethod {
       return mapKey;
     }
 
-    private String getMapKey(Method method) {
+    private String getMapKey(Method method, Class<?> returnType) {
       String mapKey = null;
-      if (Map.class.isAssignableFrom(method.getReturnType())) {
+      if (Map.class.isAssignableFrom(returnType)) {
         final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
         if (mapKeyAnnotation != null) {
           mapKey = mapKeyAnnotation.value();
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -33,6 +33,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -410,6 +412,13 @@ public class MapperAnnotationBuilder {
   private Class<?> getReturnType(Method method) {
     Class<?> returnType = method.getReturnType();
     Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+    if (resolvedReturnType instanceof ParameterizedType
+        && (CompletableFuture.class.equals(returnType) || CompletionStage.class.equals(returnType))) {
+      // asynchronous methods are mapped to the type their future completes with
+      resolvedReturnType = ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0];
+      returnType = resolvedReturnType instanceof ParameterizedType
+          ? (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType() : Object.class;
+    }
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
       if (returnType.isArray()) {
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.CacheInvalidationBus;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
@@ -31,6 +32,8 @@ import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.ResultLimitBehavior;
+import org.apache.ibatis.metrics.MetricsCollector;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.plugin.Interceptor;
@@ -254,6 +257,19 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
     configuration.setDefaultStatementTimeout(integerValueOf(props.getProperty("defaultStatementTimeout"), null));
     configuration.setDefaultFetchSize(integerValueOf(props.getProperty("defaultFetchSize"), null));
+    configuration.setBatchFlushSize(integerValueOf(props.getProperty("batchFlushSize"), null));
+    configuration.setMaxResultRows(integerValueOf(props.getProperty("maxResultRows"), null));
+    configuration.setAdaptiveFetchSizeEnabled(booleanValueOf(props.getProperty("adaptiveFetchSizeEnabled"), false));
+    configuration.setParallelNestedQueriesEnabled(booleanValueOf(props.getProperty("parallelNestedQueriesEnabled"), false));
+    configuration.setAutoResultOrdered(booleanValueOf(props.getProperty("autoResultOrdered"), false));
+    configuration.setCompactMapResultsEnabled(booleanValueOf(props.getProperty("compactMapResultsEnabled"), false));
+    configuration.setResultLimitBehavior(ResultLimitBehavior.valueOf(props.getProperty("resultLimitBehavior", "FAIL")));
+    configuration.setCacheInvalidationBus((CacheInvalidationBus) createInstance(props.getProperty("cacheInvalidationBus")));
+    configuration.setMetricsCollector((MetricsCollector) createInstance(props.getProperty("metricsCollector")));
+    configuration.setExecutionTracingEnabled(booleanValueOf(props.getProperty("executionTracingEnabled"), false));
+    configuration.setSlowStatementThreshold(integerValueOf(props.getProperty("slowStatementThreshold"), null));
+    configuration.setAsyncJdbcLogging(booleanValueOf(props.getProperty("asyncJdbcLogging"), false));
+    configuration.setJdbcLogSampleRate(integerValueOf(props.getProperty("jdbcLogSampleRate"), 1));
     configuration.setDefaultResultSetType(resolveResultSetType(props.getProperty("defaultResultSetType")));
     configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
     configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An invalidation of second level cache entries that is sent to other nodes through a {@link CacheInvalidationBus}.
+ * It either clears the cache of a namespace or invalidates the entries that depend on some tables.
+ *
+ * @since 3.5.10
+ */
+public final class CacheInvalidation implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String namespace;
+  private final String[] tables;
+
+  private CacheInvalidation(String namespace, String[] tables) {
+    this.namespace = namespace;
+    this.tables = tables;
+  }
+
+  public static CacheInvalidation namespace(String namespace) {
+    return new CacheInvalidation(namespace, null);
+  }
+
+  public static CacheInvalidation tables(String... tables) {
+    return new CacheInvalidation(null, tables);
+  }
+
+  /**
+   * Gets the id of the cache to clear.
+   *
+   * @return the cache id, or {@code null} if this invalidates tables
+   */
+  public String getNamespace() {
+    return namespace;
+  }
+
+  /**
+   * Gets the tables whose dependent entries are invalidated.
+   *
+   * @return the tables, or {@code null} if this clears a namespace
+   */
+  public String[] getTables() {
+    return tables;
+  }
+
+  @Override
+  public String toString() {
+    return namespace != null ? "namespace " + namespace : "tables " + Arrays.toString(tables);
+  }
+
+}
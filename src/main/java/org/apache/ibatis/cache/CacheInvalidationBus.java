@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Sends second level cache invalidations to the other nodes that share the same database, so that a write on one
+ * node does not leave stale entries in the caches of the others.
+ * <p>
+ * Invalidations are published when a transaction that cleared a cache or wrote tables declared with the
+ * {@code tables} attribute commits. Implementations must deliver them to the subscribers of the other nodes, and
+ * should not deliver them back to the subscriber of the publishing node.
+ *
+ * @since 3.5.10
+ * @see org.apache.ibatis.cache.impl.LocalCacheInvalidationBus
+ * @see org.apache.ibatis.cache.impl.FileCacheInvalidationBus
+ */
+public interface CacheInvalidationBus {
+
+  /**
+   * Sends an invalidation to the other nodes.
+   *
+   * @param invalidation
+   *          the invalidation
+   */
+  void publish(CacheInvalidation invalidation);
+
+  /**
+   * Registers the subscriber that applies the invalidations received from the other nodes to the local caches.
+   *
+   * @param subscriber
+   *          the subscriber
+   */
+  void subscribe(Consumer<CacheInvalidation> subscriber);
+
+  /**
+   * Stops receiving invalidations.
+   */
+  default void close() {
+    // NOP
+  }
+
+}
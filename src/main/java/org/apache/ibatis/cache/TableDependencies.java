@@ -0,0 +1,134 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * Tracks which tables the second level cache entries depend on.
+ * <p>
+ * Every table has a version that is incremented when a statement that declares it commits. Cached results of a
+ * select that declares its tables are stored as a {@link DependentValue} holding the versions the tables had before
+ * the select ran, and are considered stale once any of those versions has moved on. This way, a write only
+ * invalidates the results that depend on the tables it writes, across all namespaces.
+ *
+ * @since 3.5.10
+ */
+public class TableDependencies {
+
+  private final Configuration configuration;
+  private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Boolean> trackedCaches = new ConcurrentHashMap<>();
+
+  public TableDependencies(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  public long[] getVersions(String[] tables) {
+    long[] result = new long[tables.length];
+    for (int i = 0; i < tables.length; i++) {
+      AtomicLong version = versions.get(tables[i]);
+      result[i] = version == null ? 0 : version.get();
+    }
+    return result;
+  }
+
+  public void invalidate(Collection<String> tables) {
+    for (String table : tables) {
+      MapUtil.computeIfAbsent(versions, table, k -> new AtomicLong()).incrementAndGet();
+    }
+  }
+
+  public boolean isCurrent(DependentValue value) {
+    return Arrays.equals(value.versions, getVersions(value.tables));
+  }
+
+  /**
+   * Whether all the cached selects that use a cache declare their tables, so that writes to that cache's namespace do
+   * not need to clear it.
+   *
+   * @param cache
+   *          the cache
+   * @return true if every select using the cache declares its tables
+   */
+  public boolean isTracked(Cache cache) {
+    return MapUtil.computeIfAbsent(trackedCaches, cache.getId(), k -> {
+      for (Object object : configuration.getMappedStatements()) {
+        if (object instanceof MappedStatement && isUntrackedSelect((MappedStatement) object, cache)) {
+          return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Takes a statement added to the configuration into account, so that a cached select that does not declare its
+   * tables stops its cache from being tracked even if the cache has already been found tracked.
+   *
+   * @param ms
+   *          the added mapped statement
+   */
+  public void addMappedStatement(MappedStatement ms) {
+    Cache cache = ms.getCache();
+    if (cache != null && isUntrackedSelect(ms, cache)) {
+      trackedCaches.put(cache.getId(), Boolean.FALSE);
+    }
+  }
+
+  private static boolean isUntrackedSelect(MappedStatement ms, Cache cache) {
+    return ms.getCache() == cache && ms.getSqlCommandType() == SqlCommandType.SELECT && ms.isUseCache()
+        && ms.getTables() == null;
+  }
+
+  /**
+   * A cached result together with the versions of the tables it was read from.
+   */
+  public static final class DependentValue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+    private final String[] tables;
+    private final long[] versions;
+
+    public DependentValue(Object value, String[] tables, long[] versions) {
+      this.value = value;
+      this.tables = tables;
+      this.versions = versions;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    public String[] getTables() {
+      return tables;
+    }
+
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,8 +15,11 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
 import org.apache.ibatis.util.MapUtil;
@@ -27,11 +30,62 @@ import org.apache.ibatis.util.MapUtil;
 public class TransactionalCacheManager {
 
   private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private final Set<String> tablesToInvalidateOnCommit = new HashSet<>();
+  private final CacheInvalidationBus invalidationBus;
+  private TableDependencies tableDependencies;
+
+  public TransactionalCacheManager() {
+    this(null);
+  }
+
+  /**
+   * Creates a manager whose transactional caches publish their invalidations to other nodes.
+   *
+   * @param invalidationBus
+   *          the invalidation bus, or {@code null}
+   * @since 3.5.10
+   */
+  public TransactionalCacheManager(CacheInvalidationBus invalidationBus) {
+    this.invalidationBus = invalidationBus;
+  }
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
   }
 
+  /**
+   * Invalidates, on commit, the cached results that depend on the given tables.
+   *
+   * @param tableDependencies
+   *          the table dependencies of the configuration
+   * @param tables
+   *          the tables written by the transaction
+   * @since 3.5.10
+   */
+  public void invalidate(TableDependencies tableDependencies, String[] tables) {
+    this.tableDependencies = tableDependencies;
+    tablesToInvalidateOnCommit.addAll(Arrays.asList(tables));
+  }
+
+  /**
+   * Whether the transaction has written any of the given tables, so that results cached before must not be used.
+   *
+   * @param tables
+   *          the tables a cached result depends on
+   * @return true if any of them is to be invalidated on commit
+   * @since 3.5.10
+   */
+  public boolean isInvalidated(String[] tables) {
+    if (!tablesToInvalidateOnCommit.isEmpty()) {
+      for (String table : tables) {
+        if (tablesToInvalidateOnCommit.contains(table)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   public Object getObject(Cache cache, CacheKey key) {
     return getTransactionalCache(cache).getObject(key);
   }
@@ -41,19 +95,27 @@ public class TransactionalCacheManager {
   }
 
   public void commit() {
+    if (!tablesToInvalidateOnCommit.isEmpty()) {
+      tableDependencies.invalidate(tablesToInvalidateOnCommit);
+      if (invalidationBus != null) {
+        invalidationBus.publish(CacheInvalidation.tables(tablesToInvalidateOnCommit.toArray(new String[0])));
+      }
+      tablesToInvalidateOnCommit.clear();
+    }
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.commit();
     }
   }
 
   public void rollback() {
+    tablesToInvalidateOnCommit.clear();
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.rollback();
     }
   }
 
   private TransactionalCache getTransactionalCache(Cache cache) {
-    return MapUtil.computeIfAbsent(transactionalCaches, cache, TransactionalCache::new);
+    return MapUtil.computeIfAbsent(transactionalCaches, cache, k -> new TransactionalCache(k, invalidationBus));
   }
 
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,12 +15,18 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.util.Histogram;
+import org.apache.ibatis.util.MapUtil;
 
 /**
  * <p>Simple blocking decorator
@@ -29,6 +35,12 @@ import org.apache.ibatis.cache.CacheException;
  * It sets a lock over a cache key when the element is not found in cache.
  * This way, other threads will wait until this element is filled instead of hitting the database.
  *
+ * <p>Concurrent misses of a key are coalesced into a single load: the thread that missed first loads the value and
+ * the others wait for it. When {@code shareLoadedValue} is set, the waiters get the value the loader put instead of
+ * reading the cache again. When more than {@code maxWaiters} threads already wait for a key, further threads do not
+ * wait and load the value on their own. The time threads spend waiting is recorded per cache and for the first
+ * keys that are waited for.
+ *
  * <p>By its nature, this implementation can cause deadlock when used incorrectly.
  *
  * @author Eduardo Macarron
@@ -36,9 +48,16 @@ import org.apache.ibatis.cache.CacheException;
  */
 public class BlockingCache implements Cache {
 
+  private static final int MAX_TRACKED_KEYS = 256;
+
   private long timeout;
+  private int maxWaiters;
+  private boolean shareLoadedValue;
   private final Cache delegate;
-  private final ConcurrentHashMap<Object, CountDownLatch> locks;
+  private final ConcurrentHashMap<Object, Load> locks;
+  private final Histogram waitTimes = new Histogram();
+  private final Map<Object, Histogram> keyWaitTimes = new ConcurrentHashMap<>();
+  private final LongAdder fallThroughs = new LongAdder();
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
@@ -57,27 +76,86 @@ public class BlockingCache implements Cache {
 
   @Override
   public void putObject(Object key, Object value) {
+    putObject(key, value, true);
+  }
+
+  /**
+   * Puts a value, releasing the lock of its key only if the caller holds it.
+   *
+   * @param key
+   *          the key
+   * @param value
+   *          the value
+   * @param releaseLock
+   *          whether the caller holds the lock of the key
+   */
+  void putObject(Object key, Object value, boolean releaseLock) {
     try {
       delegate.putObject(key, value);
     } finally {
-      releaseLock(key);
+      if (releaseLock) {
+        releaseLock(key, value);
+      }
     }
   }
 
   @Override
   public Object getObject(Object key) {
-    acquireLock(key);
-    Object value = delegate.getObject(key);
-    if (value != null) {
-      releaseLock(key);
+    return getObject(key, null);
+  }
+
+  /**
+   * Gets a value, keeping track of the keys whose lock the caller did not acquire because too many threads were
+   * already waiting for them. The caller must not release the lock of these keys, which belongs to another thread.
+   *
+   * @param key
+   *          the key
+   * @param unlockedKeys
+   *          the keys the caller did not lock, or {@code null} if not tracked
+   * @return the value, or {@code null} if the caller must load it
+   */
+  Object getObject(Object key, Set<Object> unlockedKeys) {
+    while (true) {
+      Load load = new Load();
+      Load current = locks.putIfAbsent(key, load);
+      if (current == null) {
+        if (unlockedKeys != null) {
+          unlockedKeys.remove(key);
+        }
+        Object value;
+        try {
+          value = delegate.getObject(key);
+        } catch (RuntimeException e) {
+          releaseLock(key, null);
+          throw e;
+        }
+        if (value != null) {
+          releaseLock(key, value);
+        }
+        return value;
+      }
+      if (current.owner == Thread.currentThread()) {
+        // the value is already being loaded by this thread
+        return null;
+      }
+      if (maxWaiters > 0 && current.waiters.get() >= maxWaiters) {
+        fallThroughs.increment();
+        if (unlockedKeys != null) {
+          unlockedKeys.add(key);
+        }
+        return null;
+      }
+      Object value = await(key, current);
+      if (shareLoadedValue && value != null) {
+        return value;
+      }
     }
-    return value;
   }
 
   @Override
   public Object removeObject(Object key) {
     // despite of its name, this method is called only to release locks
-    releaseLock(key);
+    releaseLock(key, null);
     return null;
   }
 
@@ -86,35 +164,47 @@ public class BlockingCache implements Cache {
     delegate.clear();
   }
 
-  private void acquireLock(Object key) {
-    CountDownLatch newLatch = new CountDownLatch(1);
-    while (true) {
-      CountDownLatch latch = locks.putIfAbsent(key, newLatch);
-      if (latch == null) {
-        break;
-      }
-      try {
-        if (timeout > 0) {
-          boolean acquired = latch.await(timeout, TimeUnit.MILLISECONDS);
-          if (!acquired) {
-            throw new CacheException(
-                "Couldn't get a lock in " + timeout + " for the key " + key + " at the cache " + delegate.getId());
-          }
-        } else {
-          latch.await();
+  private Object await(Object key, Load load) {
+    load.waiters.incrementAndGet();
+    long start = System.nanoTime();
+    try {
+      if (timeout > 0) {
+        boolean acquired = load.latch.await(timeout, TimeUnit.MILLISECONDS);
+        if (!acquired) {
+          throw new CacheException(
+              "Couldn't get a lock in " + timeout + " for the key " + key + " at the cache " + delegate.getId());
         }
-      } catch (InterruptedException e) {
-        throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+      } else {
+        load.latch.await();
       }
+      return load.value;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+    } finally {
+      load.waiters.decrementAndGet();
+      recordWaitTime(key, System.nanoTime() - start);
     }
   }
 
-  private void releaseLock(Object key) {
-    CountDownLatch latch = locks.remove(key);
-    if (latch == null) {
-      throw new IllegalStateException("Detected an attempt at releasing unacquired lock. This should never happen.");
+  private void releaseLock(Object key, Object value) {
+    // the lock may be released by another thread than the one that acquired it, e.g. when a session is handed off
+    Load load = locks.remove(key);
+    if (load != null) {
+      load.value = value;
+      load.latch.countDown();
+    }
+  }
+
+  private void recordWaitTime(Object key, long nanos) {
+    waitTimes.record(nanos);
+    Histogram keyHistogram = keyWaitTimes.get(key);
+    if (keyHistogram == null && keyWaitTimes.size() < MAX_TRACKED_KEYS) {
+      keyHistogram = MapUtil.computeIfAbsent(keyWaitTimes, key, k -> new Histogram());
+    }
+    if (keyHistogram != null) {
+      keyHistogram.record(nanos);
     }
-    latch.countDown();
   }
 
   public long getTimeout() {
@@ -124,4 +214,77 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  /**
+   * Gets the maximum number of threads that wait for the same key.
+   *
+   * @return the maximum number of waiters, or 0 if unlimited
+   * @since 3.5.10
+   */
+  public int getMaxWaiters() {
+    return maxWaiters;
+  }
+
+  /**
+   * Sets the maximum number of threads that wait for the same key. Further threads load the value on their own.
+   *
+   * @param maxWaiters
+   *          the maximum number of waiters, or 0 for unlimited
+   * @since 3.5.10
+   */
+  public void setMaxWaiters(int maxWaiters) {
+    this.maxWaiters = maxWaiters;
+  }
+
+  /**
+   * Sets whether waiting threads get the loaded value directly instead of reading it from the cache. This must only
+   * be enabled when the cache returns the instances it was given, i.e. it is not read/write.
+   *
+   * @param shareLoadedValue
+   *          whether to hand the loaded value to the waiters
+   * @since 3.5.10
+   */
+  public void setShareLoadedValue(boolean shareLoadedValue) {
+    this.shareLoadedValue = shareLoadedValue;
+  }
+
+  /**
+   * Gets the times, in nanoseconds, that threads have waited for values to be loaded.
+   *
+   * @return the wait times
+   * @since 3.5.10
+   */
+  public Histogram getWaitTimes() {
+    return waitTimes;
+  }
+
+  /**
+   * Gets the times, in nanoseconds, that threads have waited for the value of a key. Only the first keys that have
+   * been waited for are tracked.
+   *
+   * @param key
+   *          the key
+   * @return the wait times, or {@code null} if the key is not tracked
+   * @since 3.5.10
+   */
+  public Histogram getWaitTimes(Object key) {
+    return keyWaitTimes.get(key);
+  }
+
+  /**
+   * Gets how many threads loaded a value on their own because too many threads were already waiting for it.
+   *
+   * @return the number of fall throughs
+   * @since 3.5.10
+   */
+  public long getFallThroughCount() {
+    return fallThroughs.sum();
+  }
+
+  private static class Load {
+    private final Thread owner = Thread.currentThread();
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final AtomicInteger waiters = new AtomicInteger();
+    private volatile Object value;
+  }
 }
@@ -0,0 +1,282 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Per entry expiration with optional refresh-ahead.
+ * <p>
+ * An entry expires once {@code expireAfterWrite} milliseconds have passed since it was put, or once
+ * {@code expireAfterAccess} milliseconds have passed since it was last read. When {@code refreshAhead} is set, the
+ * first read of an entry that is within {@code refreshAhead} milliseconds of its write expiration still returns the
+ * cached value, but also reloads the entry in the background with the loader the caller registered through
+ * {@link #setLoader(Callable)}.
+ * <p>
+ * Each cache refreshes its entries on its own pool of {@code refreshThreads} daemon threads, which stop once they have
+ * been idle for a minute. When more refreshes are pending than the pool can queue, the extra entries are not refreshed
+ * and simply expire. {@link #shutdown()} stops the refreshes of a cache for good.
+ *
+ * @since 3.5.10
+ */
+public class ExpiringCache implements Cache, InitializingObject {
+
+  private static final Log log = LogFactory.getLog(ExpiringCache.class);
+
+  private static final ThreadLocal<Callable<?>> loader = new ThreadLocal<>();
+  private static final int REFRESH_QUEUE_CAPACITY = 64;
+  private static volatile boolean refreshAheadInUse;
+
+  private final Cache delegate;
+  private final Map<Object, Timestamps> timestamps = new ConcurrentHashMap<>();
+  private long expireAfterWrite;
+  private long expireAfterAccess;
+  private long refreshAhead;
+  private int refreshThreads = 1;
+  private volatile int generation;
+  private ThreadPoolExecutor refreshExecutor;
+  private boolean shutdown;
+
+  public ExpiringCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  public void setExpireAfterWrite(long expireAfterWrite) {
+    this.expireAfterWrite = expireAfterWrite;
+  }
+
+  public void setExpireAfterAccess(long expireAfterAccess) {
+    this.expireAfterAccess = expireAfterAccess;
+  }
+
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+    if (refreshAhead > 0) {
+      refreshAheadInUse = true;
+    }
+  }
+
+  /**
+   * Sets the number of threads that refresh the entries of this cache.
+   *
+   * @param refreshThreads
+   *          the number of refresh threads, 1 by default
+   */
+  public void setRefreshThreads(int refreshThreads) {
+    this.refreshThreads = refreshThreads;
+  }
+
+  /**
+   * Stops refreshing the entries of this cache ahead of their expiration, interrupting the refreshes in progress.
+   * Entries keep expiring as configured.
+   */
+  public synchronized void shutdown() {
+    shutdown = true;
+    if (refreshExecutor != null) {
+      refreshExecutor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void initialize() {
+    if (refreshAhead > 0 && expireAfterWrite <= 0) {
+      throw new CacheException("The refreshAhead property of cache " + getId() + " requires expireAfterWrite.");
+    }
+    if (refreshThreads < 1) {
+      throw new CacheException("The refreshThreads property of cache " + getId() + " must be at least 1.");
+    }
+  }
+
+  /**
+   * Registers the loader that reloads the value of the entry the current thread is about to read.
+   *
+   * @param callable
+   *          the loader, or {@code null} to remove it
+   */
+  public static void setLoader(Callable<?> callable) {
+    if (callable == null) {
+      loader.remove();
+    } else {
+      loader.set(callable);
+    }
+  }
+
+  /**
+   * Whether any cache has been configured with refresh-ahead, so that callers can skip registering loaders otherwise.
+   *
+   * @return true if refresh-ahead is in use
+   */
+  public static boolean isRefreshAheadInUse() {
+    return refreshAheadInUse;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (timestamps.size() > Math.max(64, 2 * delegate.getSize())) {
+      removeExpired(System.currentTimeMillis());
+    }
+    delegate.putObject(key, value);
+    timestamps.put(key, new Timestamps(System.currentTimeMillis()));
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Timestamps entry = timestamps.get(key);
+    if (entry == null) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (isExpired(entry, now)) {
+      timestamps.remove(key, entry);
+      delegate.removeObject(key);
+      return null;
+    }
+    Object value = delegate.getObject(key);
+    if (value == null) {
+      // evicted by the delegate
+      timestamps.remove(key, entry);
+      return null;
+    }
+    entry.accessed = now;
+    if (refreshAhead > 0 && now >= entry.written + expireAfterWrite - refreshAhead) {
+      refresh(key, entry);
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    timestamps.remove(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    generation++;
+    timestamps.clear();
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private boolean isExpired(Timestamps entry, long now) {
+    return (expireAfterWrite > 0 && now - entry.written >= expireAfterWrite)
+        || (expireAfterAccess > 0 && now - entry.accessed >= expireAfterAccess);
+  }
+
+  private void removeExpired(long now) {
+    Iterator<Map.Entry<Object, Timestamps>> iterator = timestamps.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Object, Timestamps> entry = iterator.next();
+      if (isExpired(entry.getValue(), now)) {
+        iterator.remove();
+        delegate.removeObject(entry.getKey());
+      }
+    }
+  }
+
+  private void refresh(Object key, Timestamps entry) {
+    Callable<?> callable = loader.get();
+    if (callable == null || !entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    ExecutorService executor = getRefreshExecutor();
+    if (executor == null) {
+      entry.refreshing.set(false);
+      return;
+    }
+    int expectedGeneration = generation;
+    try {
+      executor.execute(() -> {
+        try {
+          Object value = callable.call();
+          // do not bring back stale data when the cache has been flushed in the meantime
+          if (value != null && generation == expectedGeneration) {
+            putObject(key, value);
+          }
+        } catch (Exception e) {
+          if (log.isDebugEnabled()) {
+            log.debug("Refresh ahead of an entry of cache " + getId() + " failed. Cause: " + e);
+          }
+        } finally {
+          entry.refreshing.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // too many pending refreshes, the entry will expire instead
+      entry.refreshing.set(false);
+    }
+  }
+
+  private synchronized ExecutorService getRefreshExecutor() {
+    if (refreshExecutor == null && !shutdown) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 1, TimeUnit.MINUTES,
+          new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "mybatis-cache-refresh-" + getId());
+            thread.setDaemon(true);
+            return thread;
+          });
+      executor.allowCoreThreadTimeOut(true);
+      refreshExecutor = executor;
+    }
+    return refreshExecutor;
+  }
+
+  private static class Timestamps {
+    private final long written;
+    private volatile long accessed;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Timestamps(long written) {
+      this.written = written;
+      this.accessed = written;
+    }
+  }
+
+}
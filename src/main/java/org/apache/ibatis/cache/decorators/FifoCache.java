@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package org.apache.ibatis.cache.decorators;
 
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.function.Consumer;
 
 import org.apache.ibatis.cache.Cache;
 
@@ -30,6 +31,7 @@ public class FifoCache implements Cache {
   private final Cache delegate;
   private final Deque<Object> keyList;
   private int size;
+  private Consumer<Object> evictionListener;
 
   public FifoCache(Cache delegate) {
     this.delegate = delegate;
@@ -51,6 +53,17 @@ public class FifoCache implements Cache {
     this.size = size;
   }
 
+  /**
+   * Sets a listener that is called with the key of every entry this policy evicts.
+   *
+   * @param evictionListener
+   *          the eviction listener
+   * @since 3.5.10
+   */
+  public void setEvictionListener(Consumer<Object> evictionListener) {
+    this.evictionListener = evictionListener;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     cycleKeyList(key);
@@ -78,6 +91,9 @@ public class FifoCache implements Cache {
     if (keyList.size() > size) {
       Object oldestKey = keyList.removeFirst();
       delegate.removeObject(oldestKey);
+      if (evictionListener != null) {
+        evictionListener.accept(oldestKey);
+      }
     }
   }
 
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package org.apache.ibatis.cache.decorators;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.ibatis.cache.Cache;
 
@@ -30,6 +31,7 @@ public class LruCache implements Cache {
   private final Cache delegate;
   private Map<Object, Object> keyMap;
   private Object eldestKey;
+  private Consumer<Object> evictionListener;
 
   public LruCache(Cache delegate) {
     this.delegate = delegate;
@@ -61,6 +63,17 @@ public class LruCache implements Cache {
     };
   }
 
+  /**
+   * Sets a listener that is called with the key of every entry this policy evicts.
+   *
+   * @param evictionListener
+   *          the eviction listener
+   * @since 3.5.10
+   */
+  public void setEvictionListener(Consumer<Object> evictionListener) {
+    this.evictionListener = evictionListener;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     delegate.putObject(key, value);
@@ -88,6 +101,9 @@ public class LruCache implements Cache {
     keyMap.put(key, key);
     if (eldestKey != null) {
       delegate.removeObject(eldestKey);
+      if (evictionListener != null) {
+        evictionListener.accept(eldestKey);
+      }
       eldestKey = null;
     }
   }
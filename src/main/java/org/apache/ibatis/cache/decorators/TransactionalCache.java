@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheInvalidation;
+import org.apache.ibatis.cache.CacheInvalidationBus;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -30,7 +32,8 @@ import org.apache.ibatis.logging.LogFactory;
  * This class holds all cache entries that are to be added to the 2nd level cache during a Session.
  * Entries are sent to the cache when commit is called or discarded if the Session is rolled back.
  * Blocking cache support has been added. Therefore any get() that returns a cache miss
- * will be followed by a put() so any lock associated with the key can be released.
+ * will be followed by a put() so any lock associated with the key can be released, except for the keys
+ * that {@link BlockingCache} let this cache load without locking them.
  *
  * @author Clinton Begin
  * @author Eduardo Macarron
@@ -40,15 +43,32 @@ public class TransactionalCache implements Cache {
   private static final Log log = LogFactory.getLog(TransactionalCache.class);
 
   private final Cache delegate;
+  private final CacheInvalidationBus invalidationBus;
   private boolean clearOnCommit;
   private final Map<Object, Object> entriesToAddOnCommit;
   private final Set<Object> entriesMissedInCache;
+  private final Set<Object> entriesNotLocked;
 
   public TransactionalCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates a transactional cache that publishes its clears to other nodes.
+   *
+   * @param delegate
+   *          the cache
+   * @param invalidationBus
+   *          the invalidation bus, or {@code null}
+   * @since 3.5.10
+   */
+  public TransactionalCache(Cache delegate, CacheInvalidationBus invalidationBus) {
     this.delegate = delegate;
+    this.invalidationBus = invalidationBus;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.entriesNotLocked = new HashSet<>();
   }
 
   @Override
@@ -64,7 +84,8 @@ public class TransactionalCache implements Cache {
   @Override
   public Object getObject(Object key) {
     // issue #116
-    Object object = delegate.getObject(key);
+    Object object = delegate instanceof BlockingCache ? ((BlockingCache) delegate).getObject(key, entriesNotLocked)
+        : delegate.getObject(key);
     if (object == null) {
       entriesMissedInCache.add(key);
     }
@@ -95,6 +116,9 @@ public class TransactionalCache implements Cache {
   public void commit() {
     if (clearOnCommit) {
       delegate.clear();
+      if (invalidationBus != null) {
+        invalidationBus.publish(CacheInvalidation.namespace(getId()));
+      }
     }
     flushPendingEntries();
     reset();
@@ -109,14 +133,19 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    entriesNotLocked.clear();
   }
 
   private void flushPendingEntries() {
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      delegate.putObject(entry.getKey(), entry.getValue());
+      if (entriesNotLocked.contains(entry.getKey())) {
+        ((BlockingCache) delegate).putObject(entry.getKey(), entry.getValue(), false);
+      } else {
+        delegate.putObject(entry.getKey(), entry.getValue());
+      }
     }
     for (Object entry : entriesMissedInCache) {
-      if (!entriesToAddOnCommit.containsKey(entry)) {
+      if (!entriesToAddOnCommit.containsKey(entry) && !entriesNotLocked.contains(entry)) {
         delegate.putObject(entry, null);
       }
     }
@@ -124,6 +153,9 @@ public class TransactionalCache implements Cache {
 
   private void unlockMissedEntries() {
     for (Object entry : entriesMissedInCache) {
+      if (entriesNotLocked.contains(entry)) {
+        continue;
+      }
       try {
         delegate.removeObject(entry);
       } catch (Exception e) {
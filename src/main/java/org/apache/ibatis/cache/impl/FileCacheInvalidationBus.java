@@ -0,0 +1,270 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheInvalidation;
+import org.apache.ibatis.cache.CacheInvalidationBus;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A {@link CacheInvalidationBus} that exchanges invalidations through a directory shared by all nodes, such as a
+ * network file system mount.
+ * <p>
+ * Every invalidation is written to its own file, which the other nodes pick up the next time they poll the
+ * directory. Files older than the retention time are deleted by whichever node sees them first.
+ * <p>
+ * The files are plain text: the kind of the invalidation on the first line, followed by the namespace or one table
+ * per line. They are parsed strictly, and files that do not follow this format are ignored. The directory must be
+ * given explicitly and, on file systems that support POSIX permissions, must be owned by the user running the
+ * application and must not be accessible to other users. A missing directory is created with these permissions.
+ * <p>
+ * All buses poll their directory on a single daemon thread. A bus that is no longer referenced, for example because
+ * its configuration has been discarded, stops polling without being closed.
+ *
+ * @since 3.5.10
+ */
+public class FileCacheInvalidationBus implements CacheInvalidationBus {
+
+  private static final Log log = LogFactory.getLog(FileCacheInvalidationBus.class);
+  private static final String SUFFIX = ".invalidation";
+  private static final String NAMESPACE = "namespace";
+  private static final String TABLES = "tables";
+  private static final Set<PosixFilePermission> OWNER_ONLY = EnumSet.of(PosixFilePermission.OWNER_READ,
+      PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE);
+
+  private final File directory;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final AtomicLong sequence = new AtomicLong();
+  private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+  private final Set<String> seen = new HashSet<>();
+  private final ScheduledFuture<?> poller;
+  private long retention = TimeUnit.MINUTES.toMillis(1);
+
+  public FileCacheInvalidationBus(File directory, long pollInterval) {
+    if (directory == null) {
+      throw new CacheException("The cache invalidation directory must be specified.");
+    }
+    prepareDirectory(directory.toPath());
+    this.directory = directory;
+    String[] existing = directory.list();
+    if (existing != null) {
+      seen.addAll(Arrays.asList(existing));
+    }
+    this.poller = PollerHolder.SCHEDULER.scheduleWithFixedDelay(new Poller(this), pollInterval, pollInterval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public void setRetention(long retention) {
+    this.retention = retention;
+  }
+
+  /**
+   * Writes the invalidation to the directory. As it is called once the transaction has been committed, a failure is
+   * logged rather than thrown.
+   */
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    List<String> lines = format(invalidation);
+    if (lines == null) {
+      log.warn("Could not publish cache invalidation " + invalidation + " as it contains a line break.");
+      return;
+    }
+    String name = System.currentTimeMillis() + "-" + nodeId + "-" + sequence.incrementAndGet();
+    File temporary = new File(directory, name + ".tmp");
+    try {
+      Files.write(temporary.toPath(), lines, StandardCharsets.UTF_8);
+      // readers only look at complete files
+      Files.move(temporary.toPath(), new File(directory, name + SUFFIX).toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("Error publishing cache invalidation " + invalidation + ". Cause: " + e);
+      if (!temporary.delete()) {
+        log.debug("Could not delete " + temporary);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<CacheInvalidation> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  @Override
+  public void close() {
+    poller.cancel(false);
+  }
+
+  private void poll() {
+    try {
+      File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+      if (files == null) {
+        return;
+      }
+      Arrays.sort(files);
+      Set<String> present = new HashSet<>();
+      long now = System.currentTimeMillis();
+      for (File file : files) {
+        String name = file.getName();
+        present.add(name);
+        if (seen.add(name) && !name.contains(nodeId)) {
+          deliver(file);
+        }
+        if (now - file.lastModified() > retention && !file.delete()) {
+          log.debug("Could not delete the expired cache invalidation " + file);
+        }
+      }
+      seen.retainAll(present);
+    } catch (Exception e) {
+      // keep polling
+      log.warn("Error polling cache invalidations in " + directory + ". Cause: " + e);
+    }
+  }
+
+  private void deliver(File file) {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      // may have been deleted as expired by another node in the meantime
+      log.debug("Could not read the cache invalidation " + file + ". Cause: " + e);
+      return;
+    }
+    CacheInvalidation invalidation = parse(lines);
+    if (invalidation == null) {
+      log.warn("Ignoring the malformed cache invalidation " + file);
+      return;
+    }
+    for (Consumer<CacheInvalidation> subscriber : subscribers) {
+      subscriber.accept(invalidation);
+    }
+  }
+
+  private static List<String> format(CacheInvalidation invalidation) {
+    List<String> lines = new ArrayList<>();
+    if (invalidation.getNamespace() != null) {
+      lines.add(NAMESPACE);
+      lines.add(invalidation.getNamespace());
+    } else {
+      lines.add(TABLES);
+      lines.addAll(Arrays.asList(invalidation.getTables()));
+    }
+    for (String line : lines) {
+      if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0) {
+        return null;
+      }
+    }
+    return lines;
+  }
+
+  private static CacheInvalidation parse(List<String> lines) {
+    if (lines.size() < 2 || lines.stream().skip(1).anyMatch(String::isEmpty)) {
+      return null;
+    }
+    String kind = lines.get(0);
+    if (NAMESPACE.equals(kind) && lines.size() == 2) {
+      return CacheInvalidation.namespace(lines.get(1));
+    } else if (TABLES.equals(kind)) {
+      return CacheInvalidation.tables(lines.subList(1, lines.size()).toArray(new String[0]));
+    }
+    return null;
+  }
+
+  private static void prepareDirectory(Path directory) {
+    try {
+      boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+      if (!Files.isDirectory(directory)) {
+        if (posix) {
+          Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+          // the permissions given on creation are restricted by the umask
+          Files.setPosixFilePermissions(directory, OWNER_ONLY);
+        } else {
+          Files.createDirectories(directory);
+        }
+      }
+      if (posix) {
+        PosixFileAttributes attributes = Files.getFileAttributeView(directory, PosixFileAttributeView.class)
+            .readAttributes();
+        UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!attributes.owner().equals(user) || !OWNER_ONLY.containsAll(attributes.permissions())) {
+          throw new CacheException("The cache invalidation directory " + directory
+              + " must be owned by the current user and must not be accessible to other users.");
+        }
+      }
+    } catch (IOException e) {
+      throw new CacheException("Could not prepare the cache invalidation directory " + directory + ". Cause: " + e, e);
+    }
+  }
+
+  private static class PollerHolder {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-cache-invalidation");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Polls the directory of a bus until the bus is no longer used.
+   */
+  private static class Poller implements Runnable {
+
+    private final WeakReference<FileCacheInvalidationBus> bus;
+
+    Poller(FileCacheInvalidationBus bus) {
+      this.bus = new WeakReference<>(bus);
+    }
+
+    @Override
+    public void run() {
+      FileCacheInvalidationBus target = bus.get();
+      if (target == null) {
+        // stops the scheduling
+        throw new IllegalStateException("The cache invalidation bus has been discarded.");
+      }
+      target.poll();
+    }
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.cache.CacheInvalidation;
+import org.apache.ibatis.cache.CacheInvalidationBus;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * A {@link CacheInvalidationBus} that delivers invalidations to the other buses of the same channel within the JVM,
+ * for example to several {@code SqlSessionFactory} instances that use the same database.
+ *
+ * @since 3.5.10
+ */
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+  private static final Map<String, List<LocalCacheInvalidationBus>> channels = new ConcurrentHashMap<>();
+
+  private final String channel;
+  private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+  public LocalCacheInvalidationBus() {
+    this("default");
+  }
+
+  public LocalCacheInvalidationBus(String channel) {
+    this.channel = channel;
+    MapUtil.computeIfAbsent(channels, channel, k -> new CopyOnWriteArrayList<>()).add(this);
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    for (LocalCacheInvalidationBus bus : channels.get(channel)) {
+      if (bus != this) {
+        bus.subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<CacheInvalidation> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  @Override
+  public void close() {
+    channels.get(channel).remove(this);
+  }
+
+}
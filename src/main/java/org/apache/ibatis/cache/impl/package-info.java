@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -14,6 +14,6 @@
  *    limitations under the License.
  */
 /**
- * Contains the default cache implementation.
+ * Contains the default cache and cache invalidation bus implementations.
  */
 package org.apache.ibatis.cache.impl;
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package org.apache.ibatis.datasource.pooled;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Clinton Begin
@@ -35,6 +36,8 @@ public class PoolState {
   protected long accumulatedWaitTime = 0;
   protected long hadToWaitCount = 0;
   protected long badConnectionCount = 0;
+  protected final LongAdder statementCacheHitCount = new LongAdder();
+  protected final LongAdder statementCacheMissCount = new LongAdder();
 
   public PoolState(PooledDataSource dataSource) {
     this.dataSource = dataSource;
@@ -73,6 +76,26 @@ public class PoolState {
     return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
   }
 
+  /**
+   * Gets the number of prepared statements taken from the statement cache of a connection.
+   *
+   * @return the statement cache hit count
+   * @since 3.5.10
+   */
+  public long getStatementCacheHitCount() {
+    return statementCacheHitCount.sum();
+  }
+
+  /**
+   * Gets the number of prepared statements prepared because the statement cache of the connection did not hold them.
+   *
+   * @return the statement cache miss count
+   * @since 3.5.10
+   */
+  public long getStatementCacheMissCount() {
+    return statementCacheMissCount.sum();
+  }
+
   public synchronized int getIdleConnectionCount() {
     return idleConnections.size();
   }
@@ -96,6 +119,7 @@ public class PoolState {
     builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
     builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
     builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
+    builder.append("\n poolStatementCacheSize         ").append(dataSource.poolStatementCacheSize);
     builder.append("\n ---STATUS-----------------------------------------------------");
     builder.append("\n activeConnections              ").append(getActiveConnectionCount());
     builder.append("\n idleConnections                ").append(getIdleConnectionCount());
@@ -107,6 +131,8 @@ public class PoolState {
     builder.append("\n hadToWait                      ").append(getHadToWaitCount());
     builder.append("\n averageWaitTime                ").append(getAverageWaitTime());
     builder.append("\n badConnectionCount             ").append(getBadConnectionCount());
+    builder.append("\n statementCacheHits             ").append(getStatementCacheHitCount());
+    builder.append("\n statementCacheMisses           ").append(getStatementCacheMissCount());
     builder.append("\n===============================================================");
     return builder.toString();
   }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String PREPARE_STATEMENT = "prepareStatement";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
   private final int hashCode;
@@ -38,8 +39,10 @@ class PooledConnection implements InvocationHandler {
   private long checkoutTimestamp;
   private long createdTimestamp;
   private long lastUsedTimestamp;
+  private long lastValidatedTimestamp;
   private int connectionTypeCode;
   private boolean valid;
+  private PooledStatementCache statementCache;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -62,6 +65,14 @@ class PooledConnection implements InvocationHandler {
   /**
    * Invalidates the connection.
    */
+  PooledStatementCache getStatementCache() {
+    return statementCache;
+  }
+
+  void setStatementCache(PooledStatementCache statementCache) {
+    this.statementCache = statementCache;
+  }
+
   public void invalidate() {
     valid = false;
   }
@@ -168,6 +179,27 @@ class PooledConnection implements InvocationHandler {
     return System.currentTimeMillis() - lastUsedTimestamp;
   }
 
+  /**
+   * Getter for the time that the connection was last validated by the pool housekeeping.
+   *
+   * @return the timestamp, or {@code 0} if it has not been validated
+   * @since 3.5.10
+   */
+  public long getLastValidatedTimestamp() {
+    return lastValidatedTimestamp;
+  }
+
+  /**
+   * Setter for the time that the connection was last validated by the pool housekeeping.
+   *
+   * @param lastValidatedTimestamp
+   *          the timestamp
+   * @since 3.5.10
+   */
+  public void setLastValidatedTimestamp(long lastValidatedTimestamp) {
+    this.lastValidatedTimestamp = lastValidatedTimestamp;
+  }
+
   /**
    * Getter for the age of the connection.
    *
@@ -252,6 +284,9 @@ class PooledConnection implements InvocationHandler {
         // throw an SQLException instead of a Runtime
         checkConnection();
       }
+      if (statementCache != null && PREPARE_STATEMENT.equals(methodName)) {
+        return statementCache.prepare(realConnection, proxyConnection, method, args);
+      }
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
       throw ExceptionUtil.unwrapThrowable(t);
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -16,13 +16,26 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -30,6 +43,7 @@ import javax.sql.DataSource;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.metrics.MetricsCollector;
 
 /**
  * This is a simple, synchronous, thread-safe database connection pool.
@@ -40,6 +54,8 @@ public class PooledDataSource implements DataSource {
 
   private static final Log log = LogFactory.getLog(PooledDataSource.class);
 
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
   private final PoolState state = new PoolState(this);
 
   private final UnpooledDataSource dataSource;
@@ -53,8 +69,20 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected int poolStatementCacheSize;
+  protected int poolWarmUpConnections;
+  protected int poolMinimumIdleConnections;
+  protected int poolMaximumLifetime;
+  protected int poolIdleTimeout;
+  protected int poolHousekeepingInterval;
 
   private int expectedConnectionTypeCode;
+  private volatile MetricsCollector metricsCollector;
+  private final Object warmUpLock = new Object();
+  private volatile boolean warmedUp;
+  private final Object housekeepingLock = new Object();
+  private Housekeeper housekeeper;
+  private int poolGeneration;
 
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
@@ -134,6 +162,19 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * Sets whether connections are opened by calling the driver directly instead of through the {@link DriverManager}.
+   *
+   * @param directDriverConnect
+   *          {@code true} to call the driver directly
+   * @see UnpooledDataSource#setDirectDriverConnect(boolean)
+   * @since 3.5.10
+   */
+  public void setDirectDriverConnect(boolean directDriverConnect) {
+    dataSource.setDirectDriverConnect(directDriverConnect);
+    forceCloseAll();
+  }
+
   public void setDefaultAutoCommit(boolean defaultAutoCommit) {
     dataSource.setAutoCommit(defaultAutoCommit);
     forceCloseAll();
@@ -254,6 +295,100 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * Sets the number of prepared statements that each connection keeps open after they are closed, to reuse them in
+   * later sessions without preparing them again.
+   *
+   * @param poolStatementCacheSize
+   *          the number of statements cached per connection, {@code 0} disables the cache
+   * @since 3.5.10
+   */
+  public void setPoolStatementCacheSize(int poolStatementCacheSize) {
+    this.poolStatementCacheSize = poolStatementCacheSize;
+    forceCloseAll();
+  }
+
+  /**
+   * Sets the number of connections opened at the same time when the pool is first used, so that the first requests do
+   * not each wait for a new physical connection. It is capped by the maximum number of idle connections.
+   *
+   * @param poolWarmUpConnections
+   *          the number of connections to open in advance, {@code 0} disables the warm-up
+   * @see #warmUp()
+   * @since 3.5.10
+   */
+  public void setPoolWarmUpConnections(int poolWarmUpConnections) {
+    this.poolWarmUpConnections = poolWarmUpConnections;
+    forceCloseAll();
+  }
+
+  /**
+   * Sets the number of idle connections the housekeeping keeps open, opening new ones when there are fewer. It is
+   * capped by the maximum number of idle connections.
+   *
+   * @param poolMinimumIdleConnections
+   *          the minimum number of idle connections
+   * @see #setPoolHousekeepingInterval(int)
+   * @since 3.5.10
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+  }
+
+  /**
+   * Sets the maximum time a connection is used for. An older connection is closed when it is returned to the pool or
+   * found idle by the housekeeping. Each connection is retired up to 2.5% earlier, so that connections opened
+   * together are not all closed at the same time.
+   *
+   * @param milliseconds
+   *          the maximum lifetime of a connection, {@code 0} for no limit
+   * @since 3.5.10
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+  }
+
+  /**
+   * Sets the time after which the housekeeping closes a connection that has not been used, as long as more than the
+   * minimum number of idle connections are left.
+   *
+   * @param milliseconds
+   *          the idle timeout, {@code 0} to keep idle connections open
+   * @see #setPoolMinimumIdleConnections(int)
+   * @since 3.5.10
+   */
+  public void setPoolIdleTimeout(int milliseconds) {
+    this.poolIdleTimeout = milliseconds;
+  }
+
+  /**
+   * Sets the interval of the housekeeping, which runs on a background thread shared by all pools. It closes the idle
+   * connections that exceeded the maximum lifetime or the idle timeout, validates the idle connections that have
+   * been neither used nor validated during the last interval, and opens connections up to the minimum number of idle
+   * connections.
+   * <p>
+   * Idle connections are validated with the ping query when the ping is enabled, or with
+   * {@link Connection#isValid(int)} otherwise. A connection validated by the housekeeping is not pinged again when it
+   * is checked out, unless it was validated longer ago than {@link #setPoolPingConnectionsNotUsedFor(int)}.
+   *
+   * @param milliseconds
+   *          the interval between two runs, {@code 0} to disable the housekeeping
+   * @since 3.5.10
+   */
+  public void setPoolHousekeepingInterval(int milliseconds) {
+    synchronized (housekeepingLock) {
+      this.poolHousekeepingInterval = milliseconds;
+      if (housekeeper != null) {
+        housekeeper.cancel();
+        housekeeper = null;
+      }
+      if (milliseconds > 0) {
+        housekeeper = new Housekeeper(this);
+        housekeeper.schedule(milliseconds);
+      }
+    }
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -324,11 +459,53 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  /**
+   * Gets the number of prepared statements that each connection keeps open after they are closed.
+   *
+   * @return the number of statements cached per connection
+   * @since 3.5.10
+   */
+  public int getPoolStatementCacheSize() {
+    return poolStatementCacheSize;
+  }
+
+  /**
+   * Gets the number of connections opened at the same time when the pool is first used.
+   *
+   * @return the number of connections opened in advance
+   * @since 3.5.10
+   */
+  public int getPoolWarmUpConnections() {
+    return poolWarmUpConnections;
+  }
+
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
+
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  public int getPoolIdleTimeout() {
+    return poolIdleTimeout;
+  }
+
+  public int getPoolHousekeepingInterval() {
+    return poolHousekeepingInterval;
+  }
+
+  public boolean isDirectDriverConnect() {
+    return dataSource.isDirectDriverConnect();
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
+    warmedUp = false;
     synchronized (state) {
+      poolGeneration++;
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
         try {
@@ -368,6 +545,221 @@ public class PooledDataSource implements DataSource {
     return state;
   }
 
+  /**
+   * Sets the collector that receives the connection checkout times.
+   *
+   * @param metricsCollector
+   *          the metrics collector, or {@code null}
+   * @since 3.5.10
+   */
+  public void setMetricsCollector(MetricsCollector metricsCollector) {
+    this.metricsCollector = metricsCollector;
+  }
+
+  /**
+   * Opens new connections in parallel until the pool holds the number of idle connections set with
+   * {@link #setPoolWarmUpConnections(int)}. The pool does this itself when it is first used; calling this method at
+   * application startup moves that work out of the first requests.
+   *
+   * @throws SQLException
+   *           if a connection could not be opened; the connections that were opened are kept
+   * @since 3.5.10
+   */
+  public void warmUp() throws SQLException {
+    int count;
+    synchronized (state) {
+      count = Math.min(poolWarmUpConnections, poolMaximumIdleConnections) - state.idleConnections.size();
+    }
+    if (count <= 0) {
+      return;
+    }
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(count, runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-pool-warm-up-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    SQLException failure = null;
+    try {
+      Callable<Connection> newConnection = dataSource::getConnection;
+      List<Future<Connection>> connections = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        connections.add(executor.submit(newConnection));
+      }
+      for (Future<Connection> connection : connections) {
+        try {
+          addIdleConnection(connection.get());
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SQLException("Interrupted while warming up the pool.", e);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void addIdleConnection(Connection realConnection) throws SQLException {
+    synchronized (state) {
+      if (state.idleConnections.size() < poolMaximumIdleConnections) {
+        PooledConnection conn = new PooledConnection(realConnection, this);
+        if (poolStatementCacheSize > 0) {
+          conn.setStatementCache(new PooledStatementCache(state, poolStatementCacheSize));
+        }
+        conn.setConnectionTypeCode(expectedConnectionTypeCode);
+        state.idleConnections.add(conn);
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + " to warm up the pool.");
+        }
+        state.notifyAll();
+        return;
+      }
+    }
+    realConnection.close();
+  }
+
+  private void warmUpOnFirstUse() {
+    if (poolWarmUpConnections > 0 && !warmedUp) {
+      synchronized (warmUpLock) {
+        if (!warmedUp) {
+          warmedUp = true;
+          try {
+            warmUp();
+          } catch (SQLException e) {
+            log.warn("Could not warm up the pool. Cause: " + e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Closes the idle connections that are too old or unused for too long, validates the others and opens new ones up to
+   * the minimum number of idle connections.
+   */
+  void housekeep() throws SQLException {
+    long now = System.currentTimeMillis();
+    List<PooledConnection> evicted = new ArrayList<>();
+    int generation;
+    synchronized (state) {
+      generation = poolGeneration;
+      int idleCount = state.idleConnections.size();
+      for (Iterator<PooledConnection> iterator = state.idleConnections.iterator(); iterator.hasNext();) {
+        PooledConnection conn = iterator.next();
+        if (isExpired(conn) || poolIdleTimeout > 0 && idleCount > poolMinimumIdleConnections
+            && conn.getTimeElapsedSinceLastUse() > poolIdleTimeout) {
+          iterator.remove();
+          evicted.add(conn);
+          idleCount--;
+        }
+      }
+    }
+    for (PooledConnection conn : evicted) {
+      closeIdleConnection(conn);
+      if (log.isDebugEnabled()) {
+        log.debug("Closed expired idle connection " + conn.getRealHashCode() + ".");
+      }
+    }
+    // one at a time, so request threads still find the other idle connections
+    PooledConnection conn;
+    while ((conn = takeUnvalidatedConnection(now)) != null) {
+      if (validateIdleConnection(conn)) {
+        conn.setLastValidatedTimestamp(System.currentTimeMillis());
+        if (!returnIdleConnection(conn, generation)) {
+          closeIdleConnection(conn);
+        }
+      } else {
+        closeIdleConnection(conn);
+        synchronized (state) {
+          state.badConnectionCount++;
+        }
+      }
+    }
+    int missing;
+    synchronized (state) {
+      missing = Math.min(poolMinimumIdleConnections, poolMaximumIdleConnections) - state.idleConnections.size();
+    }
+    for (int i = 0; i < missing; i++) {
+      addIdleConnection(dataSource.getConnection());
+    }
+  }
+
+  private PooledConnection takeUnvalidatedConnection(long now) {
+    synchronized (state) {
+      for (Iterator<PooledConnection> iterator = state.idleConnections.iterator(); iterator.hasNext();) {
+        PooledConnection conn = iterator.next();
+        // the connections validated by this run have a timestamp of now or later
+        if (conn.getLastValidatedTimestamp() < now
+            && now - Math.max(conn.getLastUsedTimestamp(), conn.getLastValidatedTimestamp()) >= poolHousekeepingInterval) {
+          // taken out of the pool while it is validated
+          iterator.remove();
+          return conn;
+        }
+      }
+      return null;
+    }
+  }
+
+  private boolean isExpired(PooledConnection conn) {
+    if (poolMaximumLifetime <= 0) {
+      return false;
+    }
+    int jitter = (conn.getRealHashCode() & Integer.MAX_VALUE) % (poolMaximumLifetime / 40 + 1);
+    return conn.getAge() >= poolMaximumLifetime - jitter;
+  }
+
+  private boolean validateIdleConnection(PooledConnection conn) {
+    Connection realConn = conn.getRealConnection();
+    try {
+      if (poolPingEnabled) {
+        try (Statement statement = realConn.createStatement()) {
+          // a dead connection must not hold up the housekeeping thread shared by all pools
+          statement.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+          statement.executeQuery(poolPingQuery).close();
+        }
+        if (!realConn.getAutoCommit()) {
+          realConn.rollback();
+        }
+        return true;
+      }
+      return realConn.isValid(VALIDATION_TIMEOUT_SECONDS);
+    } catch (Exception e) {
+      log.warn("Validation of idle connection " + conn.getRealHashCode() + " failed: " + e.getMessage());
+      return false;
+    }
+  }
+
+  private boolean returnIdleConnection(PooledConnection conn, int generation) {
+    synchronized (state) {
+      if (generation == poolGeneration && state.idleConnections.size() < poolMaximumIdleConnections) {
+        state.idleConnections.add(conn);
+        state.notifyAll();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  private void closeIdleConnection(PooledConnection conn) {
+    conn.invalidate();
+    try {
+      Connection realConn = conn.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
   private int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
@@ -377,12 +769,14 @@ public class PooledDataSource implements DataSource {
     synchronized (state) {
       state.activeConnections.remove(conn);
       if (conn.isValid()) {
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode
+            && !isExpired(conn)) {
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
           PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.setStatementCache(conn.getStatementCache());
           state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
           newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
@@ -412,9 +806,11 @@ public class PooledDataSource implements DataSource {
   }
 
   private PooledConnection popConnection(String username, String password) throws SQLException {
+    warmUpOnFirstUse();
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
+    long start = System.nanoTime();
     int localBadConnectionCount = 0;
 
     while (conn == null) {
@@ -430,6 +826,9 @@ public class PooledDataSource implements DataSource {
           if (state.activeConnections.size() < poolMaximumActiveConnections) {
             // Can create new connection
             conn = new PooledConnection(dataSource.getConnection(), this);
+            if (poolStatementCacheSize > 0) {
+              conn.setStatementCache(new PooledStatementCache(state, poolStatementCacheSize));
+            }
             if (log.isDebugEnabled()) {
               log.debug("Created connection " + conn.getRealHashCode() + ".");
             }
@@ -459,6 +858,7 @@ public class PooledDataSource implements DataSource {
                 }
               }
               conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+              conn.setStatementCache(oldestActiveConnection.getStatementCache());
               conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
               conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
               oldestActiveConnection.invalidate();
@@ -522,6 +922,10 @@ public class PooledDataSource implements DataSource {
       throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
     }
 
+    MetricsCollector metrics = metricsCollector;
+    if (metrics != null) {
+      metrics.recordConnectionCheckout(System.nanoTime() - start);
+    }
     return conn;
   }
 
@@ -545,7 +949,8 @@ public class PooledDataSource implements DataSource {
     }
 
     if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
-        && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+        && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor
+        && System.currentTimeMillis() - conn.getLastValidatedTimestamp() > poolPingConnectionsNotUsedFor) {
       try {
         if (log.isDebugEnabled()) {
           log.debug("Testing connection " + conn.getRealHashCode() + " ...");
@@ -594,6 +999,52 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  private static class HousekeeperHolder {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Runs the housekeeping of a pool until the pool is no longer used.
+   */
+  private static class Housekeeper implements Runnable {
+
+    private final WeakReference<PooledDataSource> dataSource;
+    private volatile ScheduledFuture<?> future;
+
+    Housekeeper(PooledDataSource dataSource) {
+      this.dataSource = new WeakReference<>(dataSource);
+    }
+
+    void schedule(int interval) {
+      future = HousekeeperHolder.SCHEDULER.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void cancel() {
+      ScheduledFuture<?> scheduled = future;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      PooledDataSource pool = dataSource.get();
+      if (pool == null) {
+        cancel();
+        return;
+      }
+      try {
+        pool.housekeep();
+      } catch (Exception e) {
+        log.warn("Pool housekeeping failed. Cause: " + e);
+      }
+    }
+  }
+
   @Override
   protected void finalize() throws Throwable {
     forceCloseAll();
@@ -0,0 +1,252 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * Keeps the prepared statements of a real connection open after they are closed, so that the next session that uses
+ * the connection does not prepare them again.
+ * <p>
+ * Statements are keyed by the arguments of {@code prepareStatement}: the SQL, and the result set type and concurrency
+ * or the generated keys mode. A cached statement is handed out to one caller at a time; a statement prepared while the
+ * cached one is in use is closed when it is released. The least recently used statements are closed when the cache
+ * exceeds its size.
+ *
+ * @since 3.5.10
+ */
+class PooledStatementCache {
+
+  private static final Class<?>[] IFACES = new Class<?>[] { PreparedStatement.class };
+  private static final Map<String, String> RESETTABLE_PROPERTIES = new HashMap<>();
+
+  static {
+    RESETTABLE_PROPERTIES.put("setFetchSize", "getFetchSize");
+    RESETTABLE_PROPERTIES.put("setFetchDirection", "getFetchDirection");
+    RESETTABLE_PROPERTIES.put("setMaxRows", "getMaxRows");
+    RESETTABLE_PROPERTIES.put("setLargeMaxRows", "getLargeMaxRows");
+    RESETTABLE_PROPERTIES.put("setMaxFieldSize", "getMaxFieldSize");
+    RESETTABLE_PROPERTIES.put("setQueryTimeout", "getQueryTimeout");
+    RESETTABLE_PROPERTIES.put("setPoolable", "isPoolable");
+  }
+
+  private final PoolState state;
+  private final int size;
+  private final Map<List<Object>, PreparedStatement> idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+
+  PooledStatementCache(PoolState state, int size) {
+    this.state = state;
+    this.size = size;
+  }
+
+  /**
+   * Hands out a cached statement, or prepares a new one on the real connection.
+   *
+   * @param realConnection
+   *          the connection to prepare on
+   * @param proxyConnection
+   *          the connection that the statement returns from {@code getConnection()}
+   * @param method
+   *          the {@code prepareStatement} method
+   * @param args
+   *          the arguments of the method
+   * @return the statement, released to the cache when closed
+   * @throws Throwable
+   *           if the statement could not be prepared
+   */
+  PreparedStatement prepare(Connection realConnection, Connection proxyConnection, Method method, Object[] args)
+      throws Throwable {
+    List<Object> key = keyOf(args);
+    PreparedStatement statement;
+    synchronized (this) {
+      statement = idleStatements.remove(key);
+    }
+    if (statement != null) {
+      state.statementCacheHitCount.increment();
+    } else {
+      state.statementCacheMissCount.increment();
+      try {
+        statement = (PreparedStatement) method.invoke(realConnection, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+    CachedStatement handler = new CachedStatement(key, statement, proxyConnection);
+    return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), IFACES, handler);
+  }
+
+  synchronized int getIdleStatementCount() {
+    return idleStatements.size();
+  }
+
+  private void release(List<Object> key, PreparedStatement statement) {
+    PreparedStatement evicted = null;
+    synchronized (this) {
+      if (idleStatements.containsKey(key)) {
+        evicted = statement;
+      } else {
+        idleStatements.put(key, statement);
+        if (idleStatements.size() > size) {
+          Iterator<PreparedStatement> eldest = idleStatements.values().iterator();
+          evicted = eldest.next();
+          eldest.remove();
+        }
+      }
+    }
+    if (evicted != null) {
+      closeQuietly(evicted);
+    }
+  }
+
+  private static List<Object> keyOf(Object[] args) {
+    List<Object> key = new ArrayList<>(args.length);
+    for (Object arg : args) {
+      if (arg instanceof int[]) {
+        key.add(Arrays.toString((int[]) arg));
+      } else if (arg instanceof Object[]) {
+        key.add(Arrays.asList((Object[]) arg));
+      } else {
+        key.add(arg);
+      }
+    }
+    return key;
+  }
+
+  private static void closeQuietly(Statement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  private class CachedStatement implements InvocationHandler {
+
+    private final List<Object> key;
+    private final PreparedStatement statement;
+    private final Connection proxyConnection;
+    private final List<ResultSet> resultSets = new ArrayList<>();
+    private Map<Method, Object> originalProperties;
+    private boolean batched;
+    private boolean closed;
+
+    CachedStatement(List<Object> key, PreparedStatement statement, Connection proxyConnection) {
+      this.key = key;
+      this.statement = statement;
+      this.proxyConnection = proxyConnection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String methodName = method.getName();
+      try {
+        if (Object.class.equals(method.getDeclaringClass())) {
+          return method.invoke(this, args);
+        }
+        if ("close".equals(methodName)) {
+          close();
+          return null;
+        } else if ("isClosed".equals(methodName)) {
+          return closed;
+        }
+        if (closed) {
+          throw new SQLException("Statement is closed.");
+        }
+        if ("getConnection".equals(methodName)) {
+          return proxyConnection;
+        }
+        String getter = RESETTABLE_PROPERTIES.get(methodName);
+        if (getter != null) {
+          saveOriginalProperty(method, getter);
+        } else if ("addBatch".equals(methodName)) {
+          batched = true;
+        } else if (methodName.startsWith("execute")) {
+          // executing closes the result sets of the previous execution, only the current ones are kept
+          closeResultSets();
+        }
+        Object result = method.invoke(statement, args);
+        if (result instanceof ResultSet) {
+          resultSets.add((ResultSet) result);
+        }
+        return result;
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+
+    private void saveOriginalProperty(Method setter, String getter) throws ReflectiveOperationException {
+      if (originalProperties == null) {
+        originalProperties = new HashMap<>();
+      }
+      if (!originalProperties.containsKey(setter)) {
+        originalProperties.put(setter, Statement.class.getMethod(getter).invoke(statement));
+      }
+    }
+
+    private void closeResultSets() throws SQLException {
+      try {
+        for (ResultSet resultSet : resultSets) {
+          resultSet.close();
+        }
+      } finally {
+        resultSets.clear();
+      }
+    }
+
+    private void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        closeResultSets();
+        if (originalProperties != null) {
+          for (Map.Entry<Method, Object> property : originalProperties.entrySet()) {
+            property.getKey().invoke(statement, property.getValue());
+          }
+        }
+        if (batched) {
+          statement.clearBatch();
+        }
+        statement.clearParameters();
+        statement.clearWarnings();
+      } catch (Exception e) {
+        // the statement cannot be reset, do not reuse it
+        closeQuietly(statement);
+        return;
+      }
+      release(key, statement);
+    }
+
+  }
+
+}
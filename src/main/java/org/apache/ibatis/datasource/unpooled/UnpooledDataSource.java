@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -50,6 +50,8 @@ public class UnpooledDataSource implements DataSource {
   private Boolean autoCommit;
   private Integer defaultTransactionIsolationLevel;
   private Integer defaultNetworkTimeout;
+  private boolean directDriverConnect;
+  private volatile Driver connectingDriver;
 
   static {
     Enumeration<Driver> drivers = DriverManager.getDrivers();
@@ -126,6 +128,7 @@ public class UnpooledDataSource implements DataSource {
 
   public void setDriverClassLoader(ClassLoader driverClassLoader) {
     this.driverClassLoader = driverClassLoader;
+    this.connectingDriver = null;
   }
 
   public Properties getDriverProperties() {
@@ -142,6 +145,7 @@ public class UnpooledDataSource implements DataSource {
 
   public synchronized void setDriver(String driver) {
     this.driver = driver;
+    this.connectingDriver = null;
   }
 
   public String getUrl() {
@@ -150,6 +154,7 @@ public class UnpooledDataSource implements DataSource {
 
   public void setUrl(String url) {
     this.url = url;
+    this.connectingDriver = null;
   }
 
   public String getUsername() {
@@ -205,6 +210,29 @@ public class UnpooledDataSource implements DataSource {
     this.defaultNetworkTimeout = defaultNetworkTimeout;
   }
 
+  /**
+   * Returns whether connections are opened by calling the driver directly.
+   *
+   * @return {@code true} if the driver is called directly
+   * @since 3.5.10
+   */
+  public boolean isDirectDriverConnect() {
+    return directDriverConnect;
+  }
+
+  /**
+   * Sets whether connections are opened by calling the driver directly. The driver that accepts the url is resolved
+   * once and its {@link Driver#connect(String, Properties)} method is called for every new connection, which avoids
+   * the locks and caller checks of {@link DriverManager#getConnection(String, Properties)}.
+   *
+   * @param directDriverConnect
+   *          {@code true} to call the driver directly
+   * @since 3.5.10
+   */
+  public void setDirectDriverConnect(boolean directDriverConnect) {
+    this.directDriverConnect = directDriverConnect;
+  }
+
   private Connection doGetConnection(String username, String password) throws SQLException {
     Properties props = new Properties();
     if (driverProperties != null) {
@@ -220,13 +248,41 @@ public class UnpooledDataSource implements DataSource {
   }
 
   private Connection doGetConnection(Properties properties) throws SQLException {
-    initializeDriver();
-    Connection connection = DriverManager.getConnection(url, properties);
+    Connection connection;
+    if (directDriverConnect) {
+      Driver connectDriver = getConnectingDriver();
+      connection = connectDriver.connect(url, properties);
+      if (connection == null) {
+        throw new SQLException("The driver " + connectDriver.getClass().getName() + " does not accept the url " + url, "08001");
+      }
+    } else {
+      initializeDriver();
+      connection = DriverManager.getConnection(url, properties);
+    }
     configureConnection(connection);
     return connection;
   }
 
-  private synchronized void initializeDriver() throws SQLException {
+  private Driver getConnectingDriver() throws SQLException {
+    Driver connectDriver = connectingDriver;
+    if (connectDriver == null) {
+      initializeDriver();
+      connectDriver = registeredDrivers.get(driver);
+      if (connectDriver == null || !connectDriver.acceptsURL(url)) {
+        connectDriver = DriverManager.getDriver(url);
+      }
+      connectingDriver = connectDriver;
+    }
+    return connectDriver;
+  }
+
+  private void initializeDriver() throws SQLException {
+    if (!registeredDrivers.containsKey(driver)) {
+      registerDriver();
+    }
+  }
+
+  private synchronized void registerDriver() throws SQLException {
     if (!registeredDrivers.containsKey(driver)) {
       Class<?> driverType;
       try {
@@ -0,0 +1,222 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.metrics.MetricsCollector;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * An executor that picks a strategy per call from the calls seen so far in the session.
+ * <p>
+ * An update is executed directly until the same statement has been run {@link #BATCH_THRESHOLD} times in a row;
+ * from then on it is added to a JDBC batch and returns {@link BatchExecutor#BATCH_UPDATE_RETURN_VALUE}. The batch
+ * is executed as soon as any other statement is run, and on flush, commit, rollback and close, so reads always see
+ * the pending writes. Statements that generate keys are never batched, so keys are assigned when the update returns.
+ * <p>
+ * A query is executed directly the first time its SQL is seen; once the SQL repeats, its statement is kept open
+ * and reused until the statements are flushed.
+ *
+ * @since 3.5.10
+ */
+public class AdaptiveExecutor extends BaseExecutor {
+
+  /**
+   * Number of consecutive executions of the same update after which it is batched.
+   */
+  public static final int BATCH_THRESHOLD = 3;
+
+  private final Map<String, Statement> statementMap = new HashMap<>();
+  private final Map<String, Integer> queryCounts = new HashMap<>();
+  private final List<BatchResult> flushedResults = new ArrayList<>();
+  private String currentSql;
+  private MappedStatement currentStatement;
+  private int consecutiveCount;
+  private Statement batchStatement;
+  private BatchResult batchResult;
+
+  public AdaptiveExecutor(Configuration configuration, Transaction transaction) {
+    super(configuration, transaction);
+  }
+
+  @Override
+  public int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
+    final Configuration configuration = ms.getConfiguration();
+    final StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
+    final String sql = handler.getBoundSql().getSql();
+    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
+      consecutiveCount++;
+    } else {
+      executeBatch();
+      currentSql = sql;
+      currentStatement = ms;
+      consecutiveCount = 1;
+    }
+    if (batchStatement != null) {
+      applyTransactionTimeout(batchStatement);
+      handler.parameterize(batchStatement);
+      batchResult.addParameterObject(parameter);
+    } else if (consecutiveCount >= BATCH_THRESHOLD && isBatchable(ms)) {
+      Connection connection = getConnection(ms.getStatementLog());
+      batchStatement = handler.prepare(connection, transaction.getTimeout());
+      handler.parameterize(batchStatement);
+      batchResult = new BatchResult(ms, sql, parameter);
+    } else {
+      Statement stmt = null;
+      try {
+        stmt = prepareStatement(handler, ms.getStatementLog());
+        return handler.update(stmt);
+      } finally {
+        closeStatement(stmt);
+      }
+    }
+    handler.batch(batchStatement);
+    Integer batchFlushSize = configuration.getBatchFlushSize();
+    if (batchFlushSize != null && batchResult.getParameterObjects().size() >= batchFlushSize) {
+      // the run continues, so the next update starts a new batch straight away
+      executeBatch();
+    }
+    return BatchExecutor.BATCH_UPDATE_RETURN_VALUE;
+  }
+
+  @Override
+  public <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+    endUpdateRun();
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
+    String sql = handler.getBoundSql().getSql();
+    if (queryCounts.merge(sql, 1, Integer::sum) > 1) {
+      Statement stmt = prepareReusableStatement(handler, sql, ms.getStatementLog());
+      return handler.query(stmt, resultHandler);
+    }
+    Statement stmt = null;
+    try {
+      stmt = prepareStatement(handler, ms.getStatementLog());
+      return handler.query(stmt, resultHandler);
+    } finally {
+      closeStatement(stmt);
+    }
+  }
+
+  @Override
+  protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    endUpdateRun();
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+    // an open cursor holds its statement, so it is never shared
+    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Cursor<E> cursor = handler.queryCursor(stmt);
+    stmt.closeOnCompletion();
+    return cursor;
+  }
+
+  @Override
+  public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+    try {
+      if (isRollback) {
+        closeBatch();
+        return new ArrayList<>();
+      }
+      endUpdateRun();
+      return new ArrayList<>(flushedResults);
+    } finally {
+      flushedResults.clear();
+      currentSql = null;
+      currentStatement = null;
+      consecutiveCount = 0;
+      for (Statement stmt : statementMap.values()) {
+        closeStatement(stmt);
+      }
+      statementMap.clear();
+      queryCounts.clear();
+    }
+  }
+
+  private boolean isBatchable(MappedStatement ms) {
+    return NoKeyGenerator.class.equals(ms.getKeyGenerator().getClass());
+  }
+
+  private void endUpdateRun() throws SQLException {
+    executeBatch();
+    currentSql = null;
+    currentStatement = null;
+    consecutiveCount = 0;
+  }
+
+  private void executeBatch() throws SQLException {
+    if (batchStatement == null) {
+      return;
+    }
+    try {
+      applyTransactionTimeout(batchStatement);
+      batchResult.setUpdateCounts(batchStatement.executeBatch());
+      MetricsCollector metrics = configuration.getMetricsCollector();
+      if (metrics != null) {
+        metrics.recordBatch(batchResult.getMappedStatement().getId(), batchResult.getParameterObjects().size());
+      }
+      flushedResults.add(batchResult);
+    } catch (BatchUpdateException e) {
+      String message = batchResult.getMappedStatement().getId() + " (batch index #" + (flushedResults.size() + 1) + ") failed.";
+      throw new BatchExecutorException(message, e, new ArrayList<>(flushedResults), batchResult);
+    } finally {
+      closeBatch();
+    }
+  }
+
+  private void closeBatch() {
+    closeStatement(batchStatement);
+    batchStatement = null;
+    batchResult = null;
+  }
+
+  private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+    Connection connection = getConnection(statementLog);
+    Statement stmt = handler.prepare(connection, transaction.getTimeout());
+    handler.parameterize(stmt);
+    return stmt;
+  }
+
+  private Statement prepareReusableStatement(StatementHandler handler, String sql, Log statementLog) throws SQLException {
+    Statement stmt = statementMap.get(sql);
+    if (stmt != null && !stmt.isClosed() && !stmt.getConnection().isClosed()) {
+      applyTransactionTimeout(stmt);
+    } else {
+      Connection connection = getConnection(statementLog);
+      stmt = handler.prepare(connection, transaction.getTimeout());
+      statementMap.put(sql, stmt);
+    }
+    handler.parameterize(stmt);
+    return stmt;
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
@@ -29,12 +30,16 @@ import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.logging.jdbc.AsyncJdbcLogWriter;
 import org.apache.ibatis.logging.jdbc.ConnectionLogger;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.metrics.ExecutionPhase;
+import org.apache.ibatis.metrics.ExecutionTrace;
+import org.apache.ibatis.metrics.MetricsCollector;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
@@ -50,6 +55,8 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public abstract class BaseExecutor implements Executor {
 
   private static final Log log = LogFactory.getLog(BaseExecutor.class);
+  // statement executions considered for JDBC log sampling, shared by all executors
+  private static final AtomicLong jdbcLogExecutions = new AtomicLong();
 
   protected Transaction transaction;
   protected Executor wrapper;
@@ -61,6 +68,8 @@ public abstract class BaseExecutor implements Executor {
 
   protected int queryStack;
   private boolean closed;
+  private int rowsRead = -1;
+  private int rowsMapped = -1;
 
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
@@ -114,7 +123,21 @@ public abstract class BaseExecutor implements Executor {
       throw new ExecutorException("Executor was closed.");
     }
     clearLocalCache();
-    return doUpdate(ms, parameter);
+    ExecutionTrace trace = ExecutionTrace.start(ms);
+    try {
+      MetricsCollector metrics = configuration.getMetricsCollector();
+      if (metrics == null) {
+        return doUpdate(ms, parameter);
+      }
+      long start = System.nanoTime();
+      int updated = doUpdate(ms, parameter);
+      metrics.recordStatement(ms.getId(), System.nanoTime() - start, Math.max(updated, 0));
+      return updated;
+    } finally {
+      if (trace != null) {
+        trace.finish();
+      }
+    }
   }
 
   @Override
@@ -131,9 +154,18 @@ public abstract class BaseExecutor implements Executor {
 
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
-    BoundSql boundSql = ms.getBoundSql(parameter);
-    CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
-    return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
+    ExecutionTrace trace = ExecutionTrace.start(ms);
+    try {
+      long mark = ExecutionTrace.mark();
+      BoundSql boundSql = ms.getBoundSql(parameter);
+      ExecutionTrace.record(ExecutionPhase.BOUND_SQL, mark);
+      CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
+      return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
+    } finally {
+      if (trace != null) {
+        trace.finish();
+      }
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -174,8 +206,17 @@ public abstract class BaseExecutor implements Executor {
 
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
-    BoundSql boundSql = ms.getBoundSql(parameter);
-    return doQueryCursor(ms, parameter, rowBounds, boundSql);
+    ExecutionTrace trace = ExecutionTrace.start(ms);
+    try {
+      long mark = ExecutionTrace.mark();
+      BoundSql boundSql = ms.getBoundSql(parameter);
+      ExecutionTrace.record(ExecutionPhase.BOUND_SQL, mark);
+      return doQueryCursor(ms, parameter, rowBounds, boundSql);
+    } finally {
+      if (trace != null) {
+        trace.finish();
+      }
+    }
   }
 
   @Override
@@ -321,11 +362,22 @@ public abstract class BaseExecutor implements Executor {
   private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
     List<E> list;
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
+    MetricsCollector metrics = configuration.getMetricsCollector();
+    long start = metrics == null ? 0 : System.nanoTime();
+    rowsRead = -1;
+    rowsMapped = -1;
     try {
       list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
     } finally {
       localCache.removeObject(key);
     }
+    if (metrics != null) {
+      // the list is empty when a result handler is used
+      metrics.recordStatement(ms.getId(), System.nanoTime() - start, rowsMapped >= 0 ? rowsMapped : list.size());
+    }
+    if (configuration.isAdaptiveFetchSizeEnabled() && rowsRead >= 0 && !ms.isStreaming()) {
+      configuration.getAdaptiveFetchSize().record(ms, rowsRead);
+    }
     localCache.putObject(key, list);
     if (ms.getStatementType() == StatementType.CALLABLE) {
       localOutputParameterCache.putObject(key, parameter);
@@ -334,14 +386,42 @@ public abstract class BaseExecutor implements Executor {
   }
 
   protected Connection getConnection(Log statementLog) throws SQLException {
+    long mark = ExecutionTrace.mark();
     Connection connection = transaction.getConnection();
-    if (statementLog.isDebugEnabled()) {
-      return ConnectionLogger.newInstance(connection, statementLog, queryStack);
+    ExecutionTrace.record(ExecutionPhase.CONNECTION, mark);
+    if (statementLog.isDebugEnabled() && isJdbcLogSampled()) {
+      AsyncJdbcLogWriter logWriter = configuration.isAsyncJdbcLogging() ? AsyncJdbcLogWriter.getInstance() : null;
+      return ConnectionLogger.newInstance(connection, statementLog, queryStack, logWriter);
     } else {
       return connection;
     }
   }
 
+  private boolean isJdbcLogSampled() {
+    int sampleRate = configuration.getJdbcLogSampleRate();
+    return sampleRate == 1 || jdbcLogExecutions.getAndIncrement() % sampleRate == 0;
+  }
+
+  @Override
+  public void recordRowsRead(int rows) {
+    rowsRead = rows;
+  }
+
+  @Override
+  public void recordRowsMapped(int rows) {
+    rowsMapped = rows;
+  }
+
+  @Override
+  public void cacheResult(MappedStatement ms, CacheKey key, List<?> list) {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    if (localCache.getObject(key) == null) {
+      localCache.putObject(key, list);
+    }
+  }
+
   @Override
   public void setExecutorWrapper(Executor wrapper) {
     this.wrapper = wrapper;
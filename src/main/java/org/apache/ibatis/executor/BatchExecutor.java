@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.metrics.MetricsCollector;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -44,6 +45,8 @@ public class BatchExecutor extends BaseExecutor {
 
   private final List<Statement> statementList = new ArrayList<>();
   private final List<BatchResult> batchResultList = new ArrayList<>();
+  private final List<BatchResult> flushedResults = new ArrayList<>();
+  private int batchedCount;
   private String currentSql;
   private MappedStatement currentStatement;
 
@@ -75,6 +78,12 @@ public class BatchExecutor extends BaseExecutor {
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
     }
     handler.batch(stmt);
+    batchedCount++;
+    Integer batchFlushSize = configuration.getBatchFlushSize();
+    if (batchFlushSize != null && batchedCount >= batchFlushSize) {
+      // execute the chunk now; its generated keys are assigned and its results returned by the next flush
+      executeBatches(flushedResults);
+    }
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
@@ -111,10 +120,20 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
       if (isRollback) {
+        closeBatches();
         return Collections.emptyList();
       }
+      List<BatchResult> results = new ArrayList<>(flushedResults);
+      executeBatches(results);
+      return results;
+    } finally {
+      flushedResults.clear();
+    }
+  }
+
+  private void executeBatches(List<BatchResult> results) throws SQLException {
+    try {
       for (int i = 0, n = statementList.size(); i < n; i++) {
         Statement stmt = statementList.get(i);
         applyTransactionTimeout(stmt);
@@ -123,6 +142,10 @@ public class BatchExecutor extends BaseExecutor {
           batchResult.setUpdateCounts(stmt.executeBatch());
           MappedStatement ms = batchResult.getMappedStatement();
           List<Object> parameterObjects = batchResult.getParameterObjects();
+          MetricsCollector metrics = configuration.getMetricsCollector();
+          if (metrics != null) {
+            metrics.recordBatch(ms.getId(), parameterObjects.size());
+          }
           KeyGenerator keyGenerator = ms.getKeyGenerator();
           if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
             Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
@@ -150,15 +173,19 @@ public class BatchExecutor extends BaseExecutor {
         }
         results.add(batchResult);
       }
-      return results;
     } finally {
-      for (Statement stmt : statementList) {
-        closeStatement(stmt);
-      }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      closeBatches();
+    }
+  }
+
+  private void closeBatches() {
+    for (Statement stmt : statementList) {
+      closeStatement(stmt);
     }
+    currentSql = null;
+    batchedCount = 0;
+    statementList.clear();
+    batchResultList.clear();
   }
 
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -19,15 +19,26 @@ import java.sql.SQLException;
 import java.util.List;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheInvalidationBus;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.TableDependencies;
+import org.apache.ibatis.cache.TableDependencies.DependentValue;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.result.SpillableResultList;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.metrics.ExecutionPhase;
+import org.apache.ibatis.metrics.ExecutionTrace;
+import org.apache.ibatis.metrics.MetricsCollector;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -39,10 +50,24 @@ import org.apache.ibatis.transaction.Transaction;
 public class CachingExecutor implements Executor {
 
   private final Executor delegate;
-  private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final TransactionalCacheManager tcm;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates an executor that publishes the second level cache invalidations of its transactions to other nodes.
+   *
+   * @param delegate
+   *          the executor
+   * @param invalidationBus
+   *          the invalidation bus, or {@code null}
+   * @since 3.5.10
+   */
+  public CachingExecutor(Executor delegate, CacheInvalidationBus invalidationBus) {
     this.delegate = delegate;
+    this.tcm = new TransactionalCacheManager(invalidationBus);
     delegate.setExecutorWrapper(this);
   }
 
@@ -84,9 +109,18 @@ public class CachingExecutor implements Executor {
 
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
-    BoundSql boundSql = ms.getBoundSql(parameterObject);
-    CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);
-    return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+    ExecutionTrace trace = ExecutionTrace.start(ms);
+    try {
+      long mark = ExecutionTrace.mark();
+      BoundSql boundSql = ms.getBoundSql(parameterObject);
+      ExecutionTrace.record(ExecutionPhase.BOUND_SQL, mark);
+      CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);
+      return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+    } finally {
+      if (trace != null) {
+        trace.finish();
+      }
+    }
   }
 
   @Override
@@ -97,11 +131,20 @@ public class CachingExecutor implements Executor {
       flushCacheIfRequired(ms);
       if (ms.isUseCache() && resultHandler == null) {
         ensureNoOutParams(ms, boundSql);
+        Object value = getObject(cache, key, ms, parameterObject, rowBounds, boundSql);
+        if (value instanceof DependentValue) {
+          value = currentValue(ms, (DependentValue) value);
+        }
         @SuppressWarnings("unchecked")
-        List<E> list = (List<E>) tcm.getObject(cache, key);
+        List<E> list = (List<E>) value;
+        recordCacheAccess(ms, cache, list != null);
         if (list == null) {
+          long[] versions = getTableVersions(ms);
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          // a spilled list would be read back into memory to be serialized or copied into the cache
+          if (!(list instanceof SpillableResultList && ((SpillableResultList<?>) list).isSpilled())) {
+            tcm.putObject(cache, key, dependentValue(ms, list, versions)); // issue #578 and #116
+          }
         }
         return list;
       }
@@ -131,6 +174,61 @@ public class CachingExecutor implements Executor {
     }
   }
 
+  private Object getObject(Cache cache, CacheKey key, MappedStatement ms, Object parameterObject, RowBounds rowBounds,
+      BoundSql boundSql) {
+    if (!ExpiringCache.isRefreshAheadInUse()) {
+      return tcm.getObject(cache, key);
+    }
+    ExpiringCache.setLoader(() -> reload(ms, parameterObject, rowBounds, key, boundSql));
+    try {
+      return tcm.getObject(cache, key);
+    } finally {
+      ExpiringCache.setLoader(null);
+    }
+  }
+
+  private static void recordCacheAccess(MappedStatement ms, Cache cache, boolean hit) {
+    MetricsCollector metrics = ms.getConfiguration().getMetricsCollector();
+    if (metrics != null) {
+      if (hit) {
+        metrics.recordCacheHit(cache.getId());
+      } else {
+        metrics.recordCacheMiss(cache.getId());
+      }
+    }
+  }
+
+  private Object currentValue(MappedStatement ms, DependentValue value) {
+    if (tcm.isInvalidated(value.getTables()) || !ms.getConfiguration().getTableDependencies().isCurrent(value)) {
+      return null;
+    }
+    return value.getValue();
+  }
+
+  private static long[] getTableVersions(MappedStatement ms) {
+    String[] tables = ms.getTables();
+    return tables == null ? null : ms.getConfiguration().getTableDependencies().getVersions(tables);
+  }
+
+  private static Object dependentValue(MappedStatement ms, Object value, long[] versions) {
+    return versions == null ? value : new DependentValue(value, ms.getTables(), versions);
+  }
+
+  private static Object reload(MappedStatement ms, Object parameterObject, RowBounds rowBounds, CacheKey key,
+      BoundSql boundSql) throws SQLException {
+    Configuration configuration = ms.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    Transaction transaction = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+    Executor executor = new SimpleExecutor(configuration, transaction);
+    try {
+      long[] versions = getTableVersions(ms);
+      return dependentValue(ms, executor.query(ms, parameterObject, rowBounds, NO_RESULT_HANDLER, key, boundSql),
+          versions);
+    } finally {
+      executor.close(false);
+    }
+  }
+
   private void ensureNoOutParams(MappedStatement ms, BoundSql boundSql) {
     if (ms.getStatementType() == StatementType.CALLABLE) {
       for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
@@ -162,12 +260,36 @@ public class CachingExecutor implements Executor {
   }
 
   private void flushCacheIfRequired(MappedStatement ms) {
+    if (!ms.isFlushCacheRequired()) {
+      return;
+    }
     Cache cache = ms.getCache();
-    if (cache != null && ms.isFlushCacheRequired()) {
+    if (ms.getTables() != null && ms.getSqlCommandType() != SqlCommandType.SELECT) {
+      TableDependencies tableDependencies = ms.getConfiguration().getTableDependencies();
+      tcm.invalidate(tableDependencies, ms.getTables());
+      if (cache != null && !tableDependencies.isTracked(cache)) {
+        tcm.clear(cache);
+      }
+    } else if (cache != null) {
       tcm.clear(cache);
     }
   }
 
+  @Override
+  public void recordRowsRead(int rows) {
+    delegate.recordRowsRead(rows);
+  }
+
+  @Override
+  public void recordRowsMapped(int rows) {
+    delegate.recordRowsMapped(rows);
+  }
+
+  @Override
+  public void cacheResult(MappedStatement ms, CacheKey key, List<?> list) {
+    delegate.cacheResult(ms, key, list);
+  }
+
   @Override
   public void setExecutorWrapper(Executor executor) {
     throw new UnsupportedOperationException("This method should not be called");
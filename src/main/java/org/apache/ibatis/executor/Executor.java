@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -64,4 +64,43 @@ public interface Executor {
 
   void setExecutorWrapper(Executor executor);
 
+  /**
+   * Records the number of rows read from the result sets of the query being executed. The result set handler calls
+   * this once it has handled all the result sets, so nested queries run while mapping report theirs first.
+   *
+   * @param rows
+   *          the number of rows read
+   * @since 3.5.10
+   */
+  default void recordRowsRead(int rows) {
+    // NOP
+  }
+
+  /**
+   * Records the number of top level result objects mapped by the query being executed, including the ones passed to a
+   * result handler. The result set handler calls this together with {@link #recordRowsRead(int)}.
+   *
+   * @param rows
+   *          the number of result objects mapped
+   * @since 3.5.10
+   */
+  default void recordRowsMapped(int rows) {
+    // NOP
+  }
+
+  /**
+   * Adds the rows of a select run outside this executor to its local cache, unless the key is already there.
+   *
+   * @param ms
+   *          the select
+   * @param key
+   *          the cache key of the select
+   * @param list
+   *          the rows
+   * @since 3.5.10
+   */
+  default void cacheResult(MappedStatement ms, CacheKey key, List<?> list) {
+    // NOP
+  }
+
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -36,6 +36,9 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.ArrayUtil;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyPath;
+import org.apache.ibatis.reflection.wrapper.BeanWrapper;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.defaults.DefaultSqlSession.StrictMap;
 import org.apache.ibatis.type.JdbcType;
@@ -235,6 +238,8 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
     private final String paramName;
     private final String propertyName;
     private TypeHandler<?> typeHandler;
+    private Class<?> setterOwner;
+    private Invoker setter;
 
     protected KeyAssigner(Configuration configuration, ResultSetMetaData rsmd, int columnPosition, String paramName,
         String propertyName) {
@@ -252,8 +257,13 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
         // If paramName is set, param is ParamMap
         param = ((ParamMap<?>) param).get(paramName);
       }
-      MetaObject metaParam = configuration.newMetaObject(param);
       try {
+        if (param != null && param.getClass() == setterOwner) {
+          // the type handler and setter were resolved by a previous row of this batch
+          setter.invoke(param, new Object[] { typeHandler.getResult(rs, columnPosition) });
+          return;
+        }
+        MetaObject metaParam = configuration.newMetaObject(param);
         if (typeHandler == null) {
           if (metaParam.hasSetter(propertyName)) {
             Class<?> propertyType = metaParam.getSetterType(propertyName);
@@ -269,11 +279,22 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
         } else {
           Object value = typeHandler.getResult(rs, columnPosition);
           metaParam.setValue(propertyName, value);
+          resolveSetter(metaParam);
         }
-      } catch (SQLException e) {
+      } catch (SQLException | ReflectiveOperationException e) {
         throw new ExecutorException("Error getting generated key or setting result to parameter object. Cause: " + e,
             e);
       }
     }
+
+    private void resolveSetter(MetaObject metaParam) {
+      PropertyPath path = PropertyPath.compile(propertyName);
+      if (setterOwner == null && path.isSimple() && path.getSegment(0).getIndex() == null
+          && metaParam.getObjectWrapper() instanceof BeanWrapper) {
+        Class<?> owner = metaParam.getOriginalObject().getClass();
+        setter = configuration.getReflectorFactory().findForClass(owner).getSetInvoker(propertyName);
+        setterOwner = owner;
+      }
+    }
   }
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package org.apache.ibatis.executor.loader;
 
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
@@ -32,4 +33,29 @@ public interface ProxyFactory {
 
   Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs);
 
+  /**
+   * Creates a proxy for a result object whose lazy loaded properties are known up front, so that only their accessors
+   * and the lazy load trigger methods need to be intercepted.
+   *
+   * @param target
+   *          the result object
+   * @param lazyLoader
+   *          the loaders of the properties that have not been loaded yet
+   * @param lazyProperties
+   *          the properties of the result map that are loaded lazily
+   * @param configuration
+   *          the configuration
+   * @param objectFactory
+   *          the object factory
+   * @param constructorArgTypes
+   *          the constructor argument types
+   * @param constructorArgs
+   *          the constructor arguments
+   * @return the proxy
+   * @since 3.5.10
+   */
+  default Object createProxy(Object target, ResultLoaderMap lazyLoader, Set<String> lazyProperties, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    return createProxy(target, lazyLoader, configuration, objectFactory, constructorArgTypes, constructorArgs);
+  }
+
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.TransactionIsolationLevel;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.transaction.TransactionFactory;
 
@@ -67,16 +68,31 @@ public class ResultLoader {
   }
 
   public Object loadResult() throws SQLException {
-    List<Object> list = selectList();
+    Executor localExecutor = executor;
+    if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
+      localExecutor = newExecutor(null);
+    }
+    List<Object> list = selectList(localExecutor);
     resultObject = resultExtractor.extractObjectFromList(list, targetType);
     return resultObject;
   }
 
-  private <E> List<E> selectList() throws SQLException {
-    Executor localExecutor = executor;
-    if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
-      localExecutor = newExecutor();
-    }
+  /**
+   * Runs the select in a new transaction, on a connection of its own. The rows are not extracted, so they can be added
+   * to the local cache of the session that created this loader.
+   *
+   * @param level
+   *          the isolation level of the transaction, or {@code null} for the data source default
+   * @return the rows
+   * @throws SQLException
+   *           if the select fails
+   * @since 3.5.10
+   */
+  public List<Object> selectListInNewTransaction(TransactionIsolationLevel level) throws SQLException {
+    return selectList(newExecutor(level));
+  }
+
+  private <E> List<E> selectList(Executor localExecutor) throws SQLException {
     try {
       return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
     } finally {
@@ -86,7 +102,7 @@ public class ResultLoader {
     }
   }
 
-  private Executor newExecutor() {
+  private Executor newExecutor(TransactionIsolationLevel level) {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) {
       throw new ExecutorException("ResultLoader could not load lazily.  Environment was not configured.");
@@ -96,7 +112,7 @@ public class ResultLoader {
       throw new ExecutorException("ResultLoader could not load lazily.  DataSource was not configured.");
     }
     final TransactionFactory transactionFactory = environment.getTransactionFactory();
-    final Transaction tx = transactionFactory.newTransaction(ds, null, false);
+    final Transaction tx = transactionFactory.newTransaction(ds, level, false);
     return configuration.newExecutor(tx, ExecutorType.SIMPLE);
   }
 
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,10 +15,16 @@
  */
 package org.apache.ibatis.executor.loader.javassist;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.Proxy;
@@ -46,6 +52,8 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
   private static final String FINALIZE_METHOD = "finalize";
   private static final String WRITE_REPLACE_METHOD = "writeReplace";
 
+  private final Map<ProxyClassKey, EnhancedClass> enhancedClasses = new ConcurrentHashMap<>();
+
   public JavassistProxyFactory() {
     try {
       Resources.classForName("javassist.util.proxy.ProxyFactory");
@@ -56,7 +64,22 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
 
   @Override
   public Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
-    return EnhancedResultObjectProxyImpl.createProxy(target, lazyLoader, configuration, objectFactory, constructorArgTypes, constructorArgs);
+    return createProxy(target, lazyLoader, null, configuration, objectFactory, constructorArgTypes, constructorArgs);
+  }
+
+  @Override
+  public Object createProxy(Object target, ResultLoaderMap lazyLoader, Set<String> lazyProperties, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    final Class<?> type = target.getClass();
+    ProxyClassKey key = new ProxyClassKey(type, constructorArgTypes, lazyProperties, configuration.isAggressiveLazyLoading(), configuration.getLazyLoadTriggerMethods());
+    EnhancedClass enhancedClass = enhancedClasses.get(key);
+    if (enhancedClass == null) {
+      // the lookup key shares the caller's collections, the stored one must not
+      enhancedClass = enhancedClasses.computeIfAbsent(key.copy(), EnhancedClass::new);
+    }
+    EnhancedResultObjectProxyImpl callback = new EnhancedResultObjectProxyImpl(type, enhancedClass, lazyLoader, objectFactory, constructorArgTypes, constructorArgs);
+    Object enhanced = enhancedClass.newInstance(callback, constructorArgs);
+    PropertyCopier.copyBeanProperties(type, target, enhanced);
+    return enhanced;
   }
 
   public Object createDeserializationProxy(Object target, Map<String, ResultLoaderMap.LoadPair> unloadedProperties, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
@@ -65,6 +88,21 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
 
   static Object crateProxy(Class<?> type, MethodHandler callback, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
 
+    ProxyFactory enhancer = newEnhancer(type);
+
+    Object enhanced;
+    Class<?>[] typesArray = constructorArgTypes.toArray(new Class[constructorArgTypes.size()]);
+    Object[] valuesArray = constructorArgs.toArray(new Object[constructorArgs.size()]);
+    try {
+      enhanced = enhancer.create(typesArray, valuesArray);
+    } catch (Exception e) {
+      throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+    }
+    ((Proxy) enhanced).setHandler(callback);
+    return enhanced;
+  }
+
+  private static ProxyFactory newEnhancer(Class<?> type) {
     ProxyFactory enhancer = new ProxyFactory();
     enhancer.setSuperclass(type);
 
@@ -79,53 +117,169 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
     } catch (SecurityException e) {
       // nothing to do here
     }
+    return enhancer;
+  }
 
-    Object enhanced;
-    Class<?>[] typesArray = constructorArgTypes.toArray(new Class[constructorArgTypes.size()]);
-    Object[] valuesArray = constructorArgs.toArray(new Object[constructorArgs.size()]);
-    try {
-      enhanced = enhancer.create(typesArray, valuesArray);
-    } catch (Exception e) {
-      throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+  private static final class ProxyClassKey {
+
+    private final Class<?> type;
+    private final List<Class<?>> constructorArgTypes;
+    private final Set<String> lazyProperties;
+    private final boolean aggressive;
+    private final Set<String> lazyLoadTriggerMethods;
+    private final int hashCode;
+
+    private ProxyClassKey(Class<?> type, List<Class<?>> constructorArgTypes, Set<String> lazyProperties, boolean aggressive, Set<String> lazyLoadTriggerMethods) {
+      this.type = type;
+      this.constructorArgTypes = constructorArgTypes;
+      this.lazyProperties = lazyProperties;
+      this.aggressive = aggressive;
+      this.lazyLoadTriggerMethods = lazyLoadTriggerMethods;
+      this.hashCode = Objects.hash(type, constructorArgTypes, lazyProperties, aggressive, lazyLoadTriggerMethods);
+    }
+
+    private ProxyClassKey copy() {
+      return new ProxyClassKey(type, new ArrayList<>(constructorArgTypes), lazyProperties == null ? null : new HashSet<>(lazyProperties),
+          aggressive, new HashSet<>(lazyLoadTriggerMethods));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ProxyClassKey)) {
+        return false;
+      }
+      ProxyClassKey other = (ProxyClassKey) o;
+      return type.equals(other.type) && aggressive == other.aggressive && constructorArgTypes.equals(other.constructorArgTypes)
+          && Objects.equals(lazyProperties, other.lazyProperties) && lazyLoadTriggerMethods.equals(other.lazyLoadTriggerMethods);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private enum LazyMethodType {
+    NONE, WRITE_REPLACE, LOAD_ALL, GETTER, SETTER
+  }
+
+  private static final class LazyMethod {
+
+    private static final LazyMethod NONE = new LazyMethod(LazyMethodType.NONE, null);
+    private static final LazyMethod WRITE_REPLACE = new LazyMethod(LazyMethodType.WRITE_REPLACE, null);
+    private static final LazyMethod LOAD_ALL = new LazyMethod(LazyMethodType.LOAD_ALL, null);
+
+    private final LazyMethodType type;
+    private final String property;
+
+    private LazyMethod(LazyMethodType type, String property) {
+      this.type = type;
+      this.property = property;
+    }
+  }
+
+  /**
+   * A proxy class generated once per bean type, constructor signature and set of lazy properties. Only the methods
+   * that can trigger or cancel a lazy load are overridden, all other methods are called on the bean directly.
+   */
+  private static final class EnhancedClass {
+
+    private final Set<String> lazyProperties;
+    private final boolean aggressive;
+    private final Set<String> lazyLoadTriggerMethods;
+    private final Map<Method, LazyMethod> lazyMethods = new ConcurrentHashMap<>();
+    private final Constructor<?> constructor;
+
+    private EnhancedClass(ProxyClassKey key) {
+      this.lazyProperties = toUpperCaseFirstProperties(key.lazyProperties);
+      this.aggressive = key.aggressive;
+      this.lazyLoadTriggerMethods = key.lazyLoadTriggerMethods;
+      ProxyFactory enhancer = newEnhancer(key.type);
+      enhancer.setFilter(method -> resolve(method).type != LazyMethodType.NONE);
+      try {
+        Class<?> proxyClass = enhancer.createClass();
+        this.constructor = proxyClass.getConstructor(key.constructorArgTypes.toArray(new Class[key.constructorArgTypes.size()]));
+      } catch (Exception e) {
+        throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+      }
+    }
+
+    private static Set<String> toUpperCaseFirstProperties(Set<String> properties) {
+      if (properties == null) {
+        return null;
+      }
+      Set<String> upperCaseFirstProperties = new HashSet<>();
+      for (String property : properties) {
+        int dot = property.indexOf('.');
+        upperCaseFirstProperties.add((dot < 0 ? property : property.substring(0, dot)).toUpperCase(Locale.ENGLISH));
+      }
+      return upperCaseFirstProperties;
+    }
+
+    private LazyMethod lazyMethod(Method method) {
+      return lazyMethods.computeIfAbsent(method, this::resolve);
+    }
+
+    private LazyMethod resolve(Method method) {
+      final String methodName = method.getName();
+      if (WRITE_REPLACE_METHOD.equals(methodName)) {
+        return LazyMethod.WRITE_REPLACE;
+      }
+      if (FINALIZE_METHOD.equals(methodName)) {
+        return LazyMethod.NONE;
+      }
+      if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
+        return LazyMethod.LOAD_ALL;
+      }
+      final boolean setter = PropertyNamer.isSetter(methodName);
+      if (setter || PropertyNamer.isGetter(methodName)) {
+        final String property = PropertyNamer.methodToProperty(methodName);
+        if (lazyProperties == null || lazyProperties.contains(property.toUpperCase(Locale.ENGLISH))) {
+          return new LazyMethod(setter ? LazyMethodType.SETTER : LazyMethodType.GETTER, property);
+        }
+      }
+      return LazyMethod.NONE;
+    }
+
+    private Object newInstance(MethodHandler callback, List<Object> constructorArgs) {
+      Object enhanced;
+      try {
+        enhanced = constructor.newInstance(constructorArgs.toArray());
+      } catch (Exception e) {
+        throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+      }
+      ((Proxy) enhanced).setHandler(callback);
+      return enhanced;
     }
-    ((Proxy) enhanced).setHandler(callback);
-    return enhanced;
   }
 
   private static class EnhancedResultObjectProxyImpl implements MethodHandler {
 
     private final Class<?> type;
+    private final EnhancedClass enhancedClass;
     private final ResultLoaderMap lazyLoader;
-    private final boolean aggressive;
-    private final Set<String> lazyLoadTriggerMethods;
     private final ObjectFactory objectFactory;
     private final List<Class<?>> constructorArgTypes;
     private final List<Object> constructorArgs;
 
-    private EnhancedResultObjectProxyImpl(Class<?> type, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    private EnhancedResultObjectProxyImpl(Class<?> type, EnhancedClass enhancedClass, ResultLoaderMap lazyLoader, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
       this.type = type;
+      this.enhancedClass = enhancedClass;
       this.lazyLoader = lazyLoader;
-      this.aggressive = configuration.isAggressiveLazyLoading();
-      this.lazyLoadTriggerMethods = configuration.getLazyLoadTriggerMethods();
       this.objectFactory = objectFactory;
       this.constructorArgTypes = constructorArgTypes;
       this.constructorArgs = constructorArgs;
     }
 
-    public static Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
-      final Class<?> type = target.getClass();
-      EnhancedResultObjectProxyImpl callback = new EnhancedResultObjectProxyImpl(type, lazyLoader, configuration, objectFactory, constructorArgTypes, constructorArgs);
-      Object enhanced = crateProxy(type, callback, constructorArgTypes, constructorArgs);
-      PropertyCopier.copyBeanProperties(type, target, enhanced);
-      return enhanced;
-    }
-
     @Override
     public Object invoke(Object enhanced, Method method, Method methodProxy, Object[] args) throws Throwable {
-      final String methodName = method.getName();
+      final LazyMethod lazyMethod = enhancedClass.lazyMethod(method);
       try {
         synchronized (lazyLoader) {
-          if (WRITE_REPLACE_METHOD.equals(methodName)) {
+          if (lazyMethod.type == LazyMethodType.WRITE_REPLACE) {
             Object original;
             if (constructorArgTypes.isEmpty()) {
               original = objectFactory.create(type);
@@ -138,19 +292,13 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
             } else {
               return original;
             }
-          } else {
-            if (lazyLoader.size() > 0 && !FINALIZE_METHOD.equals(methodName)) {
-              if (aggressive || lazyLoadTriggerMethods.contains(methodName)) {
-                lazyLoader.loadAll();
-              } else if (PropertyNamer.isSetter(methodName)) {
-                final String property = PropertyNamer.methodToProperty(methodName);
-                lazyLoader.remove(property);
-              } else if (PropertyNamer.isGetter(methodName)) {
-                final String property = PropertyNamer.methodToProperty(methodName);
-                if (lazyLoader.hasLoader(property)) {
-                  lazyLoader.load(property);
-                }
-              }
+          } else if (lazyLoader.size() > 0) {
+            if (lazyMethod.type == LazyMethodType.LOAD_ALL) {
+              lazyLoader.loadAll();
+            } else if (lazyMethod.type == LazyMethodType.SETTER) {
+              lazyLoader.remove(lazyMethod.property);
+            } else if (lazyMethod.type == LazyMethodType.GETTER) {
+              lazyLoader.load(lazyMethod.property);
             }
           }
         }
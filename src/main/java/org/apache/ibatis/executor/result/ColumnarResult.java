@@ -0,0 +1,525 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.resultset.ResultSetWrapper;
+import org.apache.ibatis.type.DoubleTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.LongTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * A result set read column by column into primitive arrays instead of one object per row.
+ * <p>
+ * {@code BIGINT} columns are kept in a {@code long[]}, {@code INTEGER}, {@code SMALLINT} and {@code TINYINT} columns in
+ * an {@code int[]}, {@code DOUBLE}, {@code FLOAT} and {@code REAL} columns in a {@code double[]}, and character columns
+ * as {@code int} codes into a dictionary of their distinct values. Any other column is kept as the objects returned by
+ * its type handler. Nulls are tracked in a bitmap per column, the primitive value of a null being {@code 0}.
+ * <p>
+ * A statement with a {@code resultType} of {@code ColumnarResult} returns a single instance holding all the rows of its
+ * result set. The arrays returned by the column accessors are the backing storage and must not be modified.
+ *
+ * @since 3.5.10
+ */
+public class ColumnarResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  public enum ColumnType {
+    LONG, INT, DOUBLE, STRING, OBJECT
+  }
+
+  private final List<String> columnNames;
+  private final Column[] columns;
+  private int rowCount;
+
+  private ColumnarResult(List<String> columnNames, Column[] columns) {
+    this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+    this.columns = columns;
+  }
+
+  /**
+   * Reads the remaining rows of a result set, up to a maximum number of rows.
+   *
+   * @param rsw
+   *          the result set to read
+   * @param maxRows
+   *          the maximum number of rows to read
+   * @return the columnar result
+   * @throws SQLException
+   *           if the result set could not be read
+   */
+  public static ColumnarResult read(ResultSetWrapper rsw, int maxRows) throws SQLException {
+    List<String> columnNames = rsw.getColumnNames();
+    List<JdbcType> jdbcTypes = rsw.getJdbcTypes();
+    Column[] columns = new Column[columnNames.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = newColumn(rsw, columnNames.get(i), jdbcTypes.get(i));
+    }
+    ColumnarResult result = new ColumnarResult(columnNames, columns);
+    ResultSet rs = rsw.getResultSet();
+    int capacity = INITIAL_CAPACITY;
+    while (result.rowCount < maxRows && rs.next()) {
+      if (result.rowCount == capacity) {
+        capacity += capacity >> 1;
+        for (Column column : columns) {
+          column.resize(capacity);
+        }
+      }
+      for (int i = 0; i < columns.length; i++) {
+        columns[i].read(rs, i + 1, result.rowCount);
+      }
+      result.rowCount++;
+    }
+    for (Column column : columns) {
+      column.resize(result.rowCount);
+      column.complete();
+    }
+    return result;
+  }
+
+  private static Column newColumn(ResultSetWrapper rsw, String columnName, JdbcType jdbcType) {
+    if (jdbcType != null) {
+      switch (jdbcType) {
+        case BIGINT:
+          return new LongColumn(rsw.getTypeHandler(Long.class, columnName));
+        case INTEGER:
+        case SMALLINT:
+        case TINYINT:
+          return new IntColumn(rsw.getTypeHandler(Integer.class, columnName));
+        case DOUBLE:
+        case FLOAT:
+        case REAL:
+          return new DoubleColumn(rsw.getTypeHandler(Double.class, columnName));
+        case CHAR:
+        case VARCHAR:
+        case LONGVARCHAR:
+        case NCHAR:
+        case NVARCHAR:
+        case LONGNVARCHAR:
+          return new StringColumn(rsw.getTypeHandler(String.class, columnName));
+        default:
+          break;
+      }
+    }
+    return new ObjectColumn(rsw.getTypeHandler(Object.class, columnName));
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  /**
+   * Returns the index of a column, matching its name regardless of case.
+   *
+   * @param columnName
+   *          the column name
+   * @return the zero based index of the column, or -1 if there is no such column
+   */
+  public int getColumnIndex(String columnName) {
+    int index = columnNames.indexOf(columnName);
+    if (index < 0) {
+      String upperCaseName = columnName.toUpperCase(Locale.ENGLISH);
+      for (int i = 0; i < columnNames.size(); i++) {
+        if (columnNames.get(i).toUpperCase(Locale.ENGLISH).equals(upperCaseName)) {
+          return i;
+        }
+      }
+    }
+    return index;
+  }
+
+  public ColumnType getColumnType(int column) {
+    return columns[column].getType();
+  }
+
+  public boolean isNull(int column, int row) {
+    checkRow(row);
+    return columns[column].nulls.get(row);
+  }
+
+  /**
+   * Returns the rows in which a column is null.
+   *
+   * @param column
+   *          the column index
+   * @return a copy of the null bitmap of the column
+   */
+  public BitSet getNulls(int column) {
+    return (BitSet) columns[column].nulls.clone();
+  }
+
+  public long[] getLongs(int column) {
+    return column(column, LongColumn.class).values;
+  }
+
+  public int[] getInts(int column) {
+    return column(column, IntColumn.class).values;
+  }
+
+  public double[] getDoubles(int column) {
+    return column(column, DoubleColumn.class).values;
+  }
+
+  /**
+   * Returns the dictionary codes of a character column, a null value having the code -1.
+   *
+   * @param column
+   *          the column index
+   * @return the code of each row, an index into {@link #getDictionary(int)}
+   */
+  public int[] getCodes(int column) {
+    return column(column, StringColumn.class).codes;
+  }
+
+  public List<String> getDictionary(int column) {
+    return Collections.unmodifiableList(column(column, StringColumn.class).dictionary);
+  }
+
+  public Object[] getObjects(int column) {
+    return column(column, ObjectColumn.class).values;
+  }
+
+  public long getLong(int column, int row) {
+    checkRow(row);
+    Column c = columns[column];
+    if (c instanceof IntColumn) {
+      return ((IntColumn) c).values[row];
+    }
+    return column(column, LongColumn.class).values[row];
+  }
+
+  public int getInt(int column, int row) {
+    checkRow(row);
+    return column(column, IntColumn.class).values[row];
+  }
+
+  public double getDouble(int column, int row) {
+    checkRow(row);
+    Column c = columns[column];
+    if (c instanceof LongColumn) {
+      return ((LongColumn) c).values[row];
+    } else if (c instanceof IntColumn) {
+      return ((IntColumn) c).values[row];
+    }
+    return column(column, DoubleColumn.class).values[row];
+  }
+
+  public String getString(int column, int row) {
+    checkRow(row);
+    StringColumn c = column(column, StringColumn.class);
+    int code = c.codes[row];
+    return code < 0 ? null : c.dictionary.get(code);
+  }
+
+  /**
+   * Returns the value of a column in a row, boxing primitive values.
+   *
+   * @param column
+   *          the column index
+   * @param row
+   *          the row index
+   * @return the value, or {@code null} if it is null
+   */
+  public Object getValue(int column, int row) {
+    checkRow(row);
+    Column c = columns[column];
+    return c.nulls.get(row) ? null : c.getValue(row);
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row: " + row + ", Row count: " + rowCount);
+    }
+  }
+
+  private <C extends Column> C column(int column, Class<C> type) {
+    Column c = columns[column];
+    if (!type.isInstance(c)) {
+      throw new ExecutorException("Column '" + columnNames.get(column) + "' is a " + c.getType() + " column.");
+    }
+    return type.cast(c);
+  }
+
+  private abstract static class Column implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    protected final BitSet nulls = new BitSet();
+    protected transient TypeHandler<?> typeHandler;
+
+    Column(TypeHandler<?> typeHandler) {
+      this.typeHandler = typeHandler;
+    }
+
+    abstract ColumnType getType();
+
+    abstract void read(ResultSet rs, int columnIndex, int row) throws SQLException;
+
+    abstract void resize(int capacity);
+
+    abstract Object getValue(int row);
+
+    void complete() {
+      typeHandler = null;
+    }
+  }
+
+  private static class LongColumn extends Column {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean direct;
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    LongColumn(TypeHandler<?> typeHandler) {
+      super(typeHandler);
+      this.direct = typeHandler.getClass() == LongTypeHandler.class;
+    }
+
+    @Override
+    ColumnType getType() {
+      return ColumnType.LONG;
+    }
+
+    @Override
+    void read(ResultSet rs, int columnIndex, int row) throws SQLException {
+      if (direct) {
+        values[row] = rs.getLong(columnIndex);
+        if (rs.wasNull()) {
+          nulls.set(row);
+        }
+      } else {
+        Number value = (Number) typeHandler.getResult(rs, columnIndex);
+        if (value == null) {
+          nulls.set(row);
+        } else {
+          values[row] = value.longValue();
+        }
+      }
+    }
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Object getValue(int row) {
+      return values[row];
+    }
+  }
+
+  private static class IntColumn extends Column {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean direct;
+    private int[] values = new int[INITIAL_CAPACITY];
+
+    IntColumn(TypeHandler<?> typeHandler) {
+      super(typeHandler);
+      this.direct = typeHandler.getClass() == IntegerTypeHandler.class;
+    }
+
+    @Override
+    ColumnType getType() {
+      return ColumnType.INT;
+    }
+
+    @Override
+    void read(ResultSet rs, int columnIndex, int row) throws SQLException {
+      if (direct) {
+        values[row] = rs.getInt(columnIndex);
+        if (rs.wasNull()) {
+          nulls.set(row);
+        }
+      } else {
+        Number value = (Number) typeHandler.getResult(rs, columnIndex);
+        if (value == null) {
+          nulls.set(row);
+        } else {
+          values[row] = value.intValue();
+        }
+      }
+    }
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Object getValue(int row) {
+      return values[row];
+    }
+  }
+
+  private static class DoubleColumn extends Column {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean direct;
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    DoubleColumn(TypeHandler<?> typeHandler) {
+      super(typeHandler);
+      this.direct = typeHandler.getClass() == DoubleTypeHandler.class;
+    }
+
+    @Override
+    ColumnType getType() {
+      return ColumnType.DOUBLE;
+    }
+
+    @Override
+    void read(ResultSet rs, int columnIndex, int row) throws SQLException {
+      if (direct) {
+        values[row] = rs.getDouble(columnIndex);
+        if (rs.wasNull()) {
+          nulls.set(row);
+        }
+      } else {
+        Number value = (Number) typeHandler.getResult(rs, columnIndex);
+        if (value == null) {
+          nulls.set(row);
+        } else {
+          values[row] = value.doubleValue();
+        }
+      }
+    }
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Object getValue(int row) {
+      return values[row];
+    }
+  }
+
+  private static class StringColumn extends Column {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean direct;
+    private final List<String> dictionary = new ArrayList<>();
+    private transient Map<String, Integer> codesByValue = new HashMap<>();
+    private int[] codes = new int[INITIAL_CAPACITY];
+
+    StringColumn(TypeHandler<?> typeHandler) {
+      super(typeHandler);
+      this.direct = typeHandler.getClass() == StringTypeHandler.class;
+    }
+
+    @Override
+    ColumnType getType() {
+      return ColumnType.STRING;
+    }
+
+    @Override
+    void read(ResultSet rs, int columnIndex, int row) throws SQLException {
+      Object value = direct ? rs.getString(columnIndex) : typeHandler.getResult(rs, columnIndex);
+      if (value == null) {
+        nulls.set(row);
+        codes[row] = -1;
+      } else {
+        String string = value.toString();
+        Integer code = codesByValue.get(string);
+        if (code == null) {
+          code = dictionary.size();
+          dictionary.add(string);
+          codesByValue.put(string, code);
+        }
+        codes[row] = code;
+      }
+    }
+
+    @Override
+    void resize(int capacity) {
+      codes = Arrays.copyOf(codes, capacity);
+    }
+
+    @Override
+    Object getValue(int row) {
+      return dictionary.get(codes[row]);
+    }
+
+    @Override
+    void complete() {
+      super.complete();
+      codesByValue = null;
+    }
+  }
+
+  private static class ObjectColumn extends Column {
+    private static final long serialVersionUID = 1L;
+
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    ObjectColumn(TypeHandler<?> typeHandler) {
+      super(typeHandler);
+    }
+
+    @Override
+    ColumnType getType() {
+      return ColumnType.OBJECT;
+    }
+
+    @Override
+    void read(ResultSet rs, int columnIndex, int row) throws SQLException {
+      Object value = typeHandler.getResult(rs, columnIndex);
+      if (value == null) {
+        nulls.set(row);
+      } else {
+        values[row] = value;
+      }
+    }
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Object getValue(int row) {
+      return values[row];
+    }
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -17,40 +17,108 @@ package org.apache.ibatis.executor.result;
 
 import java.util.Map;
 
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.reflection.ExceptionUtil;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyPath;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.util.LongKeyMap;
 
 /**
  * @author Clinton Begin
  */
 public class DefaultMapResultHandler<K, V> implements ResultHandler<V> {
 
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
   private final Map<K, V> mappedResults;
+  private final LongKeyMap<V> longKeyResults;
   private final String mapKey;
+  private final boolean simpleMapKey;
   private final ObjectFactory objectFactory;
   private final ObjectWrapperFactory objectWrapperFactory;
   private final ReflectorFactory reflectorFactory;
+  // the key getter of the type of the last value, results are nearly always of one type
+  private Class<?> keyOwnerType;
+  private Invoker keyGetter;
 
   @SuppressWarnings("unchecked")
   public DefaultMapResultHandler(String mapKey, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory, ReflectorFactory reflectorFactory) {
+    this(mapKey, objectFactory.create(Map.class), objectFactory, objectWrapperFactory, reflectorFactory);
+  }
+
+  /**
+   * Creates a handler that collects the results into the given map. When the map is a {@link LongKeyMap}, keys are
+   * stored without boxing and must be integral numbers.
+   *
+   * @param mapKey
+   *          the property to use as key
+   * @param mappedResults
+   *          the map to fill, e.g. one sized for the expected number of results
+   * @param objectFactory
+   *          the object factory
+   * @param objectWrapperFactory
+   *          the object wrapper factory
+   * @param reflectorFactory
+   *          the reflector factory
+   * @since 3.5.10
+   */
+  @SuppressWarnings("unchecked")
+  public DefaultMapResultHandler(String mapKey, Map<K, V> mappedResults, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory,
+      ReflectorFactory reflectorFactory) {
     this.objectFactory = objectFactory;
     this.objectWrapperFactory = objectWrapperFactory;
     this.reflectorFactory = reflectorFactory;
-    this.mappedResults = objectFactory.create(Map.class);
+    this.mappedResults = mappedResults;
+    this.longKeyResults = mappedResults instanceof LongKeyMap ? (LongKeyMap<V>) mappedResults : null;
     this.mapKey = mapKey;
+    PropertyPath path = PropertyPath.compile(mapKey);
+    this.simpleMapKey = path.isSimple() && path.getSegment(0).getIndex() == null;
   }
 
   @Override
   public void handleResult(ResultContext<? extends V> context) {
     final V value = context.getResultObject();
-    final MetaObject mo = MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
     // TODO is that assignment always true?
-    final K key = (K) mo.getValue(mapKey);
-    mappedResults.put(key, value);
+    final K key = (K) getKey(value);
+    if (longKeyResults == null) {
+      mappedResults.put(key, value);
+    } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+      longKeyResults.put(((Number) key).longValue(), value);
+    } else {
+      throw new ExecutorException("Map key property '" + mapKey + "' must be an integral number to be used as a long key, but was: " + key);
+    }
+  }
+
+  private Object getKey(V value) {
+    if (simpleMapKey && value != null && !(value instanceof Map) && !objectWrapperFactory.hasWrapperFor(value)) {
+      Class<?> type = value.getClass();
+      if (type != keyOwnerType) {
+        Reflector reflector = reflectorFactory.findForClass(type);
+        keyGetter = reflector.hasGetter(mapKey) ? reflector.getGetInvoker(mapKey) : null;
+        keyOwnerType = type;
+      }
+      if (keyGetter != null) {
+        try {
+          return keyGetter.invoke(value, NO_ARGUMENTS);
+        } catch (Throwable t) {
+          Throwable cause = ExceptionUtil.unwrapThrowable(t);
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          throw new ReflectionException("Could not get property '" + mapKey + "' from " + type + ".  Cause: " + cause.toString(), cause);
+        }
+      }
+    }
+    final MetaObject mo = MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
+    return mo.getValue(mapKey);
   }
 
   public Map<K, V> getMappedResults() {
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -38,6 +38,10 @@ public class DefaultResultHandler implements ResultHandler<Object> {
     list = objectFactory.create(List.class);
   }
 
+  protected DefaultResultHandler(List<Object> list) {
+    this.list = list;
+  }
+
   @Override
   public void handleResult(ResultContext<?> context) {
     list.add(context.getResultObject());
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.util.List;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.ResultLimitBehavior;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.ResultContext;
+
+/**
+ * A {@link DefaultResultHandler} that enforces a maximum number of rows held in memory.
+ *
+ * @since 3.5.10
+ */
+public class LimitedResultHandler extends DefaultResultHandler {
+
+  private static final int SPILL_PAGE_SIZE = 1000;
+
+  private final String statementId;
+  private final int maxResultRows;
+  private final boolean spill;
+
+  @SuppressWarnings("unchecked")
+  public LimitedResultHandler(ObjectFactory objectFactory, String statementId, int maxResultRows,
+      ResultLimitBehavior behavior) {
+    super(behavior == ResultLimitBehavior.SPILL
+        ? new SpillableResultList<>(maxResultRows, Math.max(1, Math.min(maxResultRows, SPILL_PAGE_SIZE)))
+        : objectFactory.create(List.class));
+    this.statementId = statementId;
+    this.maxResultRows = maxResultRows;
+    this.spill = behavior == ResultLimitBehavior.SPILL;
+  }
+
+  @Override
+  public void handleResult(ResultContext<?> context) {
+    if (!spill && getResultList().size() >= maxResultRows) {
+      throw new ExecutorException("The result of '" + statementId + "' exceeded the maximum of " + maxResultRows
+          + " rows. Narrow down the query, process the rows with a ResultHandler or a Cursor, "
+          + "or set resultLimitBehavior to SPILL.");
+    }
+    super.handleResult(context);
+  }
+
+}
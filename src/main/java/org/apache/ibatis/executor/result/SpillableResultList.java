@@ -0,0 +1,222 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A list that keeps up to a number of rows in memory and writes further rows, a page at a time, to a temporary file
+ * from which they are read back in on access.
+ * <p>
+ * Elements must be serializable. The list is read-only once it has been returned to the caller; {@link #close()}
+ * deletes the temporary file. As callers usually do not close the lists they receive, the file of a list that has
+ * been garbage collected is also deleted, the next time a list spills or is closed.
+ *
+ * @param <E>
+ *          the element type
+ * @since 3.5.10
+ */
+public class SpillableResultList<E> extends AbstractList<E> implements RandomAccess, Serializable, Closeable {
+
+  private static final long serialVersionUID = 1L;
+  private static final Log log = LogFactory.getLog(SpillableResultList.class);
+  private static final ReferenceQueue<SpillableResultList<?>> discardedLists = new ReferenceQueue<>();
+  // keeps the references reachable until their list has been collected
+  private static final Set<SpillFile> spillFiles = ConcurrentHashMap.newKeySet();
+
+  private final transient int maxInMemoryRows;
+  private final transient int pageSize;
+  private final transient List<Long> pageOffsets = new ArrayList<>();
+  private transient List<E> tail = new ArrayList<>();
+  private transient SpillFile spillFile;
+  private transient int size;
+  private transient int cachedPageIndex = -1;
+  private transient Object[] cachedPage;
+
+  public SpillableResultList(int maxInMemoryRows, int pageSize) {
+    this.maxInMemoryRows = maxInMemoryRows;
+    this.pageSize = pageSize;
+  }
+
+  @Override
+  public boolean add(E element) {
+    tail.add(element);
+    size++;
+    if (spillFile == null ? tail.size() > maxInMemoryRows : tail.size() >= pageSize) {
+      spill();
+    }
+    return true;
+  }
+
+  @Override
+  public E get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int spilledRows = pageOffsets.size() * pageSize;
+    if (index >= spilledRows) {
+      return tail.get(index - spilledRows);
+    }
+    return elementAt(readPage(index / pageSize), index % pageSize);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Whether some of the rows have been written to disk.
+   *
+   * @return true if rows have been spilled
+   */
+  public boolean isSpilled() {
+    return spillFile != null;
+  }
+
+  @Override
+  public void close() {
+    cachedPage = null;
+    cachedPageIndex = -1;
+    if (spillFile != null) {
+      spillFile.delete();
+    }
+    deleteDiscardedFiles();
+  }
+
+  private void spill() {
+    try {
+      if (spillFile == null) {
+        deleteDiscardedFiles();
+        spillFile = new SpillFile(this, File.createTempFile("mybatis-result-", ".spill"));
+      }
+      int offset = 0;
+      while (tail.size() - offset >= pageSize) {
+        writePage(tail.subList(offset, offset + pageSize));
+        offset += pageSize;
+      }
+      tail = new ArrayList<>(tail.subList(offset, tail.size()));
+    } catch (IOException e) {
+      throw new ExecutorException("Error spilling result rows to disk. Result objects must be serializable. Cause: " + e, e);
+    }
+  }
+
+  private void writePage(List<E> rows) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(rows.toArray());
+    }
+    RandomAccessFile spillData = spillFile.data;
+    long offset = spillData.length();
+    spillData.seek(offset);
+    spillData.writeInt(bytes.size());
+    spillData.write(bytes.toByteArray());
+    pageOffsets.add(offset);
+  }
+
+  private Object[] readPage(int pageIndex) {
+    if (pageIndex != cachedPageIndex) {
+      try {
+        RandomAccessFile spillData = spillFile.data;
+        spillData.seek(pageOffsets.get(pageIndex));
+        byte[] bytes = new byte[spillData.readInt()];
+        spillData.readFully(bytes);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+          cachedPage = (Object[]) in.readObject();
+        }
+        cachedPageIndex = pageIndex;
+      } catch (IOException | ClassNotFoundException e) {
+        throw new ExecutorException("Error reading spilled result rows from disk. Cause: " + e, e);
+      }
+    }
+    return cachedPage;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E elementAt(Object[] page, int index) {
+    return (E) page[index];
+  }
+
+  protected Object writeReplace() {
+    return new ArrayList<>(this);
+  }
+
+  private static void deleteDiscardedFiles() {
+    Reference<? extends SpillableResultList<?>> reference;
+    while ((reference = discardedLists.poll()) != null) {
+      ((SpillFile) reference).delete();
+    }
+  }
+
+  /**
+   * The temporary file of a list, which is deleted when the list is closed or garbage collected.
+   */
+  private static class SpillFile extends PhantomReference<SpillableResultList<?>> {
+
+    private final File file;
+    private final RandomAccessFile data;
+
+    SpillFile(SpillableResultList<?> list, File file) throws IOException {
+      super(list, discardedLists);
+      this.file = file;
+      try {
+        this.data = new RandomAccessFile(file, "rw");
+      } catch (IOException e) {
+        if (!file.delete()) {
+          log.debug("Could not delete the spill file " + file);
+        }
+        throw e;
+      }
+      spillFiles.add(this);
+    }
+
+    void delete() {
+      if (!spillFiles.remove(this)) {
+        return;
+      }
+      try {
+        data.close();
+      } catch (IOException e) {
+        // ignore
+      }
+      if (!file.delete()) {
+        log.warn("Could not delete the spill file " + file);
+      }
+    }
+  }
+
+}
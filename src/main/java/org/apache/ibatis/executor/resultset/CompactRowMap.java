@@ -0,0 +1,284 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The {@code Map} returned for a row of a {@code resultType="map"} statement. The keys of the columns of a result set
+ * are held once in a {@link Keys} index shared by all its rows, each row only storing its values in an array. Keys
+ * that are not in the index are kept in a separate map, so that the row can be modified like any other map.
+ * <p>
+ * A row is serialized as a {@link LinkedHashMap} with the same entries.
+ *
+ * @since 3.5.10
+ */
+final class CompactRowMap extends AbstractMap<String, Object> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Object ABSENT = new Object();
+
+  private final Keys keys;
+  private final Object[] values;
+  private Map<String, Object> overflow;
+  private int size;
+
+  CompactRowMap(Keys keys) {
+    this.keys = keys;
+    this.values = new Object[keys.names.length];
+    Arrays.fill(values, ABSENT);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    int position = keys.positionOf(key);
+    if (position >= 0) {
+      return values[position] != ABSENT;
+    }
+    return overflow != null && overflow.containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    int position = keys.positionOf(key);
+    if (position >= 0) {
+      Object value = values[position];
+      return value == ABSENT ? null : value;
+    }
+    return overflow == null ? null : overflow.get(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    int position = keys.positionOf(key);
+    if (position >= 0) {
+      Object previous = values[position];
+      values[position] = value;
+      if (previous == ABSENT) {
+        size++;
+        return null;
+      }
+      return previous;
+    }
+    if (overflow == null) {
+      overflow = new LinkedHashMap<>();
+    }
+    if (!overflow.containsKey(key)) {
+      size++;
+    }
+    return overflow.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    int position = keys.positionOf(key);
+    if (position >= 0) {
+      return removeAt(position);
+    }
+    if (overflow == null || !overflow.containsKey(key)) {
+      return null;
+    }
+    size--;
+    return overflow.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(values, ABSENT);
+    overflow = null;
+    size = 0;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new EntrySet();
+  }
+
+  private Object removeAt(int position) {
+    Object previous = values[position];
+    if (previous == ABSENT) {
+      return null;
+    }
+    values[position] = ABSENT;
+    size--;
+    return previous;
+  }
+
+  private Object writeReplace() {
+    return new LinkedHashMap<>(this);
+  }
+
+  /**
+   * The keys of the rows of a result set and their positions.
+   */
+  static final class Keys {
+
+    private final String[] names;
+    private final Map<String, Integer> positions;
+
+    Keys(List<String> names) {
+      this.names = names.toArray(new String[0]);
+      this.positions = new HashMap<>();
+      for (int i = 0; i < this.names.length; i++) {
+        positions.putIfAbsent(this.names[i], i);
+      }
+    }
+
+    int positionOf(Object key) {
+      Integer position = positions.get(key);
+      return position == null ? -1 : position;
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public void clear() {
+      CompactRowMap.this.clear();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+    private int next = advance(0);
+    private int current = -1;
+    private Iterator<Entry<String, Object>> overflowIterator;
+
+    private int advance(int position) {
+      while (position < values.length && values[position] == ABSENT) {
+        position++;
+      }
+      return position;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next < values.length) {
+        return true;
+      }
+      if (overflowIterator == null && overflow != null) {
+        overflowIterator = overflow.entrySet().iterator();
+      }
+      return overflowIterator != null && overflowIterator.hasNext();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (next < values.length) {
+        current = next;
+        next = advance(next + 1);
+        return new IndexedEntry(current);
+      }
+      current = -1;
+      return overflowIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (current >= 0) {
+        if (values[current] == ABSENT) {
+          throw new IllegalStateException();
+        }
+        removeAt(current);
+      } else if (overflowIterator != null) {
+        overflowIterator.remove();
+        size--;
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+  }
+
+  private class IndexedEntry implements Entry<String, Object> {
+
+    private final int position;
+
+    IndexedEntry(int position) {
+      this.position = position;
+    }
+
+    @Override
+    public String getKey() {
+      return keys.names[position];
+    }
+
+    @Override
+    public Object getValue() {
+      Object value = values[position];
+      return value == ABSENT ? null : value;
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      Object previous = getValue();
+      if (values[position] == ABSENT) {
+        size++;
+      }
+      values[position] = value;
+      return previous;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> other = (Entry<?, ?>) o;
+      return getKey().equals(other.getKey()) && (getValue() == null ? other.getValue() == null : getValue().equals(other.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      Object value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -39,19 +39,24 @@ import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.result.ColumnarResult;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
+import org.apache.ibatis.executor.result.LimitedResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultLimitBehavior;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
@@ -95,10 +100,28 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   // Cached Automappings
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
+  private final Map<String, CompactRowMap.Keys> compactRowKeysCache = new HashMap<>();
 
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
 
+  // rows read from all the result sets, reported to the executor
+  private int rowsRead;
+  // top level result objects, including the ones passed to a result handler, reported to the executor
+  private int rowsMapped;
+
+  private static class PendingNestedQuery {
+    private final MappedStatement nestedQuery;
+    private final CacheKey key;
+    private final ResultLoader resultLoader;
+
+    private PendingNestedQuery(MappedStatement nestedQuery, CacheKey key, ResultLoader resultLoader) {
+      this.nestedQuery = nestedQuery;
+      this.key = key;
+      this.resultLoader = resultLoader;
+    }
+  }
+
   private static class PendingRelation {
     public MetaObject metaObject;
     public ResultMapping propertyMapping;
@@ -213,6 +236,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
 
+    if (executor != null) {
+      executor.recordRowsRead(rowsRead);
+      executor.recordRowsMapped(rowsMapped);
+    }
     return collapseSingleResultList(multipleResults);
   }
 
@@ -283,6 +310,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    compactRowKeysCache.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -296,9 +324,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     try {
       if (parentMapping != null) {
         handleRowValues(rsw, resultMap, null, RowBounds.DEFAULT, parentMapping);
+      } else if (resultMap.getType() == ColumnarResult.class) {
+        handleColumnarResult(rsw, multipleResults);
       } else {
         if (resultHandler == null) {
-          DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
+          DefaultResultHandler defaultResultHandler = newDefaultResultHandler(resultMap);
           handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
           multipleResults.add(defaultResultHandler.getResultList());
         } else {
@@ -311,6 +341,48 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  private void handleColumnarResult(ResultSetWrapper rsw, List<Object> multipleResults) throws SQLException {
+    skipRows(rsw.getResultSet(), rowBounds);
+    // the columns are held in memory even with a result handler, so the limit always applies and cannot spill
+    Integer maxResultRows = resolveMaxResultRows();
+    boolean limited = maxResultRows != null && maxResultRows < rowBounds.getLimit();
+    ColumnarResult columnarResult = ColumnarResult.read(rsw, limited ? maxResultRows + 1 : rowBounds.getLimit());
+    rowsRead += columnarResult.getRowCount();
+    rowsMapped += columnarResult.getRowCount();
+    if (limited && columnarResult.getRowCount() > maxResultRows) {
+      throw new ExecutorException("The result of '" + mappedStatement.getId() + "' exceeded the maximum of "
+          + maxResultRows + " rows. Narrow down the query or read it in pages with RowBounds.");
+    }
+    if (resultHandler == null) {
+      List<Object> resultList = new ArrayList<>(1);
+      resultList.add(columnarResult);
+      multipleResults.add(resultList);
+    } else {
+      callResultHandler(resultHandler, new DefaultResultContext<>(), columnarResult);
+    }
+  }
+
+  private DefaultResultHandler newDefaultResultHandler(ResultMap resultMap) {
+    Integer maxResultRows = resolveMaxResultRows();
+    if (maxResultRows == null) {
+      return new DefaultResultHandler(objectFactory);
+    }
+    ResultLimitBehavior behavior = mappedStatement.getResultLimitBehavior();
+    if (behavior == null) {
+      behavior = configuration.getResultLimitBehavior();
+    }
+    if (behavior == ResultLimitBehavior.SPILL && resultMap.hasNestedResultMaps() && !isResultOrdered()) {
+      // rows of unordered nested result maps are still filled in after they have been added
+      behavior = ResultLimitBehavior.FAIL;
+    }
+    return new LimitedResultHandler(objectFactory, mappedStatement.getId(), maxResultRows, behavior);
+  }
+
+  private Integer resolveMaxResultRows() {
+    Integer maxResultRows = mappedStatement.getMaxResultRows();
+    return maxResultRows == null ? configuration.getMaxResultRows() : maxResultRows;
+  }
+
   @SuppressWarnings("unchecked")
   private List<Object> collapseSingleResultList(List<Object> multipleResults) {
     return multipleResults.size() == 1 ? (List<Object>) multipleResults.get(0) : multipleResults;
@@ -338,7 +410,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   protected void checkResultHandler() {
-    if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !mappedStatement.isResultOrdered()) {
+    if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !isResultOrdered()) {
       throw new ExecutorException("Mapped Statements with nested result mappings cannot be safely used with a custom ResultHandler. "
           + "Use safeResultHandlerEnabled=false setting to bypass this check "
           + "or ensure your statement returns ordered data and set resultOrdered=true on it.");
@@ -351,6 +423,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+      rowsRead++;
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
@@ -361,6 +434,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     if (parentMapping != null) {
       linkToParents(rs, parentMapping, rowValue);
     } else {
+      rowsMapped++;
       callResultHandler(resultHandler, resultContext, rowValue);
     }
   }
@@ -469,6 +543,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
     boolean foundValues = false;
     final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
+    ParallelNestedQueryLoader nestedQueries = null;
     for (ResultMapping propertyMapping : propertyMappings) {
       String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
       if (propertyMapping.getNestedResultMapId() != null) {
@@ -486,19 +561,33 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         } else if (value == DEFERRED) {
           foundValues = true;
           continue;
+        } else if (value instanceof PendingNestedQuery) {
+          if (nestedQueries == null) {
+            nestedQueries = new ParallelNestedQueryLoader();
+          }
+          PendingNestedQuery pending = (PendingNestedQuery) value;
+          nestedQueries.addLoader(property, pending.nestedQuery, pending.key, pending.resultLoader);
+          continue;
         }
-        if (value != null) {
-          foundValues = true;
-        }
-        if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
-          // gcode issue #377, call setter on nulls (value is not 'found')
-          metaObject.setValue(property, value);
-        }
+        foundValues = applyPropertyValue(metaObject, property, value) || foundValues;
+      }
+    }
+    if (nestedQueries != null) {
+      for (Map.Entry<String, Object> entry : nestedQueries.loadAll(configuration, executor).entrySet()) {
+        foundValues = applyPropertyValue(metaObject, entry.getKey(), entry.getValue()) || foundValues;
       }
     }
     return foundValues;
   }
 
+  private boolean applyPropertyValue(MetaObject metaObject, String property, Object value) {
+    if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
+      // gcode issue #377, call setter on nulls (value is not 'found')
+      metaObject.setValue(property, value);
+    }
+    return value != null;
+  }
+
   private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
     if (propertyMapping.getNestedQueryId() != null) {
@@ -630,13 +719,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final List<Object> constructorArgs = new ArrayList<>();
     Object resultObject = createResultObject(rsw, resultMap, constructorArgTypes, constructorArgs, columnPrefix);
     if (resultObject != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
-      final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
-      for (ResultMapping propertyMapping : propertyMappings) {
-        // issue gcode #109 && issue #149
-        if (propertyMapping.getNestedQueryId() != null && propertyMapping.isLazy()) {
-          resultObject = configuration.getProxyFactory().createProxy(resultObject, lazyLoader, configuration, objectFactory, constructorArgTypes, constructorArgs);
-          break;
-        }
+      // issue gcode #109 && issue #149
+      if (!resultMap.getLazyProperties().isEmpty()) {
+        resultObject = configuration.getProxyFactory().createProxy(resultObject, lazyLoader, resultMap.getLazyProperties(), configuration, objectFactory, constructorArgTypes, constructorArgs);
       }
     }
     this.useConstructorMappings = resultObject != null && !constructorArgTypes.isEmpty(); // set current mapping result
@@ -652,6 +737,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       return createPrimitiveResultObject(rsw, resultMap, columnPrefix);
     } else if (!constructorMappings.isEmpty()) {
       return createParameterizedResultObject(rsw, resultType, constructorMappings, constructorArgTypes, constructorArgs, columnPrefix);
+    } else if (resultType == Map.class && configuration.isCompactMapResultsEnabled()
+        && objectFactory.getClass() == DefaultObjectFactory.class) {
+      return new CompactRowMap(getCompactRowKeys(rsw, resultMap, columnPrefix));
     } else if (resultType.isInterface() || metaType.hasDefaultConstructor()) {
       return objectFactory.create(resultType);
     } else if (shouldApplyAutomaticMappings(resultMap, false)) {
@@ -660,6 +748,29 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     throw new ExecutorException("Do not know how to create an instance of " + resultType);
   }
 
+  private CompactRowMap.Keys getCompactRowKeys(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    final String mapKey = resultMap.getId() + ":" + columnPrefix;
+    CompactRowMap.Keys keys = compactRowKeysCache.get(mapKey);
+    if (keys == null) {
+      final List<String> names = new ArrayList<>();
+      for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+        if (propertyMapping.getProperty() != null) {
+          names.add(propertyMapping.getProperty());
+        }
+      }
+      for (String columnName : rsw.getUnmappedColumnNames(resultMap, columnPrefix)) {
+        if (columnPrefix == null || columnPrefix.isEmpty()) {
+          names.add(columnName);
+        } else if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
+          names.add(columnName.substring(columnPrefix.length()));
+        }
+      }
+      keys = new CompactRowMap.Keys(names);
+      compactRowKeysCache.put(mapKey, keys);
+    }
+    return keys;
+  }
+
   Object createParameterizedResultObject(ResultSetWrapper rsw, Class<?> resultType, List<ResultMapping> constructorMappings,
                                          List<Class<?>> constructorArgTypes, List<Object> constructorArgs, String columnPrefix) {
     boolean foundValues = false;
@@ -796,6 +907,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
+        } else if (configuration.isParallelNestedQueriesEnabled() && !ParallelNestedQueryLoader.isWorkerThread()) {
+          value = new PendingNestedQuery(nestedQuery, key, resultLoader);
         } else {
           value = resultLoader.loadResult();
         }
@@ -892,16 +1005,35 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void handleRowValuesForNestedResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
     final DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
+    boolean resultOrdered = isResultOrdered();
+    // objects already released by their row keys, to merge the rows of an object that come back after all
+    final Map<CacheKey, Object> releasedRowValues = resultOrdered && !mappedStatement.isResultOrdered() ? new HashMap<>() : null;
+    CacheKey previousRowKey = null;
+    int maxNestedResultObjects = 0;
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+      rowsRead++;
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
+      if (resultOrdered && partialObject == null && releasedRowValues != null && releasedRowValues.containsKey(rowKey)) {
+        // the rows are not ordered after all, keep every object from now on
+        resultOrdered = false;
+        if (rowValue != null) {
+          storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
+        }
+        partialObject = releasedRowValues.get(rowKey);
+        nestedResultObjects.put(rowKey, partialObject);
+        releasedRowValues.clear();
+      }
       // issue #577 && #542
-      if (mappedStatement.isResultOrdered()) {
+      if (resultOrdered) {
         if (partialObject == null && rowValue != null) {
+          if (releasedRowValues != null && previousRowKey != null && previousRowKey != CacheKey.NULL_CACHE_KEY) {
+            releasedRowValues.put(previousRowKey, rowValue);
+          }
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
@@ -912,13 +1044,23 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
       }
+      previousRowKey = rowKey;
+      maxNestedResultObjects = Math.max(maxNestedResultObjects, nestedResultObjects.size());
     }
-    if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+    if (rowValue != null && resultOrdered && shouldProcessMoreRows(resultContext, rowBounds)) {
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
       previousRowValue = null;
     } else if (rowValue != null) {
       previousRowValue = rowValue;
     }
+    Log statementLog = mappedStatement.getStatementLog();
+    if (statementLog != null && statementLog.isDebugEnabled()) {
+      statementLog.debug("<==  Nested objects: " + maxNestedResultObjects + " held at most for " + resultContext.getResultCount() + " results");
+    }
+  }
+
+  private boolean isResultOrdered() {
+    return mappedStatement.isResultOrdered() || configuration.isAutoResultOrdered();
   }
 
   //
@@ -0,0 +1,239 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+
+/**
+ * Collects the eager nested selects of a row and runs them at the same time. The first one runs on the calling thread
+ * in the session's transaction, the others run on a thread pool, each in a new transaction with the isolation level of
+ * the session. The rows loaded by the pool are added to the session's local cache, so the same nested select of a
+ * later row is a cache hit.
+ * <p>
+ * Only selects without nested selects of their own run on the pool, so the session's in-progress placeholders keep
+ * resolving circular references. The pool connections are limited per data source: half of the maximum active
+ * connections of a {@link PooledDataSource}, one per processor for other data sources. A select that finds no free
+ * connection runs on the calling thread.
+ *
+ * @since 3.5.10
+ */
+class ParallelNestedQueryLoader {
+
+  private static final ThreadLocal<Boolean> WORKER = new ThreadLocal<>();
+  private static final Map<DataSource, Semaphore> CONNECTION_PERMITS = new WeakHashMap<>();
+
+  private final List<NestedQuery> nestedQueries = new ArrayList<>();
+
+  static boolean isWorkerThread() {
+    return WORKER.get() != null;
+  }
+
+  void addLoader(String property, MappedStatement mappedStatement, CacheKey key, ResultLoader resultLoader) {
+    nestedQueries.add(new NestedQuery(property, mappedStatement, key, resultLoader));
+  }
+
+  /**
+   * Runs the collected selects and waits for all of them.
+   *
+   * @return the loaded values by property, in the order they were added
+   */
+  Map<String, Object> loadAll(Configuration configuration, Executor executor) throws SQLException {
+    Set<CacheKey> submittedKeys = submit(configuration, executor);
+    Throwable failure = null;
+    // keys submitted to the pool are loaded from the local cache once the pool is done
+    for (NestedQuery nestedQuery : nestedQueries) {
+      if (failure == null && !submittedKeys.contains(nestedQuery.key)) {
+        failure = load(nestedQuery);
+      }
+    }
+    // wait for every select, so none is still running on the pool when this row fails
+    for (NestedQuery nestedQuery : nestedQueries) {
+      if (nestedQuery.future == null) {
+        continue;
+      }
+      try {
+        List<Object> list = nestedQuery.future.get();
+        if (failure == null) {
+          executor.cacheResult(nestedQuery.mappedStatement, nestedQuery.key, list);
+        }
+      } catch (ExecutionException e) {
+        failure = failure == null ? e.getCause() : failure;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = failure == null ? e : failure;
+      }
+    }
+    for (NestedQuery nestedQuery : nestedQueries) {
+      if (failure == null && submittedKeys.contains(nestedQuery.key)) {
+        failure = load(nestedQuery);
+      }
+    }
+    if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new ExecutorException("Error loading nested queries.  Cause: " + failure, failure);
+    }
+    Map<String, Object> values = new LinkedHashMap<>();
+    for (NestedQuery nestedQuery : nestedQueries) {
+      values.put(nestedQuery.property, nestedQuery.value);
+    }
+    return values;
+  }
+
+  private Set<CacheKey> submit(Configuration configuration, Executor executor) throws SQLException {
+    Set<CacheKey> submittedKeys = new HashSet<>();
+    Environment environment = configuration.getEnvironment();
+    if (nestedQueries.size() < 2 || environment == null || environment.getDataSource() == null) {
+      return submittedKeys;
+    }
+    Semaphore permits = connectionPermits(environment.getDataSource());
+    TransactionIsolationLevel level = isolationLevelOf(executor);
+    ExecutorService pool = configuration.getNestedQueryExecutorService();
+    if (pool == null) {
+      pool = SharedPoolHolder.POOL;
+    }
+    for (NestedQuery nestedQuery : nestedQueries.subList(1, nestedQueries.size())) {
+      if (!canRunOnPool(nestedQuery.mappedStatement) || submittedKeys.contains(nestedQuery.key)
+          || nestedQuery.key.equals(nestedQueries.get(0).key) || !permits.tryAcquire()) {
+        continue;
+      }
+      ResultLoader resultLoader = nestedQuery.resultLoader;
+      try {
+        nestedQuery.future = pool.submit(() -> {
+          WORKER.set(Boolean.TRUE);
+          try {
+            return resultLoader.selectListInNewTransaction(level);
+          } finally {
+            WORKER.remove();
+            ErrorContext.instance().reset();
+            permits.release();
+          }
+        });
+        submittedKeys.add(nestedQuery.key);
+      } catch (RejectedExecutionException e) {
+        permits.release();
+      }
+    }
+    return submittedKeys;
+  }
+
+  private static Throwable load(NestedQuery nestedQuery) {
+    try {
+      nestedQuery.value = nestedQuery.resultLoader.loadResult();
+      return null;
+    } catch (SQLException | RuntimeException e) {
+      return e;
+    }
+  }
+
+  private static boolean canRunOnPool(MappedStatement mappedStatement) {
+    if (mappedStatement.getStatementType() == StatementType.CALLABLE) {
+      return false;
+    }
+    for (ResultMap resultMap : mappedStatement.getResultMaps()) {
+      if (resultMap.hasNestedQueries()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static int maxPoolConnections(DataSource dataSource) {
+    if (dataSource instanceof PooledDataSource) {
+      return ((PooledDataSource) dataSource).getPoolMaximumActiveConnections() / 2;
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private static Semaphore connectionPermits(DataSource dataSource) {
+    synchronized (CONNECTION_PERMITS) {
+      return CONNECTION_PERMITS.computeIfAbsent(dataSource, ds -> new Semaphore(maxPoolConnections(ds)));
+    }
+  }
+
+  private static TransactionIsolationLevel isolationLevelOf(Executor executor) throws SQLException {
+    int isolation = executor.getTransaction().getConnection().getTransactionIsolation();
+    if (isolation == Connection.TRANSACTION_NONE) {
+      return null;
+    }
+    for (TransactionIsolationLevel level : TransactionIsolationLevel.values()) {
+      if (level.getLevel() == isolation) {
+        return level;
+      }
+    }
+    return null;
+  }
+
+  private static class NestedQuery {
+    private final String property;
+    private final MappedStatement mappedStatement;
+    private final CacheKey key;
+    private final ResultLoader resultLoader;
+    private Future<List<Object>> future;
+    private Object value;
+
+    private NestedQuery(String property, MappedStatement mappedStatement, CacheKey key, ResultLoader resultLoader) {
+      this.property = property;
+      this.mappedStatement = mappedStatement;
+      this.key = key;
+      this.resultLoader = resultLoader;
+    }
+  }
+
+  private static class SharedPoolHolder {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-nested-query-" + THREAD_COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+}
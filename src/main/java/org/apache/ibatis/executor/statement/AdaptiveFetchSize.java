@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * Learns how many rows each select typically returns and derives a fetch size from it, so that small lookups fetch
+ * few rows and larger queries complete in as few round trips as memory allows.
+ * <p>
+ * The row count estimate is an exponentially weighted moving average of the rows returned by the recent executions.
+ * The fetch size is the estimate plus one, so that the driver can see the end of the results in the same round trip,
+ * capped at {@link #MAX_FETCH_SIZE}.
+ *
+ * @since 3.5.10
+ */
+public class AdaptiveFetchSize {
+
+  public static final int MAX_FETCH_SIZE = 1000;
+
+  private static final double WEIGHT = 0.2;
+
+  private final ConcurrentMap<String, RowCountEstimate> estimates = new ConcurrentHashMap<>();
+
+  /**
+   * Records the number of rows returned by an execution of a select.
+   *
+   * @param ms
+   *          the mapped statement
+   * @param rows
+   *          the number of rows
+   */
+  public void record(MappedStatement ms, int rows) {
+    MapUtil.computeIfAbsent(estimates, ms.getId(), k -> new RowCountEstimate()).update(rows);
+  }
+
+  /**
+   * Gets the fetch size learned for a statement.
+   *
+   * @param ms
+   *          the mapped statement
+   * @return the fetch size, or {@code null} if no execution has been recorded yet
+   */
+  public Integer getFetchSize(MappedStatement ms) {
+    RowCountEstimate estimate = estimates.get(ms.getId());
+    if (estimate == null || !estimate.sampled) {
+      return null;
+    }
+    return (int) Math.min(MAX_FETCH_SIZE, Math.ceil(estimate.rows) + 1);
+  }
+
+  private static class RowCountEstimate {
+    // concurrent updates may lose a sample, which does not matter for an estimate
+    private volatile double rows;
+    private volatile boolean sampled;
+
+    void update(int count) {
+      if (sampled) {
+        rows += (count - rows) * WEIGHT;
+      } else {
+        rows = count;
+        sampled = true;
+      }
+    }
+  }
+
+}
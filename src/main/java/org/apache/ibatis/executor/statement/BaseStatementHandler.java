@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -27,6 +27,8 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.metrics.ExecutionPhase;
+import org.apache.ibatis.metrics.ExecutionTrace;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
@@ -61,7 +63,9 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
     if (boundSql == null) { // issue #435, get the key before calculating the statement
       generateKeys(parameterObject);
+      long mark = ExecutionTrace.mark();
       boundSql = mappedStatement.getBoundSql(parameterObject);
+      ExecutionTrace.record(ExecutionPhase.BOUND_SQL, mark);
     }
 
     this.boundSql = boundSql;
@@ -83,11 +87,13 @@ public abstract class BaseStatementHandler implements StatementHandler {
   @Override
   public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
     ErrorContext.instance().sql(boundSql.getSql());
+    long mark = ExecutionTrace.mark();
     Statement statement = null;
     try {
       statement = instantiateStatement(connection);
       setStatementTimeout(statement, transactionTimeout);
       setFetchSize(statement);
+      ExecutionTrace.record(ExecutionPhase.PREPARE, mark);
       return statement;
     } catch (SQLException e) {
       closeStatement(statement);
@@ -115,10 +121,21 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
   protected void setFetchSize(Statement stmt) throws SQLException {
     Integer fetchSize = mappedStatement.getFetchSize();
+    if (mappedStatement.isStreaming()) {
+      ResultSetStreaming.apply(stmt, configuration, fetchSize);
+      return;
+    }
     if (fetchSize != null) {
       stmt.setFetchSize(fetchSize);
       return;
     }
+    if (configuration.isAdaptiveFetchSizeEnabled()) {
+      Integer adaptiveFetchSize = configuration.getAdaptiveFetchSize().getFetchSize(mappedStatement);
+      if (adaptiveFetchSize != null) {
+        stmt.setFetchSize(adaptiveFetchSize);
+        return;
+      }
+    }
     Integer defaultFetchSize = configuration.getDefaultFetchSize();
     if (defaultFetchSize != null) {
       stmt.setFetchSize(defaultFetchSize);
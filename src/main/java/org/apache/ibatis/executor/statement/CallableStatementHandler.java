@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -31,6 +31,8 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.metrics.ExecutionPhase;
+import org.apache.ibatis.metrics.ExecutionTrace;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.JdbcType;
@@ -47,7 +49,9 @@ public class CallableStatementHandler extends BaseStatementHandler {
   @Override
   public int update(Statement statement) throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
+    long mark = ExecutionTrace.mark();
     cs.execute();
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
     int rows = cs.getUpdateCount();
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
@@ -65,16 +69,22 @@ public class CallableStatementHandler extends BaseStatementHandler {
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
+    long mark = ExecutionTrace.mark();
     cs.execute();
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
+    mark = ExecutionTrace.mark();
     List<E> resultList = resultSetHandler.handleResultSets(cs);
     resultSetHandler.handleOutputParameters(cs);
+    ExecutionTrace.record(ExecutionPhase.RESULT_MAPPING, mark);
     return resultList;
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
+    long mark = ExecutionTrace.mark();
     cs.execute();
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
     Cursor<E> resultList = resultSetHandler.handleCursorResultSets(cs);
     resultSetHandler.handleOutputParameters(cs);
     return resultList;
@@ -92,8 +102,10 @@ public class CallableStatementHandler extends BaseStatementHandler {
 
   @Override
   public void parameterize(Statement statement) throws SQLException {
+    long mark = ExecutionTrace.mark();
     registerOutputParameters((CallableStatement) statement);
     parameterHandler.setParameters((CallableStatement) statement);
+    ExecutionTrace.record(ExecutionPhase.PARAMETERIZE, mark);
   }
 
   private void registerOutputParameters(CallableStatement cs) throws SQLException {
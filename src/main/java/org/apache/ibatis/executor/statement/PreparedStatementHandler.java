@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -29,6 +29,8 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.metrics.ExecutionPhase;
+import org.apache.ibatis.metrics.ExecutionTrace;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
@@ -44,7 +46,9 @@ public class PreparedStatementHandler extends BaseStatementHandler {
   @Override
   public int update(Statement statement) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
+    long mark = ExecutionTrace.mark();
     ps.execute();
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
     int rows = ps.getUpdateCount();
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
@@ -61,14 +65,21 @@ public class PreparedStatementHandler extends BaseStatementHandler {
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
+    long mark = ExecutionTrace.mark();
     ps.execute();
-    return resultSetHandler.handleResultSets(ps);
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
+    mark = ExecutionTrace.mark();
+    List<E> resultList = resultSetHandler.handleResultSets(ps);
+    ExecutionTrace.record(ExecutionPhase.RESULT_MAPPING, mark);
+    return resultList;
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
+    long mark = ExecutionTrace.mark();
     ps.execute();
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
     return resultSetHandler.handleCursorResultSets(ps);
   }
 
@@ -91,7 +102,9 @@ public class PreparedStatementHandler extends BaseStatementHandler {
 
   @Override
   public void parameterize(Statement statement) throws SQLException {
+    long mark = ExecutionTrace.mark();
     parameterHandler.setParameters((PreparedStatement) statement);
+    ExecutionTrace.record(ExecutionPhase.PARAMETERIZE, mark);
   }
 
 }
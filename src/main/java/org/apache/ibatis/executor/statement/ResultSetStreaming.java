@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Applies the settings that make a JDBC driver stream the results of a statement instead of reading them all in
+ * memory. The database vendor is taken from the database id of the configuration, or from the connection metadata
+ * when no database id is set.
+ *
+ * @since 3.5.10
+ */
+final class ResultSetStreaming {
+
+  static final int DEFAULT_FETCH_SIZE = 1000;
+
+  private static final Log log = LogFactory.getLog(ResultSetStreaming.class);
+
+  private ResultSetStreaming() {
+    // NOP
+  }
+
+  /**
+   * Applies the streaming settings of the database vendor.
+   *
+   * @param statement
+   *          the statement
+   * @param configuration
+   *          the configuration
+   * @param fetchSize
+   *          the fetch size of the mapped statement, or {@code null} to use the vendor streaming fetch size
+   * @throws SQLException
+   *           if the settings could not be applied
+   */
+  static void apply(Statement statement, Configuration configuration, Integer fetchSize) throws SQLException {
+    String vendor = vendorOf(statement, configuration);
+    if (vendor.contains("mysql")) {
+      // Connector/J streams row by row with this value, or fetches with a cursor when useCursorFetch is set
+      statement.setFetchSize(fetchSize != null ? fetchSize : Integer.MIN_VALUE);
+      return;
+    }
+    if (vendor.contains("postgres") && statement.getConnection().getAutoCommit()) {
+      // the PostgreSQL driver ignores the fetch size in auto-commit mode, which is left to the transaction
+      if (log.isDebugEnabled()) {
+        log.debug("The results of the statement are not streamed because the session is in auto-commit mode.");
+      }
+      return;
+    }
+    if (fetchSize == null) {
+      fetchSize = configuration.getDefaultFetchSize() != null ? configuration.getDefaultFetchSize() : DEFAULT_FETCH_SIZE;
+    }
+    statement.setFetchSize(fetchSize);
+  }
+
+  private static String vendorOf(Statement statement, Configuration configuration) throws SQLException {
+    String vendor = configuration.getDatabaseId();
+    if (vendor == null) {
+      vendor = statement.getConnection().getMetaData().getDatabaseProductName();
+    }
+    return vendor == null ? "" : vendor.toLowerCase(Locale.ENGLISH);
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -29,6 +29,8 @@ import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.metrics.ExecutionPhase;
+import org.apache.ibatis.metrics.ExecutionTrace;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
@@ -47,16 +49,20 @@ public class SimpleStatementHandler extends BaseStatementHandler {
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
     int rows;
+    long mark = ExecutionTrace.mark();
     if (keyGenerator instanceof Jdbc3KeyGenerator) {
       statement.execute(sql, Statement.RETURN_GENERATED_KEYS);
+      ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
       rows = statement.getUpdateCount();
       keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
     } else if (keyGenerator instanceof SelectKeyGenerator) {
       statement.execute(sql);
+      ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
       rows = statement.getUpdateCount();
       keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
     } else {
       statement.execute(sql);
+      ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
       rows = statement.getUpdateCount();
     }
     return rows;
@@ -71,14 +77,21 @@ public class SimpleStatementHandler extends BaseStatementHandler {
   @Override
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     String sql = boundSql.getSql();
+    long mark = ExecutionTrace.mark();
     statement.execute(sql);
-    return resultSetHandler.handleResultSets(statement);
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
+    mark = ExecutionTrace.mark();
+    List<E> resultList = resultSetHandler.handleResultSets(statement);
+    ExecutionTrace.record(ExecutionPhase.RESULT_MAPPING, mark);
+    return resultList;
   }
 
   @Override
   public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
     String sql = boundSql.getSql();
+    long mark = ExecutionTrace.mark();
     statement.execute(sql);
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, mark);
     return resultSetHandler.handleCursorResultSets(statement);
   }
 
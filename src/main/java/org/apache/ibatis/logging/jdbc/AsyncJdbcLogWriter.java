@@ -0,0 +1,151 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.logging.jdbc;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.logging.Log;
+
+/**
+ * Formats and writes JDBC log messages on a background thread.
+ * <p>
+ * The JDBC loggers capture the parameters and the row values on the calling thread and hand over a message that is
+ * only formatted when written. Messages go to a bounded queue allocated up front; when it is full, messages are
+ * dropped and counted rather than slowing down the statements.
+ *
+ * @since 3.5.10
+ */
+public final class AsyncJdbcLogWriter {
+
+  private static final int DEFAULT_CAPACITY = 8192;
+
+  private static volatile AsyncJdbcLogWriter instance;
+
+  private final BlockingQueue<Entry> queue;
+  private final LongAdder dropped = new LongAdder();
+
+  public AsyncJdbcLogWriter(int capacity) {
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    Thread thread = new Thread(this::run, "mybatis-jdbc-log");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Gets the writer shared by all configurations, starting it on first use.
+   *
+   * @return the shared writer
+   */
+  public static AsyncJdbcLogWriter getInstance() {
+    AsyncJdbcLogWriter writer = instance;
+    if (writer == null) {
+      synchronized (AsyncJdbcLogWriter.class) {
+        writer = instance;
+        if (writer == null) {
+          writer = new AsyncJdbcLogWriter(DEFAULT_CAPACITY);
+          instance = writer;
+        }
+      }
+    }
+    return writer;
+  }
+
+  /**
+   * Queues a message. The caller checks that the level is enabled.
+   *
+   * @param log
+   *          the log to write to
+   * @param trace
+   *          {@code true} to write at trace level, {@code false} at debug level
+   * @param message
+   *          the message, formatted on the writer thread
+   */
+  public void submit(Log log, boolean trace, Supplier<String> message) {
+    if (!queue.offer(new Entry(log, trace, message, null))) {
+      dropped.increment();
+    }
+  }
+
+  /**
+   * Waits until the messages queued so far have been written.
+   *
+   * @param timeout
+   *          the maximum time to wait in milliseconds
+   * @return {@code true} if the messages were written in time
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  public boolean flush(long timeout) throws InterruptedException {
+    CountDownLatch written = new CountDownLatch(1);
+    if (!queue.offer(new Entry(null, false, null, written), timeout, TimeUnit.MILLISECONDS)) {
+      return false;
+    }
+    return written.await(timeout, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Gets the number of messages dropped because the queue was full.
+   *
+   * @return the dropped message count
+   */
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  private void run() {
+    while (true) {
+      Entry entry;
+      try {
+        entry = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (entry.flushed != null) {
+        entry.flushed.countDown();
+        continue;
+      }
+      try {
+        if (entry.trace) {
+          entry.log.trace(entry.message.get());
+        } else {
+          entry.log.debug(entry.message.get());
+        }
+      } catch (RuntimeException e) {
+        // a failing message must not stop the writer
+      }
+    }
+  }
+
+  private static class Entry {
+    private final Log log;
+    private final boolean trace;
+    private final Supplier<String> message;
+    private final CountDownLatch flushed;
+
+    Entry(Log log, boolean trace, Supplier<String> message, CountDownLatch flushed) {
+      this.log = log;
+      this.trace = trace;
+      this.message = message;
+      this.flushed = flushed;
+    }
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.ibatis.builder.SqlSourceBuilder;
@@ -50,17 +51,34 @@ public abstract class BaseJdbcLogger {
 
   protected final Log statementLog;
   protected final int queryStack;
+  protected final AsyncJdbcLogWriter logWriter;
 
   /*
    * Default constructor
    */
   public BaseJdbcLogger(Log log, int queryStack) {
+    this(log, queryStack, null);
+  }
+
+  /**
+   * Creates a logger that formats and writes its messages on the given writer.
+   *
+   * @param log
+   *          the statement log
+   * @param queryStack
+   *          the query stack
+   * @param logWriter
+   *          the asynchronous writer, or {@code null} to write on the calling thread
+   * @since 3.5.10
+   */
+  public BaseJdbcLogger(Log log, int queryStack, AsyncJdbcLogWriter logWriter) {
     this.statementLog = log;
     if (queryStack == 0) {
       this.queryStack = 1;
     } else {
       this.queryStack = queryStack;
     }
+    this.logWriter = logWriter;
   }
 
   static {
@@ -87,10 +105,41 @@ public abstract class BaseJdbcLogger {
   }
 
   protected String getParameterValueString() {
-    List<Object> typeList = new ArrayList<>(columnValues.size());
-    for (Object value : columnValues) {
+    return getParameterValueString(columnValues.toArray());
+  }
+
+  /**
+   * Captures the parameter values so that they can be formatted later, on another thread. SQL arrays are rendered
+   * right away as they may need the connection.
+   *
+   * @return the parameter values
+   * @since 3.5.10
+   */
+  protected Object[] captureParameterValues() {
+    Object[] values = columnValues.toArray();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] instanceof Array) {
+        values[i] = new RenderedValue(objectValueString(values[i]), values[i].getClass().getSimpleName());
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Formats parameter values.
+   *
+   * @param values
+   *          the values
+   * @return the formatted values
+   * @since 3.5.10
+   */
+  protected String getParameterValueString(Object[] values) {
+    List<Object> typeList = new ArrayList<>(values.length);
+    for (Object value : values) {
       if (value == null) {
         typeList.add("null");
+      } else if (value instanceof RenderedValue) {
+        typeList.add(value.toString());
       } else {
         typeList.add(objectValueString(value) + "(" + value.getClass().getSimpleName() + ")");
       }
@@ -133,14 +182,48 @@ public abstract class BaseJdbcLogger {
   }
 
   protected void debug(String text, boolean input) {
+    debug(() -> text, input);
+  }
+
+  /**
+   * Logs a message at debug level. The message is built on the writer thread when logging asynchronously.
+   *
+   * @param message
+   *          the message
+   * @param input
+   *          whether the message describes an input of the database
+   * @since 3.5.10
+   */
+  protected void debug(Supplier<String> message, boolean input) {
     if (statementLog.isDebugEnabled()) {
-      statementLog.debug(prefix(input) + text);
+      if (logWriter == null) {
+        statementLog.debug(prefix(input) + message.get());
+      } else {
+        logWriter.submit(statementLog, false, () -> prefix(input) + message.get());
+      }
     }
   }
 
   protected void trace(String text, boolean input) {
+    trace(() -> text, input);
+  }
+
+  /**
+   * Logs a message at trace level. The message is built on the writer thread when logging asynchronously.
+   *
+   * @param message
+   *          the message
+   * @param input
+   *          whether the message describes an input of the database
+   * @since 3.5.10
+   */
+  protected void trace(Supplier<String> message, boolean input) {
     if (statementLog.isTraceEnabled()) {
-      statementLog.trace(prefix(input) + text);
+      if (logWriter == null) {
+        statementLog.trace(prefix(input) + message.get());
+      } else {
+        logWriter.submit(statementLog, true, () -> prefix(input) + message.get());
+      }
     }
   }
 
@@ -156,4 +239,19 @@ public abstract class BaseJdbcLogger {
     return new String(buffer);
   }
 
+  private static final class RenderedValue {
+    private final String text;
+    private final String type;
+
+    RenderedValue(String text, String type) {
+      this.text = text;
+      this.type = type;
+    }
+
+    @Override
+    public String toString() {
+      return text + "(" + type + ")";
+    }
+  }
+
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -36,8 +36,8 @@ public final class ConnectionLogger extends BaseJdbcLogger implements Invocation
 
   private final Connection connection;
 
-  private ConnectionLogger(Connection conn, Log statementLog, int queryStack) {
-    super(statementLog, queryStack);
+  private ConnectionLogger(Connection conn, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    super(statementLog, queryStack, logWriter);
     this.connection = conn;
   }
 
@@ -50,14 +50,15 @@ public final class ConnectionLogger extends BaseJdbcLogger implements Invocation
       }
       if ("prepareStatement".equals(method.getName()) || "prepareCall".equals(method.getName())) {
         if (isDebugEnabled()) {
-          debug(" Preparing: " + removeExtraWhitespace((String) params[0]), true);
+          String sql = (String) params[0];
+          debug(() -> " Preparing: " + removeExtraWhitespace(sql), true);
         }
         PreparedStatement stmt = (PreparedStatement) method.invoke(connection, params);
-        stmt = PreparedStatementLogger.newInstance(stmt, statementLog, queryStack);
+        stmt = PreparedStatementLogger.newInstance(stmt, statementLog, queryStack, logWriter);
         return stmt;
       } else if ("createStatement".equals(method.getName())) {
         Statement stmt = (Statement) method.invoke(connection, params);
-        stmt = StatementLogger.newInstance(stmt, statementLog, queryStack);
+        stmt = StatementLogger.newInstance(stmt, statementLog, queryStack, logWriter);
         return stmt;
       } else {
         return method.invoke(connection, params);
@@ -79,7 +80,25 @@ public final class ConnectionLogger extends BaseJdbcLogger implements Invocation
    * @return the connection with logging
    */
   public static Connection newInstance(Connection conn, Log statementLog, int queryStack) {
-    InvocationHandler handler = new ConnectionLogger(conn, statementLog, queryStack);
+    return newInstance(conn, statementLog, queryStack, null);
+  }
+
+  /**
+   * Creates a logging version of a connection that formats and writes its messages on the given writer.
+   *
+   * @param conn
+   *          the original connection
+   * @param statementLog
+   *          the statement log
+   * @param queryStack
+   *          the query stack
+   * @param logWriter
+   *          the asynchronous writer, or {@code null} to write on the calling thread
+   * @return the connection with logging
+   * @since 3.5.10
+   */
+  public static Connection newInstance(Connection conn, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    InvocationHandler handler = new ConnectionLogger(conn, statementLog, queryStack, logWriter);
     ClassLoader cl = Connection.class.getClassLoader();
     return (Connection) Proxy.newProxyInstance(cl, new Class[]{Connection.class}, handler);
   }
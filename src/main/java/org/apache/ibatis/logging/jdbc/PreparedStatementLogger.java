@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -36,8 +36,8 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
 
   private final PreparedStatement statement;
 
-  private PreparedStatementLogger(PreparedStatement stmt, Log statementLog, int queryStack) {
-    super(statementLog, queryStack);
+  private PreparedStatementLogger(PreparedStatement stmt, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    super(statementLog, queryStack, logWriter);
     this.statement = stmt;
   }
 
@@ -49,12 +49,13 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
       }
       if (EXECUTE_METHODS.contains(method.getName())) {
         if (isDebugEnabled()) {
-          debug("Parameters: " + getParameterValueString(), true);
+          Object[] values = captureParameterValues();
+          debug(() -> "Parameters: " + getParameterValueString(values), true);
         }
         clearColumnInfo();
         if ("executeQuery".equals(method.getName())) {
           ResultSet rs = (ResultSet) method.invoke(statement, params);
-          return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
+          return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack, logWriter);
         } else {
           return method.invoke(statement, params);
         }
@@ -67,7 +68,7 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
         return method.invoke(statement, params);
       } else if ("getResultSet".equals(method.getName())) {
         ResultSet rs = (ResultSet) method.invoke(statement, params);
-        return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
+        return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack, logWriter);
       } else if ("getUpdateCount".equals(method.getName())) {
         int updateCount = (Integer) method.invoke(statement, params);
         if (updateCount != -1) {
@@ -91,7 +92,21 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
    * @return - the proxy
    */
   public static PreparedStatement newInstance(PreparedStatement stmt, Log statementLog, int queryStack) {
-    InvocationHandler handler = new PreparedStatementLogger(stmt, statementLog, queryStack);
+    return newInstance(stmt, statementLog, queryStack, null);
+  }
+
+  /**
+   * Creates a logging version of a PreparedStatement that formats and writes its messages on the given writer.
+   *
+   * @param stmt - the statement
+   * @param statementLog - the statement log
+   * @param queryStack - the query stack
+   * @param logWriter - the asynchronous writer, or {@code null} to write on the calling thread
+   * @return - the proxy
+   * @since 3.5.10
+   */
+  public static PreparedStatement newInstance(PreparedStatement stmt, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    InvocationHandler handler = new PreparedStatementLogger(stmt, statementLog, queryStack, logWriter);
     ClassLoader cl = PreparedStatement.class.getClassLoader();
     return (PreparedStatement) Proxy.newProxyInstance(cl, new Class[]{PreparedStatement.class, CallableStatement.class}, handler);
   }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -55,8 +55,8 @@ public final class ResultSetLogger extends BaseJdbcLogger implements InvocationH
     BLOB_TYPES.add(Types.VARBINARY);
   }
 
-  private ResultSetLogger(ResultSet rs, Log statementLog, int queryStack) {
-    super(statementLog, queryStack);
+  private ResultSetLogger(ResultSet rs, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    super(statementLog, queryStack, logWriter);
     this.rs = rs;
   }
 
@@ -80,7 +80,8 @@ public final class ResultSetLogger extends BaseJdbcLogger implements InvocationH
             printColumnValues(columnCount);
           }
         } else {
-          debug("     Total: " + rows, false);
+          int total = rows;
+          debug(() -> "     Total: " + total, false);
         }
       }
       clearColumnInfo();
@@ -91,31 +92,39 @@ public final class ResultSetLogger extends BaseJdbcLogger implements InvocationH
   }
 
   private void printColumnHeaders(ResultSetMetaData rsmd, int columnCount) throws SQLException {
-    StringJoiner row = new StringJoiner(", ", "   Columns: ", "");
+    String[] labels = new String[columnCount];
     for (int i = 1; i <= columnCount; i++) {
       if (BLOB_TYPES.contains(rsmd.getColumnType(i))) {
         blobColumns.add(i);
       }
-      row.add(rsmd.getColumnLabel(i));
+      labels[i - 1] = rsmd.getColumnLabel(i);
     }
-    trace(row.toString(), false);
+    trace(() -> join("   Columns: ", labels), false);
   }
 
   private void printColumnValues(int columnCount) {
-    StringJoiner row = new StringJoiner(", ", "       Row: ", "");
+    String[] values = new String[columnCount];
     for (int i = 1; i <= columnCount; i++) {
       try {
         if (blobColumns.contains(i)) {
-          row.add("<<BLOB>>");
+          values[i - 1] = "<<BLOB>>";
         } else {
-          row.add(rs.getString(i));
+          values[i - 1] = rs.getString(i);
         }
       } catch (SQLException e) {
         // generally can't call getString() on a BLOB column
-        row.add("<<Cannot Display>>");
+        values[i - 1] = "<<Cannot Display>>";
       }
     }
-    trace(row.toString(), false);
+    trace(() -> join("       Row: ", values), false);
+  }
+
+  private static String join(String prefix, String[] values) {
+    StringJoiner row = new StringJoiner(", ", prefix, "");
+    for (String value : values) {
+      row.add(value);
+    }
+    return row.toString();
   }
 
   /**
@@ -130,7 +139,25 @@ public final class ResultSetLogger extends BaseJdbcLogger implements InvocationH
    * @return the ResultSet with logging
    */
   public static ResultSet newInstance(ResultSet rs, Log statementLog, int queryStack) {
-    InvocationHandler handler = new ResultSetLogger(rs, statementLog, queryStack);
+    return newInstance(rs, statementLog, queryStack, null);
+  }
+
+  /**
+   * Creates a logging version of a ResultSet that formats and writes its messages on the given writer.
+   *
+   * @param rs
+   *          the ResultSet to proxy
+   * @param statementLog
+   *          the statement log
+   * @param queryStack
+   *          the query stack
+   * @param logWriter
+   *          the asynchronous writer, or {@code null} to write on the calling thread
+   * @return the ResultSet with logging
+   * @since 3.5.10
+   */
+  public static ResultSet newInstance(ResultSet rs, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    InvocationHandler handler = new ResultSetLogger(rs, statementLog, queryStack, logWriter);
     ClassLoader cl = ResultSet.class.getClassLoader();
     return (ResultSet) Proxy.newProxyInstance(cl, new Class[]{ResultSet.class}, handler);
   }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -35,8 +35,8 @@ public final class StatementLogger extends BaseJdbcLogger implements InvocationH
 
   private final Statement statement;
 
-  private StatementLogger(Statement stmt, Log statementLog, int queryStack) {
-    super(statementLog, queryStack);
+  private StatementLogger(Statement stmt, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    super(statementLog, queryStack, logWriter);
     this.statement = stmt;
   }
 
@@ -48,17 +48,18 @@ public final class StatementLogger extends BaseJdbcLogger implements InvocationH
       }
       if (EXECUTE_METHODS.contains(method.getName())) {
         if (isDebugEnabled()) {
-          debug(" Executing: " + removeExtraWhitespace((String) params[0]), true);
+          String sql = (String) params[0];
+          debug(() -> " Executing: " + removeExtraWhitespace(sql), true);
         }
         if ("executeQuery".equals(method.getName())) {
           ResultSet rs = (ResultSet) method.invoke(statement, params);
-          return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
+          return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack, logWriter);
         } else {
           return method.invoke(statement, params);
         }
       } else if ("getResultSet".equals(method.getName())) {
         ResultSet rs = (ResultSet) method.invoke(statement, params);
-        return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
+        return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack, logWriter);
       } else {
         return method.invoke(statement, params);
       }
@@ -79,7 +80,25 @@ public final class StatementLogger extends BaseJdbcLogger implements InvocationH
    * @return the proxy
    */
   public static Statement newInstance(Statement stmt, Log statementLog, int queryStack) {
-    InvocationHandler handler = new StatementLogger(stmt, statementLog, queryStack);
+    return newInstance(stmt, statementLog, queryStack, null);
+  }
+
+  /**
+   * Creates a logging version of a Statement that formats and writes its messages on the given writer.
+   *
+   * @param stmt
+   *          the statement
+   * @param statementLog
+   *          the statement log
+   * @param queryStack
+   *          the query stack
+   * @param logWriter
+   *          the asynchronous writer, or {@code null} to write on the calling thread
+   * @return the proxy
+   * @since 3.5.10
+   */
+  public static Statement newInstance(Statement stmt, Log statementLog, int queryStack, AsyncJdbcLogWriter logWriter) {
+    InvocationHandler handler = new StatementLogger(stmt, statementLog, queryStack, logWriter);
     ClassLoader cl = Statement.class.getClassLoader();
     return (Statement) Proxy.newProxyInstance(cl, new Class[]{Statement.class}, handler);
   }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -20,7 +20,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.reflection.MetaObject;
-import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.property.PropertyPath;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -62,7 +62,7 @@ public class BoundSql {
   }
 
   public boolean hasAdditionalParameter(String name) {
-    String paramName = new PropertyTokenizer(name).getName();
+    String paramName = PropertyPath.compile(name).getSegment(0).getName();
     return additionalParameters.containsKey(paramName);
   }
 
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -20,11 +20,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.Consumer;
 
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
@@ -46,6 +48,7 @@ public class CacheBuilder {
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private Consumer<Object> evictionListener;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -84,6 +87,19 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Sets a listener that is called with the key of every entry the eviction policy removes, if it supports it.
+   *
+   * @param evictionListener
+   *          the eviction listener
+   * @return the cache builder
+   * @since 3.5.10
+   */
+  public CacheBuilder evictionListener(Consumer<Object> evictionListener) {
+    this.evictionListener = evictionListener;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -121,6 +137,9 @@ public class CacheBuilder {
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
+      if (evictionListener != null && metaCache.hasSetter("evictionListener")) {
+        metaCache.setValue("evictionListener", evictionListener);
+      }
       if (clearInterval != null) {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
@@ -130,8 +149,14 @@ public class CacheBuilder {
       }
       cache = new LoggingCache(cache);
       cache = new SynchronizedCache(cache);
+      if (isExpiring()) {
+        cache = new ExpiringCache(cache);
+        setCacheProperties(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
+        ((BlockingCache) cache).setShareLoadedValue(!readWrite);
+        setCacheProperties(cache);
       }
       return cache;
     } catch (Exception e) {
@@ -139,6 +164,11 @@ public class CacheBuilder {
     }
   }
 
+  private boolean isExpiring() {
+    return properties != null && (properties.containsKey("expireAfterWrite")
+        || properties.containsKey("expireAfterAccess") || properties.containsKey("refreshAhead"));
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
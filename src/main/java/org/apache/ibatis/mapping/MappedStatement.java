@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.apache.ibatis.mapping;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -56,6 +57,10 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private Integer maxResultRows;
+  private ResultLimitBehavior resultLimitBehavior;
+  private String[] tables;
+  private boolean streaming;
 
   MappedStatement() {
     // constructor disabled
@@ -174,6 +179,32 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder maxResultRows(Integer maxResultRows) {
+      mappedStatement.maxResultRows = maxResultRows;
+      return this;
+    }
+
+    public Builder resultLimitBehavior(ResultLimitBehavior resultLimitBehavior) {
+      mappedStatement.resultLimitBehavior = resultLimitBehavior;
+      return this;
+    }
+
+    public Builder streaming(boolean streaming) {
+      mappedStatement.streaming = streaming;
+      return this;
+    }
+
+    public Builder tables(String tables) {
+      String[] names = delimitedStringToArray(tables);
+      if (names != null) {
+        for (int i = 0; i < names.length; i++) {
+          names[i] = names[i].trim().toUpperCase(Locale.ENGLISH);
+        }
+      }
+      mappedStatement.tables = names;
+      return this;
+    }
+
     /**
      * Resul sets.
      *
@@ -290,6 +321,46 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Gets the maximum number of rows this statement may hold in memory when its result is returned as a list.
+   *
+   * @return the maximum number of rows, or {@code null} to use the configuration setting
+   * @since 3.5.10
+   */
+  public Integer getMaxResultRows() {
+    return maxResultRows;
+  }
+
+  /**
+   * Gets what happens when this statement exceeds the maximum number of result rows.
+   *
+   * @return the result limit behavior, or {@code null} to use the configuration setting
+   * @since 3.5.10
+   */
+  public ResultLimitBehavior getResultLimitBehavior() {
+    return resultLimitBehavior;
+  }
+
+  /**
+   * Gets the tables this statement reads (for a select) or writes (for other statements), in upper case.
+   *
+   * @return the tables, or {@code null} when they have not been declared
+   * @since 3.5.10
+   */
+  public String[] getTables() {
+    return tables;
+  }
+
+  /**
+   * Returns whether the driver is asked to stream the results of this statement rather than read them all in memory.
+   *
+   * @return {@code true} if the results are streamed
+   * @since 3.5.10
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
   /**
    * Gets the resul sets.
    *
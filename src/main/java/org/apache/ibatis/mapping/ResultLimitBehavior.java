@@ -0,0 +1,36 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.mapping;
+
+/**
+ * Specifies what MyBatis does when a query returns more rows than the configured result limit.
+ *
+ * @since 3.5.10
+ */
+public enum ResultLimitBehavior {
+
+  /**
+   * Fails the query with an exception as soon as the limit is exceeded.
+   */
+  FAIL,
+
+  /**
+   * Keeps up to the limit in memory and writes the remaining rows to a temporary file that is paged back in on access.
+   * Result objects must be serializable. Falls back to {@link #FAIL} for unordered nested result maps, whose rows may
+   * still be modified after they have been added to the result.
+   */
+  SPILL
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -45,6 +45,7 @@ public class ResultMap {
   private List<ResultMapping> propertyResultMappings;
   private Set<String> mappedColumns;
   private Set<String> mappedProperties;
+  private Set<String> lazyProperties;
   private Discriminator discriminator;
   private boolean hasNestedResultMaps;
   private boolean hasNestedQueries;
@@ -85,6 +86,7 @@ public class ResultMap {
       }
       resultMap.mappedColumns = new HashSet<>();
       resultMap.mappedProperties = new HashSet<>();
+      resultMap.lazyProperties = new HashSet<>();
       resultMap.idResultMappings = new ArrayList<>();
       resultMap.constructorResultMappings = new ArrayList<>();
       resultMap.propertyResultMappings = new ArrayList<>();
@@ -114,6 +116,9 @@ public class ResultMap {
           }
         } else {
           resultMap.propertyResultMappings.add(resultMapping);
+          if (property != null && resultMapping.getNestedQueryId() != null && resultMapping.isLazy()) {
+            resultMap.lazyProperties.add(property);
+          }
         }
         if (resultMapping.getFlags().contains(ResultFlag.ID)) {
           resultMap.idResultMappings.add(resultMapping);
@@ -142,6 +147,7 @@ public class ResultMap {
       resultMap.constructorResultMappings = Collections.unmodifiableList(resultMap.constructorResultMappings);
       resultMap.propertyResultMappings = Collections.unmodifiableList(resultMap.propertyResultMappings);
       resultMap.mappedColumns = Collections.unmodifiableSet(resultMap.mappedColumns);
+      resultMap.lazyProperties = Collections.unmodifiableSet(resultMap.lazyProperties);
       return resultMap;
     }
 
@@ -246,6 +252,16 @@ public class ResultMap {
     return mappedProperties;
   }
 
+  /**
+   * Returns the properties that are loaded lazily by a nested select.
+   *
+   * @return the lazy properties
+   * @since 3.5.10
+   */
+  public Set<String> getLazyProperties() {
+    return lazyProperties;
+  }
+
   public Discriminator getDiscriminator() {
     return discriminator;
   }
@@ -0,0 +1,176 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.util.Histogram;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * A {@link MetricsCollector} that keeps its measurements in memory with {@link LongAdder} based counters and
+ * histograms. The measurements can be read through the getters or exported with a {@link JmxMetricsExporter}.
+ *
+ * @since 3.5.10
+ */
+public class DefaultMetricsCollector implements MetricsCollector {
+
+  private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+  private final Map<String, CacheMetrics> caches = new ConcurrentHashMap<>();
+  private final Histogram connectionCheckoutTimes = new Histogram();
+
+  @Override
+  public void recordStatement(String statementId, long elapsedNanos, int rows) {
+    StatementMetrics metrics = getStatementMetrics(statementId);
+    metrics.latencies.record(elapsedNanos);
+    metrics.rows.add(rows);
+  }
+
+  @Override
+  public void recordPhase(String statementId, ExecutionPhase phase, long elapsedNanos) {
+    getStatementMetrics(statementId).phaseTimes[phase.ordinal()].record(elapsedNanos);
+  }
+
+  @Override
+  public void recordBatch(String statementId, int batchSize) {
+    getStatementMetrics(statementId).batchSizes.record(batchSize);
+  }
+
+  @Override
+  public void recordConnectionCheckout(long waitNanos) {
+    connectionCheckoutTimes.record(waitNanos);
+  }
+
+  @Override
+  public void recordCacheHit(String cacheId) {
+    getCacheMetrics(cacheId).hits.increment();
+  }
+
+  @Override
+  public void recordCacheMiss(String cacheId) {
+    getCacheMetrics(cacheId).misses.increment();
+  }
+
+  @Override
+  public void recordCacheEviction(String cacheId) {
+    getCacheMetrics(cacheId).evictions.increment();
+  }
+
+  public Map<String, StatementMetrics> getStatementMetrics() {
+    return Collections.unmodifiableMap(statements);
+  }
+
+  public StatementMetrics getStatementMetrics(String statementId) {
+    return MapUtil.computeIfAbsent(statements, statementId, k -> new StatementMetrics());
+  }
+
+  public Map<String, CacheMetrics> getCacheMetrics() {
+    return Collections.unmodifiableMap(caches);
+  }
+
+  public CacheMetrics getCacheMetrics(String cacheId) {
+    return MapUtil.computeIfAbsent(caches, cacheId, k -> new CacheMetrics());
+  }
+
+  /**
+   * Gets the times, in nanoseconds, taken to check out connections of pooled data sources.
+   *
+   * @return the connection checkout times
+   */
+  public Histogram getConnectionCheckoutTimes() {
+    return connectionCheckoutTimes;
+  }
+
+  public void reset() {
+    statements.clear();
+    caches.clear();
+    connectionCheckoutTimes.reset();
+  }
+
+  public static class StatementMetrics {
+    private final Histogram latencies = new Histogram();
+    private final LongAdder rows = new LongAdder();
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram[] phaseTimes = new Histogram[ExecutionPhase.values().length];
+
+    StatementMetrics() {
+      for (int i = 0; i < phaseTimes.length; i++) {
+        phaseTimes[i] = new Histogram();
+      }
+    }
+
+    /**
+     * Gets the execution times in nanoseconds. Their count is the number of executions.
+     *
+     * @return the latencies
+     */
+    public Histogram getLatencies() {
+      return latencies;
+    }
+
+    public long getExecutions() {
+      return latencies.getCount();
+    }
+
+    public long getRows() {
+      return rows.sum();
+    }
+
+    public Histogram getBatchSizes() {
+      return batchSizes;
+    }
+
+    /**
+     * Gets the times in nanoseconds spent in a phase by the traced executions.
+     *
+     * @param phase
+     *          the phase
+     * @return the phase times
+     * @see ExecutionTrace
+     */
+    public Histogram getPhaseTimes(ExecutionPhase phase) {
+      return phaseTimes[phase.ordinal()];
+    }
+  }
+
+  public static class CacheMetrics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public long getHits() {
+      return hits.sum();
+    }
+
+    public long getMisses() {
+      return misses.sum();
+    }
+
+    public long getEvictions() {
+      return evictions.sum();
+    }
+
+    public double getHitRatio() {
+      long hitCount = getHits();
+      long requests = hitCount + getMisses();
+      return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+  }
+
+}
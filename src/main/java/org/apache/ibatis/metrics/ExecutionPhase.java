@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+/**
+ * The phases of a statement execution timed by {@link ExecutionTrace}.
+ *
+ * @since 3.5.10
+ */
+public enum ExecutionPhase {
+  /**
+   * Building the SQL and the parameter mappings from the mapped statement, including dynamic SQL.
+   */
+  BOUND_SQL,
+  /**
+   * Obtaining the connection from the transaction, which may check it out of the data source.
+   */
+  CONNECTION,
+  /**
+   * Creating the JDBC statement and applying its timeout and fetch size.
+   */
+  PREPARE,
+  /**
+   * Setting the parameters of the JDBC statement.
+   */
+  PARAMETERIZE,
+  /**
+   * Executing the JDBC statement in the database.
+   */
+  EXECUTE,
+  /**
+   * Reading the result sets and mapping them to objects.
+   */
+  RESULT_MAPPING
+}
@@ -0,0 +1,185 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.Locale;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Breaks down the time of a statement execution into {@link ExecutionPhase}s.
+ * <p>
+ * The executors start a trace for each statement when {@link Configuration#isExecutionTracingEnabled()} and the
+ * executors and statement handlers time their phases against the trace of the current thread. Phases are measured as
+ * self time: when a nested select runs while results are mapped, its phases are added to the phases of the outer
+ * statement rather than to its result mapping.
+ * <p>
+ * A finished trace is published to the {@link MetricsCollector} and, when it took longer than
+ * {@link Configuration#getSlowStatementThreshold()}, logged as a warning.
+ *
+ * @since 3.5.10
+ */
+public final class ExecutionTrace {
+
+  private static final Log log = LogFactory.getLog(ExecutionTrace.class);
+  private static final ThreadLocal<ExecutionTrace> LOCAL = new ThreadLocal<>();
+  private static final ExecutionPhase[] PHASES = ExecutionPhase.values();
+
+  private final Configuration configuration;
+  private final String statementId;
+  private final long startNanos;
+  private final long[] phaseNanos = new long[PHASES.length];
+  private long accountedNanos;
+  private long elapsedNanos = -1;
+  private ExecutionTrace stored;
+
+  private ExecutionTrace(Configuration configuration, String statementId) {
+    this.configuration = configuration;
+    this.statementId = statementId;
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Starts a trace for the statement on the current thread, if tracing is enabled.
+   *
+   * @param ms
+   *          the mapped statement
+   * @return the trace to finish, or {@code null} when tracing is disabled
+   */
+  public static ExecutionTrace start(MappedStatement ms) {
+    Configuration configuration = ms.getConfiguration();
+    if (!configuration.isExecutionTracingEnabled()) {
+      return null;
+    }
+    ExecutionTrace trace = new ExecutionTrace(configuration, ms.getId());
+    trace.stored = LOCAL.get();
+    LOCAL.set(trace);
+    return trace;
+  }
+
+  /**
+   * Gets the trace of the current thread.
+   *
+   * @return the trace, or {@code null} when no statement is traced
+   */
+  public static ExecutionTrace current() {
+    return LOCAL.get();
+  }
+
+  /**
+   * Marks the beginning of a phase.
+   *
+   * @return the mark to pass to {@link #record(ExecutionPhase, long)}
+   */
+  public static long mark() {
+    ExecutionTrace trace = LOCAL.get();
+    return trace == null ? 0L : System.nanoTime() - trace.accountedNanos;
+  }
+
+  /**
+   * Records the end of a phase started with {@link #mark()}. Does nothing when no statement is traced.
+   *
+   * @param phase
+   *          the phase
+   * @param mark
+   *          the mark taken at the beginning of the phase
+   */
+  public static void record(ExecutionPhase phase, long mark) {
+    ExecutionTrace trace = LOCAL.get();
+    if (trace != null) {
+      // time recorded for nested phases since the mark is excluded
+      long elapsed = System.nanoTime() - trace.accountedNanos - mark;
+      trace.phaseNanos[phase.ordinal()] += elapsed;
+      trace.accountedNanos += elapsed;
+    }
+  }
+
+  /**
+   * Ends the trace, restores the trace of the enclosing statement and publishes this one.
+   */
+  public void finish() {
+    elapsedNanos = System.nanoTime() - startNanos;
+    if (stored == null) {
+      LOCAL.remove();
+    } else {
+      LOCAL.set(stored);
+      for (int i = 0; i < phaseNanos.length; i++) {
+        stored.phaseNanos[i] += phaseNanos[i];
+      }
+      stored.accountedNanos += accountedNanos;
+      stored = null;
+    }
+    MetricsCollector metrics = configuration.getMetricsCollector();
+    if (metrics != null) {
+      for (ExecutionPhase phase : PHASES) {
+        if (phaseNanos[phase.ordinal()] > 0) {
+          metrics.recordPhase(statementId, phase, phaseNanos[phase.ordinal()]);
+        }
+      }
+    }
+    Integer threshold = configuration.getSlowStatementThreshold();
+    if (threshold != null && elapsedNanos >= threshold * 1_000_000L) {
+      log.warn("Slow statement " + this);
+    }
+  }
+
+  public String getStatementId() {
+    return statementId;
+  }
+
+  /**
+   * Gets the time spent in a phase.
+   *
+   * @param phase
+   *          the phase
+   * @return the time in nanoseconds
+   */
+  public long getPhaseNanos(ExecutionPhase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  /**
+   * Gets the time from the start to the end of the trace.
+   *
+   * @return the time in nanoseconds, or {@code -1} if the trace is not finished
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(statementId);
+    if (elapsedNanos >= 0) {
+      sb.append(" took ").append(millis(elapsedNanos));
+    }
+    String separator = " (";
+    for (ExecutionPhase phase : PHASES) {
+      sb.append(separator).append(phase.name().toLowerCase(Locale.ENGLISH)).append(": ")
+          .append(millis(phaseNanos[phase.ordinal()]));
+      separator = ", ";
+    }
+    return sb.append(')').toString();
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ENGLISH, "%.3f ms", nanos / 1_000_000.0);
+  }
+
+}
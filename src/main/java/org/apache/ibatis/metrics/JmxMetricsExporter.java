@@ -0,0 +1,176 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.apache.ibatis.metrics.DefaultMetricsCollector.CacheMetrics;
+import org.apache.ibatis.metrics.DefaultMetricsCollector.StatementMetrics;
+import org.apache.ibatis.util.Histogram;
+
+/**
+ * Exposes the measurements of a {@link DefaultMetricsCollector} as the read-only attributes of an MBean, for example
+ * {@code statement[com.example.UserMapper.selectUser].p99Nanos} or {@code cache[com.example.UserMapper].hitRatio}.
+ *
+ * <pre>
+ * DefaultMetricsCollector metrics = new DefaultMetricsCollector();
+ * configuration.setMetricsCollector(metrics);
+ * new JmxMetricsExporter(metrics).register("default");
+ * </pre>
+ *
+ * @since 3.5.10
+ */
+public class JmxMetricsExporter implements DynamicMBean {
+
+  private final DefaultMetricsCollector collector;
+  private ObjectName objectName;
+
+  public JmxMetricsExporter(DefaultMetricsCollector collector) {
+    this.collector = collector;
+  }
+
+  /**
+   * Registers the MBean as {@code org.apache.ibatis:type=Metrics,name=<name>} in the platform MBean server.
+   *
+   * @param name
+   *          the name that tells apart the configurations of the JVM
+   * @throws JMException
+   *           if the MBean could not be registered
+   */
+  public void register(String name) throws JMException {
+    objectName = new ObjectName("org.apache.ibatis:type=Metrics,name=" + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+  }
+
+  public void unregister() throws JMException {
+    if (objectName != null) {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      objectName = null;
+    }
+  }
+
+  public ObjectName getObjectName() {
+    return objectName;
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    Map<String, Object> attributes = snapshot();
+    if (!attributes.containsKey(attribute)) {
+      throw new AttributeNotFoundException(attribute);
+    }
+    return attributes.get(attribute);
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    Map<String, Object> snapshot = snapshot();
+    AttributeList list = new AttributeList();
+    for (String attribute : attributes) {
+      if (snapshot.containsKey(attribute)) {
+        list.add(new Attribute(attribute, snapshot.get(attribute)));
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+    if ("reset".equals(actionName)) {
+      collector.reset();
+      return null;
+    }
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    Map<String, Object> snapshot = snapshot();
+    MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[snapshot.size()];
+    int i = 0;
+    for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+      String type = entry.getValue() instanceof Double ? "double" : "long";
+      attributes[i++] = new MBeanAttributeInfo(entry.getKey(), type, entry.getKey(), true, false, false);
+    }
+    MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Resets all metrics", null, "void",
+        MBeanOperationInfo.ACTION);
+    return new MBeanInfo(getClass().getName(), "MyBatis metrics", attributes, null,
+        new MBeanOperationInfo[] { reset }, null);
+  }
+
+  private Map<String, Object> snapshot() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    putHistogram(attributes, "connectionCheckout", "Nanos", collector.getConnectionCheckoutTimes());
+    for (Map.Entry<String, StatementMetrics> entry : collector.getStatementMetrics().entrySet()) {
+      String prefix = "statement[" + entry.getKey() + "]";
+      StatementMetrics metrics = entry.getValue();
+      putHistogram(attributes, prefix, "Nanos", metrics.getLatencies());
+      attributes.put(prefix + ".rows", metrics.getRows());
+      attributes.put(prefix + ".batches", metrics.getBatchSizes().getCount());
+      attributes.put(prefix + ".meanBatchSize", metrics.getBatchSizes().getMean());
+      for (ExecutionPhase phase : ExecutionPhase.values()) {
+        Histogram phaseTimes = metrics.getPhaseTimes(phase);
+        if (phaseTimes.getCount() > 0) {
+          String phasePrefix = prefix + ".phase[" + phase.name().toLowerCase(Locale.ENGLISH) + "]";
+          attributes.put(phasePrefix + ".meanNanos", phaseTimes.getMean());
+          attributes.put(phasePrefix + ".p99Nanos", phaseTimes.getPercentile(0.99));
+        }
+      }
+    }
+    for (Map.Entry<String, CacheMetrics> entry : collector.getCacheMetrics().entrySet()) {
+      String prefix = "cache[" + entry.getKey() + "]";
+      CacheMetrics metrics = entry.getValue();
+      attributes.put(prefix + ".hits", metrics.getHits());
+      attributes.put(prefix + ".misses", metrics.getMisses());
+      attributes.put(prefix + ".evictions", metrics.getEvictions());
+      attributes.put(prefix + ".hitRatio", metrics.getHitRatio());
+    }
+    return attributes;
+  }
+
+  private static void putHistogram(Map<String, Object> attributes, String prefix, String unit, Histogram histogram) {
+    attributes.put(prefix + ".count", histogram.getCount());
+    attributes.put(prefix + ".mean" + unit, histogram.getMean());
+    attributes.put(prefix + ".p50" + unit, histogram.getPercentile(0.5));
+    attributes.put(prefix + ".p99" + unit, histogram.getPercentile(0.99));
+    attributes.put(prefix + ".max" + unit, histogram.getMax());
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+/**
+ * Receives measurements from the executors, the pooled data source and the second level caches.
+ * <p>
+ * Methods are called on the hot path, often concurrently, and must be cheap and thread safe. All of them do nothing
+ * by default, so that adapters to metrics libraries only implement what they need.
+ *
+ * @since 3.5.10
+ * @see DefaultMetricsCollector
+ */
+public interface MetricsCollector {
+
+  /**
+   * Called after a statement has been executed against the database.
+   *
+   * @param statementId
+   *          the mapped statement id
+   * @param elapsedNanos
+   *          the time taken to execute the statement and map its results
+   * @param rows
+   *          the number of rows mapped by a select, or updated by another statement
+   */
+  default void recordStatement(String statementId, long elapsedNanos, int rows) {
+    // NOP
+  }
+
+  /**
+   * Called when a traced statement execution finishes, once for each phase that took time.
+   *
+   * @param statementId
+   *          the mapped statement id
+   * @param phase
+   *          the phase
+   * @param elapsedNanos
+   *          the time spent in the phase during the execution
+   * @see ExecutionTrace
+   */
+  default void recordPhase(String statementId, ExecutionPhase phase, long elapsedNanos) {
+    // NOP
+  }
+
+  /**
+   * Called after a JDBC batch has been executed.
+   *
+   * @param statementId
+   *          the mapped statement id
+   * @param batchSize
+   *          the number of parameter sets in the batch
+   */
+  default void recordBatch(String statementId, int batchSize) {
+    // NOP
+  }
+
+  /**
+   * Called after a connection has been checked out of a pooled data source.
+   *
+   * @param waitNanos
+   *          the time taken to check out the connection
+   */
+  default void recordConnectionCheckout(long waitNanos) {
+    // NOP
+  }
+
+  default void recordCacheHit(String cacheId) {
+    // NOP
+  }
+
+  default void recordCacheMiss(String cacheId) {
+    // NOP
+  }
+
+  /**
+   * Called when an eviction policy removes an entry from a second level cache.
+   *
+   * @param cacheId
+   *          the cache id
+   */
+  default void recordCacheEviction(String cacheId) {
+    // NOP
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -18,13 +18,28 @@ package org.apache.ibatis.reflection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.apache.ibatis.reflection.invoker.DefaultInvokerFactory;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
 import org.apache.ibatis.util.MapUtil;
 
 public class DefaultReflectorFactory implements ReflectorFactory {
   private boolean classCacheEnabled = true;
   private final ConcurrentMap<Class<?>, Reflector> reflectorMap = new ConcurrentHashMap<>();
+  private final InvokerFactory invokerFactory;
 
   public DefaultReflectorFactory() {
+    this(new DefaultInvokerFactory());
+  }
+
+  /**
+   * Instantiates a new reflector factory whose reflectors use invokers created by the given factory.
+   *
+   * @param invokerFactory
+   *          the invoker factory
+   * @since 3.5.10
+   */
+  public DefaultReflectorFactory(InvokerFactory invokerFactory) {
+    this.invokerFactory = invokerFactory;
   }
 
   @Override
@@ -41,10 +56,14 @@ public class DefaultReflectorFactory implements ReflectorFactory {
   public Reflector findForClass(Class<?> type) {
     if (classCacheEnabled) {
       // synchronized (type) removed see issue #461
-      return MapUtil.computeIfAbsent(reflectorMap, type, Reflector::new);
+      return MapUtil.computeIfAbsent(reflectorMap, type, this::newReflector);
     } else {
-      return new Reflector(type);
+      return newReflector(type);
     }
   }
 
+  private Reflector newReflector(Class<?> type) {
+    return new Reflector(type, invokerFactory);
+  }
+
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyPath;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.reflection.wrapper.BeanWrapper;
 import org.apache.ibatis.reflection.wrapper.CollectionWrapper;
@@ -32,6 +34,8 @@ import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
  */
 public class MetaObject {
 
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
   private final Object originalObject;
   private final ObjectWrapper objectWrapper;
   private final ObjectFactory objectFactory;
@@ -110,37 +114,88 @@ public class MetaObject {
   }
 
   public Object getValue(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
-    if (prop.hasNext()) {
-      MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
-      if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
-        return null;
-      } else {
-        return metaValue.getValue(prop.getChildren());
-      }
-    } else {
-      return objectWrapper.get(prop);
+    PropertyPath path = PropertyPath.compile(name);
+    Object value = objectWrapper.get(path.getSegment(0));
+    for (int i = 1; i < path.size() && value != null; i++) {
+      value = getProperty(value, path.getSegment(i));
     }
+    return value;
   }
 
   public void setValue(String name, Object value) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
-    if (prop.hasNext()) {
-      MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
-      if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
+    PropertyPath path = PropertyPath.compile(name);
+    int last = path.size() - 1;
+    if (last == 0) {
+      objectWrapper.set(path.getSegment(0), value);
+      return;
+    }
+    Object parent = null;
+    for (int i = 0; i < last; i++) {
+      PropertyTokenizer segment = path.getSegment(i);
+      Object child = i == 0 ? objectWrapper.get(segment) : getProperty(parent, segment);
+      if (child == null) {
         if (value == null) {
           // don't instantiate child path if value is null
           return;
-        } else {
-          metaValue = objectWrapper.instantiatePropertyValue(name, prop, objectFactory);
         }
+        ObjectWrapper parentWrapper = i == 0 ? objectWrapper : wrapperFor(parent);
+        child = parentWrapper.instantiatePropertyValue(path.getSubExpression(i), path.getTokenizer(i), objectFactory)
+            .getOriginalObject();
       }
-      metaValue.setValue(prop.getChildren(), value);
-    } else {
-      objectWrapper.set(prop, value);
+      parent = child;
+    }
+    setProperty(parent, path.getSegment(last), value);
+  }
+
+  private Object getProperty(Object object, PropertyTokenizer prop) {
+    if (prop.getIndex() != null || !isBean(object)) {
+      return wrapperFor(object).get(prop);
+    }
+    try {
+      Invoker method = reflectorFactory.findForClass(object.getClass()).getGetInvoker(prop.getName());
+      try {
+        return method.invoke(object, NO_ARGUMENTS);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not get property '" + prop.getName() + "' from " + object.getClass() + ".  Cause: " + t.toString(), t);
     }
   }
 
+  private void setProperty(Object object, PropertyTokenizer prop, Object value) {
+    if (prop.getIndex() != null || !isBean(object)) {
+      wrapperFor(object).set(prop, value);
+      return;
+    }
+    try {
+      Invoker method = reflectorFactory.findForClass(object.getClass()).getSetInvoker(prop.getName());
+      Object[] params = {value};
+      try {
+        method.invoke(object, params);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not set property '" + prop.getName() + "' of '" + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+    }
+  }
+
+  /**
+   * Whether the object would be wrapped by a {@link BeanWrapper}, whose properties can be accessed directly through
+   * the cached invokers of its {@link Reflector}.
+   */
+  private boolean isBean(Object object) {
+    return !(object instanceof ObjectWrapper) && !objectWrapperFactory.hasWrapperFor(object)
+        && !(object instanceof Map) && !(object instanceof Collection);
+  }
+
+  private ObjectWrapper wrapperFor(Object object) {
+    return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory).objectWrapper;
+  }
+
   public MetaObject metaObjectForProperty(String name) {
     Object value = getValue(name);
     return MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
@@ -0,0 +1,34 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.reflection.invoker.MethodHandleInvokerFactory;
+
+/**
+ * A reflector factory whose reflectors access properties through {@link java.lang.invoke.MethodHandle}s instead of
+ * core reflection.
+ * <p>
+ * It can be enabled with <code>&lt;reflectorFactory type="org.apache.ibatis.reflection.MethodHandleReflectorFactory"/&gt;</code>.
+ *
+ * @since 3.5.10
+ */
+public class MethodHandleReflectorFactory extends DefaultReflectorFactory {
+
+  public MethodHandleReflectorFactory() {
+    super(new MethodHandleInvokerFactory());
+  }
+
+}
@@ -0,0 +1,116 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * An {@link Invoker} that calls a getter, setter or field accessor through a {@link MethodHandle}.
+ * <p>
+ * The handle is adapted once to the generic <code>(Object, Object[])Object</code> shape so that every call is a single
+ * {@link MethodHandle#invokeExact} without the argument checks and boxing performed by core reflection.
+ * <p>
+ * Like {@link java.lang.reflect.Method#invoke}, only the exceptions thrown by the member itself are wrapped in an
+ * {@link InvocationTargetException}. A target or arguments that do not match the member raise an
+ * {@link IllegalArgumentException}, and a missing target of an instance member a {@link NullPointerException}.
+ *
+ * @since 3.5.10
+ */
+public class MethodHandleInvoker implements Invoker {
+
+  private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+  private static final MethodHandle THROW_TARGET_EXCEPTION;
+
+  static {
+    try {
+      THROW_TARGET_EXCEPTION = MethodHandles.lookup().findStatic(MethodHandleInvoker.class, "throwTargetException",
+          MethodType.methodType(Object.class, Throwable.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final MethodHandle handle;
+  private final Class<?> type;
+  private final boolean isStatic;
+
+  /**
+   * Instantiates a new method handle invoker.
+   *
+   * @param handle
+   *          a direct handle to a method or field accessor, as returned by <code>MethodHandles.Lookup.unreflect*</code>
+   * @param type
+   *          the property type
+   * @param isStatic
+   *          whether the handle refers to a static member, i.e. does not take the target as its first argument
+   */
+  public MethodHandleInvoker(MethodHandle handle, Class<?> type, boolean isStatic) {
+    this.handle = toGenericHandle(handle, isStatic);
+    this.type = type;
+    this.isStatic = isStatic;
+  }
+
+  private static MethodHandle toGenericHandle(MethodHandle handle, boolean isStatic) {
+    MethodHandle generic = wrapTargetExceptions(handle);
+    generic = isStatic ? MethodHandles.dropArguments(generic, 0, Object.class) : generic;
+    generic = generic.asSpreader(Object[].class, generic.type().parameterCount() - 1);
+    return generic.asType(GENERIC_TYPE);
+  }
+
+  /**
+   * Wraps what the member throws before the handle is adapted, so that the failures of the adaptation are not taken
+   * for failures of the member.
+   */
+  private static MethodHandle wrapTargetExceptions(MethodHandle handle) {
+    MethodType type = handle.type();
+    MethodHandle handler = THROW_TARGET_EXCEPTION.asType(MethodType.methodType(type.returnType(), Throwable.class));
+    handler = MethodHandles.dropArguments(handler, 1, type.parameterList());
+    return MethodHandles.catchException(handle, Throwable.class, handler);
+  }
+
+  private static Object throwTargetException(Throwable t) throws InvocationTargetException {
+    throw new InvocationTargetException(t);
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    if (target == null && !isStatic) {
+      throw new NullPointerException("The target of an instance member is null.");
+    }
+    try {
+      return handle.invokeExact(target, args);
+    } catch (InvocationTargetException e) {
+      throw e;
+    } catch (ClassCastException | WrongMethodTypeException | NullPointerException e) {
+      // the target or the arguments do not match the member
+      throw new IllegalArgumentException(e.getMessage(), e);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new UndeclaredThrowableException(t);
+    }
+  }
+
+  @Override
+  public Class<?> getType() {
+    return type;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Creates invokers backed by {@link MethodHandle}s.
+ * <p>
+ * Members that cannot be unreflected (e.g. a non-public member when access checks cannot be suppressed) fall back to
+ * the reflection based invokers created by {@link DefaultInvokerFactory}.
+ *
+ * @since 3.5.10
+ */
+public class MethodHandleInvokerFactory extends DefaultInvokerFactory {
+
+  private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+  @Override
+  public Invoker createMethodInvoker(Method method) {
+    try {
+      MethodHandle handle = unreflect(method, () -> lookup.unreflect(method));
+      Class<?> type = method.getParameterTypes().length == 1 ? method.getParameterTypes()[0] : method.getReturnType();
+      return new MethodHandleInvoker(handle, type, Modifier.isStatic(method.getModifiers()));
+    } catch (Exception e) {
+      return super.createMethodInvoker(method);
+    }
+  }
+
+  @Override
+  public Invoker createGetFieldInvoker(Field field) {
+    try {
+      MethodHandle handle = unreflect(field, () -> lookup.unreflectGetter(field));
+      return new MethodHandleInvoker(handle, field.getType(), Modifier.isStatic(field.getModifiers()));
+    } catch (Exception e) {
+      return super.createGetFieldInvoker(field);
+    }
+  }
+
+  @Override
+  public Invoker createSetFieldInvoker(Field field) {
+    try {
+      MethodHandle handle = unreflect(field, () -> lookup.unreflectSetter(field));
+      return new MethodHandleInvoker(handle, field.getType(), Modifier.isStatic(field.getModifiers()));
+    } catch (Exception e) {
+      return super.createSetFieldInvoker(field);
+    }
+  }
+
+  private MethodHandle unreflect(AccessibleObject member, Unreflector unreflector) throws IllegalAccessException {
+    try {
+      return unreflector.unreflect();
+    } catch (IllegalAccessException e) {
+      if (Reflector.canControlMemberAccessible()) {
+        member.setAccessible(true);
+        return unreflector.unreflect();
+      } else {
+        throw e;
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface Unreflector {
+    MethodHandle unreflect() throws IllegalAccessException;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.property;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A property expression such as <code>order.customer.address[0].city</code> split into its segments once.
+ * <p>
+ * Compiled paths are immutable and cached by expression, so that resolving the same expression again does not
+ * tokenize it again.
+ *
+ * @since 3.5.10
+ */
+public final class PropertyPath {
+
+  private static final int MAX_CACHED_PATHS = 4096;
+  private static final ConcurrentMap<String, PropertyPath> CACHE = new ConcurrentHashMap<>();
+
+  private final String expression;
+  private final PropertyTokenizer[] segments;
+  private final PropertyTokenizer[] tokenizers;
+  private final String[] subExpressions;
+
+  private PropertyPath(String expression) {
+    this.expression = expression;
+    List<PropertyTokenizer> chain = new ArrayList<>();
+    List<String> remainders = new ArrayList<>();
+    String remainder = expression;
+    PropertyTokenizer tokenizer = new PropertyTokenizer(expression);
+    while (true) {
+      chain.add(tokenizer);
+      remainders.add(remainder);
+      if (!tokenizer.hasNext()) {
+        break;
+      }
+      remainder = tokenizer.getChildren();
+      tokenizer = tokenizer.next();
+    }
+    this.tokenizers = chain.toArray(new PropertyTokenizer[0]);
+    this.subExpressions = remainders.toArray(new String[0]);
+    this.segments = new PropertyTokenizer[tokenizers.length];
+    for (int i = 0; i < tokenizers.length; i++) {
+      segments[i] = tokenizers[i].hasNext() ? new PropertyTokenizer(tokenizers[i].getIndexedName()) : tokenizers[i];
+    }
+  }
+
+  /**
+   * Returns the compiled path for an expression.
+   *
+   * @param expression
+   *          the property expression
+   * @return the compiled path
+   */
+  public static PropertyPath compile(String expression) {
+    PropertyPath path = CACHE.get(expression);
+    if (path == null) {
+      path = new PropertyPath(expression);
+      // expressions generated at runtime (e.g. by foreach) must not grow the cache without limit
+      if (CACHE.size() < MAX_CACHED_PATHS) {
+        PropertyPath existing = CACHE.putIfAbsent(expression, path);
+        if (existing != null) {
+          path = existing;
+        }
+      }
+    }
+    return path;
+  }
+
+  public String getExpression() {
+    return expression;
+  }
+
+  /**
+   * Returns the number of segments, e.g. 4 for <code>order.customer.address[0].city</code>.
+   *
+   * @return the number of segments
+   */
+  public int size() {
+    return segments.length;
+  }
+
+  public boolean isSimple() {
+    return segments.length == 1;
+  }
+
+  /**
+   * Returns a segment without children, e.g. <code>address[0]</code> for index 2 of
+   * <code>order.customer.address[0].city</code>.
+   *
+   * @param index
+   *          the segment index
+   * @return the segment
+   */
+  public PropertyTokenizer getSegment(int index) {
+    return segments[index];
+  }
+
+  /**
+   * Returns the tokenizer of the expression that starts at a segment, e.g. <code>address[0].city</code> for index 2
+   * of <code>order.customer.address[0].city</code>.
+   *
+   * @param index
+   *          the segment index
+   * @return the tokenizer
+   */
+  public PropertyTokenizer getTokenizer(int index) {
+    return tokenizers[index];
+  }
+
+  /**
+   * Returns the expression that starts at a segment.
+   *
+   * @param index
+   *          the segment index
+   * @return the sub expression
+   */
+  public String getSubExpression(int index) {
+    return subExpressions[index];
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -63,6 +63,7 @@ public class DefaultParameterHandler implements ParameterHandler {
     ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     if (parameterMappings != null) {
+      ParameterBindingPlan plan = getParameterBindingPlan(parameterMappings);
       for (int i = 0; i < parameterMappings.size(); i++) {
         ParameterMapping parameterMapping = parameterMappings.get(i);
         if (parameterMapping.getMode() != ParameterMode.OUT) {
@@ -72,6 +73,8 @@ public class DefaultParameterHandler implements ParameterHandler {
             value = boundSql.getAdditionalParameter(propertyName);
           } else if (parameterObject == null) {
             value = null;
+          } else if (plan != null) {
+            value = plan.getValue(i, parameterObject);
           } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
             value = parameterObject;
           } else {
@@ -93,4 +96,13 @@ public class DefaultParameterHandler implements ParameterHandler {
     }
   }
 
+  private ParameterBindingPlan getParameterBindingPlan(List<ParameterMapping> parameterMappings) {
+    if (parameterObject == null || !(mappedStatement.getSqlSource() instanceof RawSqlSource)) {
+      return null;
+    }
+    ParameterBindingPlan plan = ((RawSqlSource) mappedStatement.getSqlSource())
+        .getParameterBindingPlan(configuration, parameterMappings, parameterObject);
+    return plan.isApplicableTo(parameterMappings) ? plan : null;
+  }
+
 }
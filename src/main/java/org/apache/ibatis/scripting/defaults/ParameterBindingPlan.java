@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.defaults;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyPath;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The resolved way of reading the value of every parameter mapping of a static statement from a parameter object of a
+ * given type.
+ * <p>
+ * Plain properties are read through the cached invokers of the parameter type (or with {@link Map#get} for maps), so
+ * that binding them does not create a {@link org.apache.ibatis.reflection.MetaObject} nor look up type handlers on
+ * every execution. Nested or indexed properties, and parameters with a custom object wrapper, still go through a meta
+ * object.
+ */
+final class ParameterBindingPlan {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private final List<ParameterMapping> parameterMappings;
+  private final Function<Object, Object>[] accessors;
+
+  @SuppressWarnings("unchecked")
+  ParameterBindingPlan(Configuration configuration, List<ParameterMapping> parameterMappings, Object parameterObject) {
+    this.parameterMappings = parameterMappings;
+    this.accessors = new Function[parameterMappings.size()];
+    Class<?> parameterType = parameterObject.getClass();
+    boolean hasTypeHandler = configuration.getTypeHandlerRegistry().hasTypeHandler(parameterType);
+    // a custom object wrapper takes priority over the map and bean access, as in MetaObject
+    boolean hasWrapper = configuration.getObjectWrapperFactory().hasWrapperFor(parameterObject);
+    boolean isMap = !hasWrapper && parameterObject instanceof Map;
+    boolean isBean = !hasWrapper && !(parameterObject instanceof Map) && !(parameterObject instanceof Collection);
+    Reflector reflector = isBean ? configuration.getReflectorFactory().findForClass(parameterType) : null;
+    for (int i = 0; i < accessors.length; i++) {
+      String propertyName = parameterMappings.get(i).getProperty();
+      PropertyPath path = PropertyPath.compile(propertyName);
+      PropertyTokenizer prop = path.getSegment(0);
+      if (hasTypeHandler) {
+        accessors[i] = Function.identity();
+      } else if (!path.isSimple() || prop.getIndex() != null) {
+        accessors[i] = object -> configuration.newMetaObject(object).getValue(propertyName);
+      } else if (isMap) {
+        accessors[i] = object -> ((Map<?, ?>) object).get(propertyName);
+      } else if (reflector != null && reflector.hasGetter(propertyName)) {
+        Invoker invoker = reflector.getGetInvoker(propertyName);
+        accessors[i] = object -> getBeanProperty(invoker, propertyName, object);
+      } else {
+        accessors[i] = object -> configuration.newMetaObject(object).getValue(propertyName);
+      }
+    }
+  }
+
+  /**
+   * Whether this plan was built for the given parameter mappings. Only statements whose mappings are resolved at
+   * startup hand out the same list on every execution.
+   */
+  boolean isApplicableTo(List<ParameterMapping> parameterMappings) {
+    return this.parameterMappings == parameterMappings;
+  }
+
+  Object getValue(int index, Object parameterObject) {
+    return accessors[index].apply(parameterObject);
+  }
+
+  private static Object getBeanProperty(Invoker invoker, String propertyName, Object object) {
+    try {
+      try {
+        return invoker.invoke(object, NO_ARGUMENTS);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not get property '" + propertyName + "' from " + object.getClass() + ".  Cause: " + t.toString(), t);
+    }
+  }
+}
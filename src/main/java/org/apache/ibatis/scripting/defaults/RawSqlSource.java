@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -16,14 +16,19 @@
 package org.apache.ibatis.scripting.defaults;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.scripting.xmltags.DynamicContext;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.util.MapUtil;
 
 /**
  * Static SqlSource. It is faster than {@link DynamicSqlSource} because mappings are
@@ -35,6 +40,7 @@ import org.apache.ibatis.session.Configuration;
 public class RawSqlSource implements SqlSource {
 
   private final SqlSource sqlSource;
+  private final ConcurrentMap<Class<?>, ParameterBindingPlan> parameterBindingPlans = new ConcurrentHashMap<>();
 
   public RawSqlSource(Configuration configuration, SqlNode rootSqlNode, Class<?> parameterType) {
     this(configuration, getSql(configuration, rootSqlNode), parameterType);
@@ -57,4 +63,10 @@ public class RawSqlSource implements SqlSource {
     return sqlSource.getBoundSql(parameterObject);
   }
 
+  ParameterBindingPlan getParameterBindingPlan(Configuration configuration, List<ParameterMapping> parameterMappings,
+      Object parameterObject) {
+    return MapUtil.computeIfAbsent(parameterBindingPlans, parameterObject.getClass(),
+        k -> new ParameterBindingPlan(configuration, parameterMappings, parameterObject));
+  }
+
 }
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,14 +35,19 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheInvalidation;
+import org.apache.ibatis.cache.CacheInvalidationBus;
+import org.apache.ibatis.cache.TableDependencies;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+import org.apache.ibatis.executor.AdaptiveExecutor;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
@@ -54,6 +60,7 @@ import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.AdaptiveFetchSize;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.io.VFS;
@@ -70,9 +77,11 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
+import org.apache.ibatis.mapping.ResultLimitBehavior;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.apache.ibatis.metrics.MetricsCollector;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.InterceptorChain;
@@ -125,6 +134,21 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected Integer batchFlushSize;
+  protected Integer maxResultRows;
+  protected ResultLimitBehavior resultLimitBehavior = ResultLimitBehavior.FAIL;
+  protected boolean adaptiveFetchSizeEnabled;
+  protected boolean parallelNestedQueriesEnabled;
+  protected boolean autoResultOrdered;
+  protected boolean compactMapResultsEnabled;
+  protected ExecutorService nestedQueryExecutorService;
+  protected ExecutorService asyncMapperExecutorService;
+  protected CacheInvalidationBus cacheInvalidationBus;
+  protected MetricsCollector metricsCollector;
+  protected boolean executionTracingEnabled;
+  protected Integer slowStatementThreshold;
+  protected boolean asyncJdbcLogging;
+  protected int jdbcLogSampleRate = 1;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -152,6 +176,8 @@ public class Configuration {
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry(this);
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
+  protected final TableDependencies tableDependencies = new TableDependencies(this);
+  protected final AdaptiveFetchSize adaptiveFetchSize = new AdaptiveFetchSize();
 
   protected final Map<String, MappedStatement> mappedStatements = new StrictMap<MappedStatement>("Mapped Statements collection")
       .conflictMessageProducer((savedValue, targetValue) ->
@@ -374,6 +400,9 @@ public class Configuration {
 
   public void setEnvironment(Environment environment) {
     this.environment = environment;
+    if (metricsCollector != null) {
+      bindDataSourceMetrics();
+    }
   }
 
   public AutoMappingBehavior getAutoMappingBehavior() {
@@ -501,6 +530,380 @@ public class Configuration {
     this.defaultFetchSize = defaultFetchSize;
   }
 
+  /**
+   * Gets the number of batched statements after which the batch executor executes the pending batches.
+   *
+   * @return the batch flush size, or {@code null} if batches are executed only when flushed explicitly
+   * @since 3.5.10
+   */
+  public Integer getBatchFlushSize() {
+    return batchFlushSize;
+  }
+
+  /**
+   * Sets the number of batched statements after which the batch executor executes the pending batches.
+   * <p>
+   * Generated keys of the executed chunk are assigned immediately and its results are returned by the next
+   * {@link SqlSession#flushStatements()}.
+   *
+   * @param batchFlushSize
+   *          the batch flush size, or {@code null} to execute batches only when flushed explicitly
+   * @since 3.5.10
+   */
+  public void setBatchFlushSize(Integer batchFlushSize) {
+    this.batchFlushSize = batchFlushSize;
+  }
+
+  /**
+   * Gets the maximum number of rows a query may hold in memory when its result is returned as a list.
+   *
+   * @return the maximum number of rows, or {@code null} if unlimited
+   * @since 3.5.10
+   */
+  public Integer getMaxResultRows() {
+    return maxResultRows;
+  }
+
+  /**
+   * Sets the maximum number of rows a query may hold in memory when its result is returned as a list. This value can be
+   * overridden by a statement setting.
+   *
+   * @param maxResultRows
+   *          the maximum number of rows, or {@code null} if unlimited
+   * @since 3.5.10
+   */
+  public void setMaxResultRows(Integer maxResultRows) {
+    this.maxResultRows = maxResultRows;
+  }
+
+  /**
+   * Gets what happens when a query exceeds the maximum number of result rows.
+   *
+   * @return the result limit behavior
+   * @since 3.5.10
+   */
+  public ResultLimitBehavior getResultLimitBehavior() {
+    return resultLimitBehavior;
+  }
+
+  /**
+   * Sets what happens when a query exceeds the maximum number of result rows. This value can be overridden by a
+   * statement setting.
+   *
+   * @param resultLimitBehavior
+   *          the result limit behavior
+   * @since 3.5.10
+   */
+  public void setResultLimitBehavior(ResultLimitBehavior resultLimitBehavior) {
+    this.resultLimitBehavior = resultLimitBehavior;
+  }
+
+  /**
+   * Returns whether selects without a fetch size use one learned from the number of rows they usually return.
+   *
+   * @return {@code true} when adaptive fetch sizing is enabled
+   * @since 3.5.10
+   */
+  public boolean isAdaptiveFetchSizeEnabled() {
+    return adaptiveFetchSizeEnabled;
+  }
+
+  /**
+   * Sets whether selects without a fetch size use one learned from the number of rows they usually return. Until a
+   * statement has been executed, the default fetch size applies.
+   *
+   * @param adaptiveFetchSizeEnabled
+   *          {@code true} to enable adaptive fetch sizing
+   * @since 3.5.10
+   */
+  public void setAdaptiveFetchSizeEnabled(boolean adaptiveFetchSizeEnabled) {
+    this.adaptiveFetchSizeEnabled = adaptiveFetchSizeEnabled;
+  }
+
+  /**
+   * Returns whether the eager nested selects of a row are run at the same time.
+   *
+   * @return {@code true} when nested selects run in parallel
+   * @since 3.5.10
+   */
+  public boolean isParallelNestedQueriesEnabled() {
+    return parallelNestedQueriesEnabled;
+  }
+
+  /**
+   * Sets whether the eager nested selects of a row are run at the same time. When a row has more than one, all but
+   * one of them run on other threads, each in its own transaction on a connection of the environment's data source
+   * with the isolation level of the session. These selects do not see changes the session has not committed yet.
+   *
+   * @param parallelNestedQueriesEnabled
+   *          {@code true} to run nested selects in parallel
+   * @since 3.5.10
+   */
+  public void setParallelNestedQueriesEnabled(boolean parallelNestedQueriesEnabled) {
+    this.parallelNestedQueriesEnabled = parallelNestedQueriesEnabled;
+  }
+
+  /**
+   * Returns whether statements with nested result maps are handled as if their rows were ordered.
+   *
+   * @return {@code true} when the order of nested results is detected
+   * @since 3.5.10
+   */
+  public boolean isAutoResultOrdered() {
+    return autoResultOrdered;
+  }
+
+  /**
+   * Sets whether statements with nested result maps are handled as if they had {@code resultOrdered="true"}, so that
+   * an object and its nested objects are released as soon as the rows of the next object start. Unlike
+   * {@code resultOrdered}, the order is checked: a statement whose rows of an object come back after the rows of
+   * another object fails instead of returning that object twice.
+   *
+   * @param autoResultOrdered
+   *          {@code true} to handle nested results as ordered
+   * @since 3.5.10
+   */
+  public void setAutoResultOrdered(boolean autoResultOrdered) {
+    this.autoResultOrdered = autoResultOrdered;
+  }
+
+  /**
+   * Returns whether the rows of statements with {@code resultType="map"} are compact maps.
+   *
+   * @return {@code true} when map rows share their keys
+   * @since 3.5.10
+   */
+  public boolean isCompactMapResultsEnabled() {
+    return compactMapResultsEnabled;
+  }
+
+  /**
+   * Sets whether the rows of statements whose result type is {@link java.util.Map} share the keys of their result set
+   * and only hold their values, instead of being {@link java.util.HashMap}s. Such rows are full, modifiable maps, but
+   * cannot be cast to {@code HashMap}.
+   *
+   * @param compactMapResultsEnabled
+   *          {@code true} to return compact map rows
+   * @since 3.5.10
+   */
+  public void setCompactMapResultsEnabled(boolean compactMapResultsEnabled) {
+    this.compactMapResultsEnabled = compactMapResultsEnabled;
+  }
+
+  /**
+   * Gets the thread pool that runs parallel nested selects.
+   *
+   * @return the thread pool, or {@code null} to use a shared pool of daemon threads
+   * @since 3.5.10
+   */
+  public ExecutorService getNestedQueryExecutorService() {
+    return nestedQueryExecutorService;
+  }
+
+  /**
+   * Sets the thread pool that runs parallel nested selects.
+   *
+   * @param nestedQueryExecutorService
+   *          the thread pool, or {@code null} to use a shared pool of daemon threads
+   * @since 3.5.10
+   */
+  public void setNestedQueryExecutorService(ExecutorService nestedQueryExecutorService) {
+    this.nestedQueryExecutorService = nestedQueryExecutorService;
+  }
+
+  /**
+   * Gets the thread pool that runs mapper methods returning a {@code CompletableFuture} or {@code CompletionStage}.
+   *
+   * @return the thread pool, or {@code null} to use a shared pool of daemon threads
+   * @since 3.5.10
+   */
+  public ExecutorService getAsyncMapperExecutorService() {
+    return asyncMapperExecutorService;
+  }
+
+  /**
+   * Sets the thread pool that runs mapper methods returning a {@code CompletableFuture} or {@code CompletionStage}.
+   * Each call runs in a session of its own, which is committed when the statement succeeds and closed before the
+   * future completes.
+   *
+   * @param asyncMapperExecutorService
+   *          the thread pool, or {@code null} to use a shared pool of daemon threads
+   * @since 3.5.10
+   */
+  public void setAsyncMapperExecutorService(ExecutorService asyncMapperExecutorService) {
+    this.asyncMapperExecutorService = asyncMapperExecutorService;
+  }
+
+  /**
+   * Gets the fetch sizes learned by adaptive fetch sizing.
+   *
+   * @return the adaptive fetch size
+   * @since 3.5.10
+   */
+  public AdaptiveFetchSize getAdaptiveFetchSize() {
+    return adaptiveFetchSize;
+  }
+
+  /**
+   * Gets the bus that sends second level cache invalidations to other nodes.
+   *
+   * @return the cache invalidation bus, or {@code null}
+   * @since 3.5.10
+   */
+  public CacheInvalidationBus getCacheInvalidationBus() {
+    return cacheInvalidationBus;
+  }
+
+  /**
+   * Sets the bus that sends second level cache invalidations to other nodes, and subscribes to it so that the
+   * invalidations of the other nodes are applied to the caches of this configuration. The bus that was set before is
+   * closed.
+   *
+   * @param cacheInvalidationBus
+   *          the cache invalidation bus
+   * @since 3.5.10
+   */
+  public void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+    if (this.cacheInvalidationBus != null && this.cacheInvalidationBus != cacheInvalidationBus) {
+      this.cacheInvalidationBus.close();
+    }
+    this.cacheInvalidationBus = cacheInvalidationBus;
+    if (cacheInvalidationBus != null) {
+      cacheInvalidationBus.subscribe(this::applyCacheInvalidation);
+    }
+  }
+
+  /**
+   * Gets the collector that receives the measurements of executors, pooled data sources and caches.
+   *
+   * @return the metrics collector, or {@code null} if metrics are disabled
+   * @since 3.5.10
+   */
+  public MetricsCollector getMetricsCollector() {
+    return metricsCollector;
+  }
+
+  /**
+   * Sets the collector that receives the measurements of executors, caches and the pooled data source of the
+   * environment.
+   *
+   * @param metricsCollector
+   *          the metrics collector, or {@code null} to disable metrics
+   * @since 3.5.10
+   */
+  public void setMetricsCollector(MetricsCollector metricsCollector) {
+    this.metricsCollector = metricsCollector;
+    bindDataSourceMetrics();
+  }
+
+  /**
+   * Returns whether the executors break down the time of each statement execution into phases.
+   *
+   * @return {@code true} when tracing was enabled or a slow statement threshold is set
+   * @since 3.5.10
+   * @see org.apache.ibatis.metrics.ExecutionTrace
+   */
+  public boolean isExecutionTracingEnabled() {
+    return executionTracingEnabled || slowStatementThreshold != null;
+  }
+
+  /**
+   * Sets whether the executors break down the time of each statement execution into phases and publish them to the
+   * metrics collector.
+   *
+   * @param executionTracingEnabled
+   *          {@code true} to trace statement executions
+   * @since 3.5.10
+   */
+  public void setExecutionTracingEnabled(boolean executionTracingEnabled) {
+    this.executionTracingEnabled = executionTracingEnabled;
+  }
+
+  /**
+   * Gets the time from which a statement execution is logged as slow, with its phases.
+   *
+   * @return the threshold in milliseconds, or {@code null} if slow statements are not logged
+   * @since 3.5.10
+   */
+  public Integer getSlowStatementThreshold() {
+    return slowStatementThreshold;
+  }
+
+  /**
+   * Sets the time from which a statement execution is logged as slow, with its phases. Setting a threshold enables
+   * execution tracing.
+   *
+   * @param slowStatementThreshold
+   *          the threshold in milliseconds, or {@code null} to not log slow statements
+   * @since 3.5.10
+   */
+  public void setSlowStatementThreshold(Integer slowStatementThreshold) {
+    this.slowStatementThreshold = slowStatementThreshold;
+  }
+
+  /**
+   * Returns whether the JDBC statement logs are formatted and written on a background thread.
+   *
+   * @return {@code true} when logging asynchronously
+   * @since 3.5.10
+   * @see org.apache.ibatis.logging.jdbc.AsyncJdbcLogWriter
+   */
+  public boolean isAsyncJdbcLogging() {
+    return asyncJdbcLogging;
+  }
+
+  /**
+   * Sets whether the JDBC statement logs are formatted and written on a background thread. Messages are dropped
+   * rather than waited for when the background thread falls behind.
+   *
+   * @param asyncJdbcLogging
+   *          {@code true} to log asynchronously
+   * @since 3.5.10
+   */
+  public void setAsyncJdbcLogging(boolean asyncJdbcLogging) {
+    this.asyncJdbcLogging = asyncJdbcLogging;
+  }
+
+  /**
+   * Gets the sampling rate of the JDBC statement logs.
+   *
+   * @return the rate, one in how many statement executions is logged
+   * @since 3.5.10
+   */
+  public int getJdbcLogSampleRate() {
+    return jdbcLogSampleRate;
+  }
+
+  /**
+   * Sets the sampling rate of the JDBC statement logs, that only applies to statements whose log has debug enabled.
+   *
+   * @param jdbcLogSampleRate
+   *          one in how many statement executions is logged, {@code 1} logs all of them
+   * @since 3.5.10
+   */
+  public void setJdbcLogSampleRate(int jdbcLogSampleRate) {
+    if (jdbcLogSampleRate < 1) {
+      throw new IllegalArgumentException("jdbcLogSampleRate must be positive but was " + jdbcLogSampleRate);
+    }
+    this.jdbcLogSampleRate = jdbcLogSampleRate;
+  }
+
+  private void bindDataSourceMetrics() {
+    if (environment != null && environment.getDataSource() instanceof PooledDataSource) {
+      ((PooledDataSource) environment.getDataSource()).setMetricsCollector(metricsCollector);
+    }
+  }
+
+  protected void applyCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.getNamespace() != null) {
+      if (caches.containsKey(invalidation.getNamespace())) {
+        caches.get(invalidation.getNamespace()).clear();
+      }
+    } else if (invalidation.getTables() != null) {
+      tableDependencies.invalidate(Arrays.asList(invalidation.getTables()));
+    }
+  }
+
   /**
    * Gets the default result set type.
    *
@@ -618,6 +1021,16 @@ public class Configuration {
     return interceptorChain.getInterceptors();
   }
 
+  /**
+   * Gets the versions of the tables that second level cache entries depend on.
+   *
+   * @return the table dependencies
+   * @since 3.5.10
+   */
+  public TableDependencies getTableDependencies() {
+    return tableDependencies;
+  }
+
   public LanguageDriverRegistry getLanguageRegistry() {
     return languageRegistry;
   }
@@ -695,11 +1108,13 @@ public class Configuration {
       executor = new BatchExecutor(this, transaction);
     } else if (ExecutorType.REUSE == executorType) {
       executor = new ReuseExecutor(this, transaction);
+    } else if (ExecutorType.ADAPTIVE == executorType) {
+      executor = new AdaptiveExecutor(this, transaction);
     } else {
       executor = new SimpleExecutor(this, transaction);
     }
     if (cacheEnabled) {
-      executor = new CachingExecutor(executor);
+      executor = new CachingExecutor(executor, cacheInvalidationBus);
     }
     executor = (Executor) interceptorChain.pluginAll(executor);
     return executor;
@@ -789,6 +1204,7 @@ public class Configuration {
 
   public void addMappedStatement(MappedStatement ms) {
     mappedStatements.put(ms.getId(), ms);
+    tableDependencies.addMappedStatement(ms);
   }
 
   public Collection<String> getMappedStatementNames() {
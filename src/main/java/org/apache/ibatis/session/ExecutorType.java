@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -19,5 +19,12 @@ package org.apache.ibatis.session;
  * @author Clinton Begin
  */
 public enum ExecutorType {
-  SIMPLE, REUSE, BATCH
+  SIMPLE, REUSE, BATCH,
+  /**
+   * Chooses per call between direct execution, statement reuse and batching.
+   *
+   * @since 3.5.10
+   * @see org.apache.ibatis.executor.AdaptiveExecutor
+   */
+  ADAPTIVE
 }
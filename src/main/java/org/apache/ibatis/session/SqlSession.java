@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.util.LongKeyMap;
 
 /**
  * The primary Java interface for working with MyBatis.
@@ -117,6 +118,37 @@ public interface SqlSession extends Closeable {
    */
   <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds);
 
+  /**
+   * The selectMap is a special case in that it is designed to convert a list
+   * of results into a Map based on one of the properties in the resulting
+   * objects.
+   * Unlike the other variants, the rows are put into a map sized for the expected
+   * number of results as they are read, without collecting them into a list first.
+   * Results are not cached in the session for this variant.
+   * @param <K> the returned Map keys type
+   * @param <V> the returned Map values type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param mapKey The property to use as key for each value in the list.
+   * @param expectedSize The number of results expected.
+   * @return Map containing key pair data.
+   * @since 3.5.10
+   */
+  <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, int expectedSize);
+
+  /**
+   * Same as {@link #selectMap(String, Object, String, int)}, but the keys are stored as unboxed
+   * {@code long} values. The key property must be a {@code long}, {@code int}, {@code short} or {@code byte}.
+   * @param <V> the returned Map values type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param mapKey The property to use as key for each value in the list.
+   * @param expectedSize The number of results expected.
+   * @return Map containing key pair data.
+   * @since 3.5.10
+   */
+  <V> LongKeyMap<V> selectLongKeyMap(String statement, Object parameter, String mapKey, int expectedSize);
+
   /**
    * A Cursor offers the same results as a List, except it fetches data lazily using an Iterator.
    * @param <T> the returned cursor element type.
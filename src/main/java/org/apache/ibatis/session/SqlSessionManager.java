@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import java.util.Properties;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.util.LongKeyMap;
 
 /**
  * @author Larry Meadors
@@ -181,6 +182,16 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectMap(statement, parameter, mapKey, rowBounds);
   }
 
+  @Override
+  public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, int expectedSize) {
+    return sqlSessionProxy.selectMap(statement, parameter, mapKey, expectedSize);
+  }
+
+  @Override
+  public <V> LongKeyMap<V> selectLongKeyMap(String statement, Object parameter, String mapKey, int expectedSize) {
+    return sqlSessionProxy.selectLongKeyMap(statement, parameter, mapKey, expectedSize);
+  }
+
   @Override
   public <T> Cursor<T> selectCursor(String statement) {
     return sqlSessionProxy.selectCursor(statement);
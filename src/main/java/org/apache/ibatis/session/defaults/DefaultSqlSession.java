@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -38,6 +38,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.util.LongKeyMap;
 
 /**
  * The default implementation for {@link SqlSession}.
@@ -106,6 +107,35 @@ public class DefaultSqlSession implements SqlSession {
     return mapResultHandler.getMappedResults();
   }
 
+  @Override
+  public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, int expectedSize) {
+    return selectMap(statement, parameter, mapKey, new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1)));
+  }
+
+  @Override
+  public <V> LongKeyMap<V> selectLongKeyMap(String statement, Object parameter, String mapKey, int expectedSize) {
+    final LongKeyMap<V> map = new LongKeyMap<>(expectedSize);
+    selectMap(statement, parameter, mapKey, map);
+    return map;
+  }
+
+  private <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, Map<K, V> map) {
+    final DefaultMapResultHandler<K, V> mapResultHandler = new DefaultMapResultHandler<>(mapKey, map,
+        configuration.getObjectFactory(), configuration.getObjectWrapperFactory(), configuration.getReflectorFactory());
+    if (configuration.hasStatement(statement) && configuration.getMappedStatement(statement).hasNestedResultMaps()) {
+      // rows of nested result maps are completed after they are handed out, so they cannot be streamed
+      final List<? extends V> list = selectList(statement, parameter);
+      final DefaultResultContext<V> context = new DefaultResultContext<>();
+      for (V o : list) {
+        context.nextResultObject(o);
+        mapResultHandler.handleResult(context);
+      }
+    } else {
+      select(statement, parameter, RowBounds.DEFAULT, mapResultHandler);
+    }
+    return mapResultHandler.getMappedResults();
+  }
+
   @Override
   public <T> Cursor<T> selectCursor(String statement) {
     return selectCursor(statement, null);
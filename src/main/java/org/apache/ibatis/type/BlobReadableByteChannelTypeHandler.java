@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The {@link TypeHandler} for {@link Blob}/{@link ReadableByteChannel}. A result is a channel over the binary stream
+ * of the {@link Blob}, which can be read while the row is being handled. A parameter is streamed into the statement as
+ * a binary stream, which fills both BLOB and LONGVARBINARY columns, with its length when it is a
+ * {@link SeekableByteChannel} such as a {@link java.nio.channels.FileChannel}.
+ *
+ * @since 3.5.10
+ */
+public class BlobReadableByteChannelTypeHandler extends BaseTypeHandler<ReadableByteChannel> {
+
+  /**
+   * Set a {@link ReadableByteChannel} into {@link PreparedStatement}, from its current position.
+   * @see PreparedStatement#setBinaryStream(int, java.io.InputStream, long)
+   * @see PreparedStatement#setBinaryStream(int, java.io.InputStream)
+   */
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, ReadableByteChannel parameter, JdbcType jdbcType)
+      throws SQLException {
+    if (parameter instanceof SeekableByteChannel) {
+      SeekableByteChannel channel = (SeekableByteChannel) parameter;
+      long length;
+      try {
+        length = channel.size() - channel.position();
+      } catch (IOException e) {
+        throw new TypeException("Error getting the size of the channel. Cause: " + e, e);
+      }
+      ps.setBinaryStream(i, Channels.newInputStream(channel), length);
+    } else {
+      ps.setBinaryStream(i, Channels.newInputStream(parameter));
+    }
+  }
+
+  @Override
+  public ReadableByteChannel getNullableResult(ResultSet rs, String columnName)
+      throws SQLException {
+    return toChannel(rs.getBlob(columnName));
+  }
+
+  @Override
+  public ReadableByteChannel getNullableResult(ResultSet rs, int columnIndex)
+      throws SQLException {
+    return toChannel(rs.getBlob(columnIndex));
+  }
+
+  @Override
+  public ReadableByteChannel getNullableResult(CallableStatement cs, int columnIndex)
+      throws SQLException {
+    return toChannel(cs.getBlob(columnIndex));
+  }
+
+  private ReadableByteChannel toChannel(Blob blob) throws SQLException {
+    if (blob == null) {
+      return null;
+    } else {
+      return Channels.newChannel(blob.getBinaryStream());
+    }
+  }
+
+}
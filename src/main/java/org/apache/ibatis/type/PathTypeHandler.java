@@ -0,0 +1,204 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The {@link TypeHandler} for {@link Blob}/{@link Path}, which moves large binary values between the database and
+ * files without holding them in memory.
+ * <p>
+ * A parameter is the file whose content is streamed into the statement as a binary stream, with its size as the
+ * length, which fills both BLOB and LONGVARBINARY columns. The file is opened only when the driver reads the parameter
+ * and closed once it has been read to the end. A result is a new temporary file the {@link Blob} has been copied to;
+ * the caller owns that file and has to delete it.
+ *
+ * @since 3.5.10
+ */
+public class PathTypeHandler extends BaseTypeHandler<Path> {
+
+  /**
+   * Set the content of a file into {@link PreparedStatement}.
+   * @see PreparedStatement#setBinaryStream(int, InputStream, long)
+   */
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, Path parameter, JdbcType jdbcType)
+      throws SQLException {
+    long length;
+    try {
+      length = Files.size(parameter);
+    } catch (IOException e) {
+      throw new TypeException("Error getting the size of the file '" + parameter + "'. Cause: " + e, e);
+    }
+    ps.setBinaryStream(i, new FileContentInputStream(parameter, length), length);
+  }
+
+  @Override
+  public Path getNullableResult(ResultSet rs, String columnName)
+      throws SQLException {
+    return toFile(rs.getBlob(columnName));
+  }
+
+  @Override
+  public Path getNullableResult(ResultSet rs, int columnIndex)
+      throws SQLException {
+    return toFile(rs.getBlob(columnIndex));
+  }
+
+  @Override
+  public Path getNullableResult(CallableStatement cs, int columnIndex)
+      throws SQLException {
+    return toFile(cs.getBlob(columnIndex));
+  }
+
+  private Path toFile(Blob blob) throws SQLException {
+    if (blob == null) {
+      return null;
+    }
+    Path file = null;
+    try (InputStream in = blob.getBinaryStream()) {
+      file = Files.createTempFile("mybatis-blob-", ".tmp");
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+      return file;
+    } catch (IOException e) {
+      deleteQuietly(file);
+      throw new TypeException("Error copying the blob to a file. Cause: " + e, e);
+    }
+  }
+
+  private void deleteQuietly(Path file) {
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  /**
+   * Opens the file when the driver starts reading it and closes it once the driver has read the given number of bytes,
+   * the end of the file, or a read fails, since drivers do not close the streams they are given. A statement that fails
+   * or a batch that is cleared before the driver reads the parameter leaves no file open, and neither does an empty
+   * file, which is never opened.
+   */
+  private static class FileContentInputStream extends InputStream {
+
+    private final Path file;
+    private long remaining;
+    private InputStream in;
+    private boolean closed;
+
+    FileContentInputStream(Path file, long length) {
+      this.file = file;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!open()) {
+        return -1;
+      }
+      int b = readOrClose(() -> in.read());
+      afterRead(b < 0 ? -1 : 1);
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!open()) {
+        return -1;
+      }
+      int n = readOrClose(() -> in.read(b, off, len));
+      afterRead(n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      if (n <= 0 || !open()) {
+        return 0;
+      }
+      long skipped = readOrClose(() -> in.skip(n));
+      afterRead(skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return closed || in == null ? 0 : in.available();
+    }
+
+    private boolean open() throws IOException {
+      if (closed || remaining <= 0) {
+        close();
+        return false;
+      }
+      if (in == null) {
+        in = Files.newInputStream(file);
+      }
+      return true;
+    }
+
+    private <T> T readOrClose(IOSupplier<T> read) throws IOException {
+      try {
+        return read.get();
+      } catch (IOException | RuntimeException e) {
+        close();
+        throw e;
+      }
+    }
+
+    private void afterRead(long n) throws IOException {
+      if (n < 0) {
+        close();
+      } else {
+        remaining -= n;
+        if (remaining <= 0) {
+          close();
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        if (in != null) {
+          in.close();
+        }
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface IOSupplier<T> {
+    T get() throws IOException;
+  }
+
+}
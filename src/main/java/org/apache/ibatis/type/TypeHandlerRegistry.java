@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -136,6 +138,9 @@ public final class TypeHandlerRegistry {
     register(JdbcType.NUMERIC, new BigDecimalTypeHandler());
 
     register(InputStream.class, new BlobInputStreamTypeHandler());
+    register(ReadableByteChannel.class, new BlobReadableByteChannelTypeHandler());
+    register(Path.class, JdbcType.BLOB, new PathTypeHandler());
+    register(Path.class, JdbcType.LONGVARBINARY, new PathTypeHandler());
     register(Byte[].class, new ByteObjectArrayTypeHandler());
     register(Byte[].class, JdbcType.BLOB, new BlobByteObjectArrayTypeHandler());
     register(Byte[].class, JdbcType.LONGVARBINARY, new BlobByteObjectArrayTypeHandler());
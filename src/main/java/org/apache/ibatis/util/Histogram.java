@@ -0,0 +1,108 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of non negative values, such as durations in nanoseconds, with power of two buckets.
+ * <p>
+ * Recording a value costs a couple of {@link LongAdder} increments, so it can be used on hot paths. Percentiles are
+ * approximated by the upper bound of the bucket they fall in.
+ *
+ * @since 3.5.10
+ */
+public class Histogram {
+
+  private static final int BUCKETS = 64;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  public Histogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long value) {
+    long v = Math.max(0, value);
+    buckets[BUCKETS - Long.numberOfLeadingZeros(v)].increment();
+    count.increment();
+    total.add(v);
+    max.accumulate(v);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotal() {
+    return total.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long n = getCount();
+    return n == 0 ? 0 : (double) getTotal() / n;
+  }
+
+  /**
+   * Gets an upper bound of the value below which the given fraction of the recorded values fall.
+   *
+   * @param fraction
+   *          the fraction, between 0 and 1, e.g. 0.99 for the 99th percentile
+   * @return the percentile, which is never larger than the maximum recorded value
+   */
+  public long getPercentile(double fraction) {
+    long n = getCount();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(fraction * n);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets[i].sum();
+      if (seen >= rank) {
+        long upperBound = i == 0 ? 0 : i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+        return Math.min(upperBound, getMax());
+      }
+    }
+    return getMax();
+  }
+
+  public void reset() {
+    for (LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+    count.reset();
+    total.reset();
+    max.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", mean=" + (long) getMean() + ", p50=" + getPercentile(0.5) + ", p99="
+        + getPercentile(0.99) + ", max=" + getMax();
+  }
+
+}
@@ -0,0 +1,243 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map with {@code long} keys stored unboxed in an open addressing table.
+ * <p>
+ * Besides the {@link java.util.Map} methods, which box their keys, it offers {@link #get(long)}, {@link #put(long, Object)},
+ * {@link #containsKey(long)} and {@link #remove(long)}. Lookups by {@code Integer}, {@code Short} and {@code Byte} keys
+ * find the entry of the same {@code long} value, so the map also serves {@code int} keys. Entries cannot be removed
+ * through the views.
+ *
+ * @param <V>
+ *          the value type
+ * @since 3.5.10
+ */
+public class LongKeyMap<V> extends AbstractMap<Long, V> {
+
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private Object[] values;
+  private boolean[] used;
+  private int size;
+  private int resizeThreshold;
+
+  public LongKeyMap() {
+    this(0);
+  }
+
+  /**
+   * Creates a map that holds the expected number of entries without being resized.
+   *
+   * @param expectedSize
+   *          the expected number of entries
+   */
+  public LongKeyMap(int expectedSize) {
+    allocate(tableSizeFor(expectedSize));
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    // keep the table at most 3/4 full
+    long minCapacity = Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1);
+    if (minCapacity > 1 << 30) {
+      throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+    }
+    return Integer.highestOneBit((int) minCapacity - 1) << 1;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    used = new boolean[capacity];
+    resizeThreshold = capacity / 4 * 3;
+  }
+
+  private int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+  }
+
+  private int indexOf(long key) {
+    int mask = keys.length - 1;
+    for (int i = slot(key); used[i]; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    int index = indexOf(key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  public boolean containsKey(long key) {
+    return indexOf(key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    int mask = keys.length - 1;
+    int i = slot(key);
+    while (used[i]) {
+      if (keys[i] == key) {
+        V previous = (V) values[i];
+        values[i] = value;
+        return previous;
+      }
+      i = (i + 1) & mask;
+    }
+    used[i] = true;
+    keys[i] = key;
+    values[i] = value;
+    if (++size > resizeThreshold) {
+      resize();
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int index = indexOf(key);
+    if (index < 0) {
+      return null;
+    }
+    V previous = (V) values[index];
+    // shift the following entries of the probe sequence back, so that lookups never stop at a hole
+    int mask = keys.length - 1;
+    int hole = index;
+    for (int i = (hole + 1) & mask; used[i]; i = (i + 1) & mask) {
+      int home = slot(keys[i]);
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        keys[hole] = keys[i];
+        values[hole] = values[i];
+        hole = i;
+      }
+    }
+    used[hole] = false;
+    values[hole] = null;
+    size--;
+    return previous;
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    boolean[] oldUsed = used;
+    allocate(keys.length << 1);
+    int mask = keys.length - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = slot(oldKeys[j]);
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private static boolean isIntegral(Object key) {
+    return key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte;
+  }
+
+  @Override
+  public V get(Object key) {
+    return isIntegral(key) ? get(((Number) key).longValue()) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return isIntegral(key) && containsKey(((Number) key).longValue());
+  }
+
+  @Override
+  public V put(Long key, V value) {
+    return put(key.longValue(), value);
+  }
+
+  @Override
+  public V remove(Object key) {
+    return isIntegral(key) ? remove(((Number) key).longValue()) : null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(used, false);
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  @Override
+  public Set<Entry<Long, V>> entrySet() {
+    return new AbstractSet<Entry<Long, V>>() {
+      @Override
+      public Iterator<Entry<Long, V>> iterator() {
+        return new Iterator<Entry<Long, V>>() {
+          private int next = advance(0);
+
+          private int advance(int from) {
+            int i = from;
+            while (i < used.length && !used[i]) {
+              i++;
+            }
+            return i;
+          }
+
+          @Override
+          public boolean hasNext() {
+            return next < used.length;
+          }
+
+          @Override
+          @SuppressWarnings("unchecked")
+          public Entry<Long, V> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry<Long, V> entry = MapUtil.entry(keys[next], (V) values[next]);
+            next = advance(next + 1);
+            return entry;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+}
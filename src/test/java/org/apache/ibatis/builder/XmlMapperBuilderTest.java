@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -59,6 +59,7 @@ class XmlMapperBuilderTest {
       assertThat(mappedStatement.getResultSetType()).isEqualTo(ResultSetType.SCROLL_SENSITIVE);
       assertThat(mappedStatement.isFlushCacheRequired()).isFalse();
       assertThat(mappedStatement.isUseCache()).isFalse();
+      assertThat(mappedStatement.isStreaming()).isTrue();
     }
   }
 
@@ -0,0 +1,156 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  @Test
+  void shouldHandLoadedValueToWaiters() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default") {
+      @Override
+      public Object getObject(Object key) {
+        reads.incrementAndGet();
+        return super.getObject(key);
+      }
+    });
+    cache.setShareLoadedValue(true);
+    assertThat(cache.getObject("key")).isNull();
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<Future<Object>> waiters = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        waiters.add(executor.submit(() -> cache.getObject("key")));
+      }
+      Thread.sleep(200);
+      cache.putObject("key", "value");
+      for (Future<Object> waiter : waiters) {
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(reads.get()).isEqualTo(1);
+    assertThat(cache.getWaitTimes().getCount()).isEqualTo(3);
+    assertThat(cache.getWaitTimes("key").getCount()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldFallThroughWhenTooManyWaiters() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setMaxWaiters(1);
+    assertThat(cache.getObject("key")).isNull();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      Thread.sleep(100);
+      Future<Object> fallThrough = executor.submit(() -> cache.getObject("key"));
+      assertThat(fallThrough.get(5, TimeUnit.SECONDS)).isNull();
+      assertThat(waiter.isDone()).isFalse();
+      assertThat(cache.getFallThroughCount()).isEqualTo(1);
+      cache.putObject("key", "value");
+      assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldNotBlockThreadLoadingTheValue() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertThat(cache.getObject("key")).isNull();
+    assertThat(cache.getObject("key")).isNull();
+    cache.putObject("key", "value");
+    assertThat(cache.getObject("key")).isEqualTo("value");
+  }
+
+  @Test
+  void shouldTimeOutWaitingForLoad() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setTimeout(50);
+    assertThat(cache.getObject("key")).isNull();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      Exception e = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+      assertThat(e.getCause()).isInstanceOf(CacheException.class);
+    } finally {
+      executor.shutdownNow();
+      cache.removeObject("key");
+    }
+  }
+
+  @Test
+  void shouldReleaseLockFromAnotherThread() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertThat(cache.getObject("key")).isNull();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(() -> cache.putObject("key", "value")).get(5, TimeUnit.SECONDS);
+      assertThat(executor.submit(() -> cache.getObject("key")).get(5, TimeUnit.SECONDS)).isEqualTo("value");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldNotReleaseLockOfLoaderAfterFallingThrough() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setMaxWaiters(1);
+    cache.setShareLoadedValue(true);
+    TransactionalCache loader = new TransactionalCache(cache);
+    assertThat(loader.getObject("key")).isNull();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      Thread.sleep(100);
+      TransactionalCache fallThrough = new TransactionalCache(cache);
+      assertThat(executor.submit(() -> fallThrough.getObject("key")).get(5, TimeUnit.SECONDS)).isNull();
+      fallThrough.putObject("key", "other");
+      fallThrough.commit();
+      Thread.sleep(100);
+      assertThat(waiter.isDone()).isFalse();
+
+      loader.putObject("key", "value");
+      loader.commit();
+      assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  @Test
+  void shouldExpireEntriesAfterWrite() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setExpireAfterWrite(200);
+    cache.putObject(0, 0);
+    Thread.sleep(100);
+    cache.putObject(1, 1);
+    assertEquals(0, cache.getObject(0));
+    Thread.sleep(150);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldExpireEntriesAfterAccess() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setExpireAfterAccess(300);
+    cache.putObject(0, 0);
+    cache.putObject(1, 1);
+    for (int i = 0; i < 4; i++) {
+      Thread.sleep(100);
+      assertEquals(0, cache.getObject(0));
+    }
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  void shouldRefreshEntriesAhead() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setExpireAfterWrite(60000);
+    cache.setRefreshAhead(60000);
+    cache.putObject(0, "stale");
+    ExpiringCache.setLoader(() -> "fresh");
+    try {
+      assertEquals("stale", cache.getObject(0));
+    } finally {
+      ExpiringCache.setLoader(null);
+    }
+    for (int i = 0; i < 50 && !"fresh".equals(cache.getObject(0)); i++) {
+      Thread.sleep(100);
+    }
+    assertEquals("fresh", cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotRefreshEntriesAfterShutdown() throws Exception {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setExpireAfterWrite(60000);
+    cache.setRefreshAhead(60000);
+    cache.putObject(0, "stale");
+    cache.shutdown();
+    ExpiringCache.setLoader(() -> "fresh");
+    try {
+      assertEquals("stale", cache.getObject(0));
+    } finally {
+      ExpiringCache.setLoader(null);
+    }
+    Thread.sleep(100);
+    assertEquals("stale", cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotRefreshEntriesWithoutLoader() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setExpireAfterWrite(60000);
+    cache.setRefreshAhead(60000);
+    cache.putObject(0, "stale");
+    assertEquals("stale", cache.getObject(0));
+    assertEquals("stale", cache.getObject(0));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setExpireAfterWrite(60000);
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    ExpiringCache cache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    cache.setExpireAfterWrite(60000);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+}
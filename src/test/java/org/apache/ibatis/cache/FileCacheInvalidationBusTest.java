@@ -0,0 +1,129 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.ibatis.cache.impl.FileCacheInvalidationBus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileCacheInvalidationBusTest {
+
+  @Test
+  void shouldDeliverInvalidationsToOtherNodesOnly(@TempDir Path directory) throws Exception {
+    FileCacheInvalidationBus bus1 = new FileCacheInvalidationBus(directory.toFile(), 20);
+    FileCacheInvalidationBus bus2 = new FileCacheInvalidationBus(directory.toFile(), 20);
+    List<CacheInvalidation> received1 = new CopyOnWriteArrayList<>();
+    List<CacheInvalidation> received2 = new CopyOnWriteArrayList<>();
+    bus1.subscribe(received1::add);
+    bus2.subscribe(received2::add);
+    try {
+      bus1.publish(CacheInvalidation.namespace("users"));
+      bus1.publish(CacheInvalidation.tables("USERS", "ORDERS"));
+      for (int i = 0; i < 100 && received2.size() < 2; i++) {
+        Thread.sleep(20);
+      }
+      assertThat(received2).hasSize(2);
+      assertThat(received2.get(0).getNamespace()).isEqualTo("users");
+      assertThat(received2.get(1).getTables()).containsExactly("USERS", "ORDERS");
+      Thread.sleep(100);
+      assertThat(received1).isEmpty();
+      assertThat(received2).hasSize(2);
+    } finally {
+      bus1.close();
+      bus2.close();
+    }
+  }
+
+  @Test
+  void shouldNotReplayOldInvalidations(@TempDir Path directory) throws Exception {
+    FileCacheInvalidationBus bus1 = new FileCacheInvalidationBus(directory.toFile(), 20);
+    bus1.publish(CacheInvalidation.namespace("users"));
+    FileCacheInvalidationBus bus2 = new FileCacheInvalidationBus(directory.toFile(), 20);
+    List<CacheInvalidation> received = new CopyOnWriteArrayList<>();
+    bus2.subscribe(received::add);
+    try {
+      Thread.sleep(100);
+      assertThat(received).isEmpty();
+    } finally {
+      bus1.close();
+      bus2.close();
+    }
+  }
+
+  @Test
+  void shouldIgnoreFilesThatAreNotInvalidations(@TempDir Path directory) throws Exception {
+    FileCacheInvalidationBus bus = new FileCacheInvalidationBus(directory.toFile(), 20);
+    List<CacheInvalidation> received = new CopyOnWriteArrayList<>();
+    bus.subscribe(received::add);
+    try {
+      try (OutputStream out = Files.newOutputStream(directory.resolve("1-other-1.invalidation"));
+          ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+        objectOut.writeObject(CacheInvalidation.namespace("users"));
+      }
+      Files.write(directory.resolve("1-other-2.invalidation"), "namespace\nusers\norders\n".getBytes());
+      Files.write(directory.resolve("1-other-3.invalidation"), "tables\nUSERS\n".getBytes());
+      for (int i = 0; i < 100 && received.isEmpty(); i++) {
+        Thread.sleep(20);
+      }
+      Thread.sleep(100);
+      assertThat(received).hasSize(1);
+      assertThat(received.get(0).getTables()).containsExactly("USERS");
+    } finally {
+      bus.close();
+    }
+  }
+
+  @Test
+  void shouldRejectDirectoriesAccessibleToOtherUsers(@TempDir Path directory) throws Exception {
+    assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+    assertThatThrownBy(() -> new FileCacheInvalidationBus(directory.toFile(), 20))
+        .isInstanceOf(CacheException.class);
+  }
+
+  @Test
+  void shouldCreateMissingDirectoriesForTheOwnerOnly(@TempDir Path directory) throws Exception {
+    assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    Path invalidations = directory.resolve("invalidations");
+    new FileCacheInvalidationBus(invalidations.toFile(), 20).close();
+    assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(invalidations))).isEqualTo("rwx------");
+  }
+
+  @Test
+  void shouldNotFailTheCommitWhenPublishingFails(@TempDir Path directory) throws Exception {
+    Path invalidations = directory.resolve("invalidations");
+    FileCacheInvalidationBus bus = new FileCacheInvalidationBus(invalidations.toFile(), 20);
+    try {
+      Files.delete(invalidations);
+      bus.publish(CacheInvalidation.namespace("users"));
+    } finally {
+      bus.close();
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PooledDataSourceHousekeepingTest {
+
+  private PooledDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    dataSource = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.setPoolHousekeepingInterval(0);
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldOpenConnectionsUpToTheMinimumIdle() throws Exception {
+    dataSource.setPoolMinimumIdleConnections(2);
+    dataSource.housekeep();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldCloseConnectionsIdleForTooLong() throws Exception {
+    releaseAll(3);
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(3);
+
+    dataSource.setPoolMinimumIdleConnections(1);
+    dataSource.setPoolIdleTimeout(1);
+    Thread.sleep(10);
+    dataSource.housekeep();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotReturnConnectionsPastTheirLifetime() throws Exception {
+    dataSource.setPoolMaximumLifetime(1);
+    Connection conn = dataSource.getConnection();
+    Thread.sleep(10);
+    conn.close();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isZero();
+  }
+
+  @Test
+  void shouldCloseInvalidIdleConnections() throws Exception {
+    Connection conn = dataSource.getConnection();
+    Connection realConn = PooledDataSource.unwrapConnection(conn);
+    conn.close();
+    realConn.close();
+
+    dataSource.housekeep();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isZero();
+    assertThat(dataSource.getPoolState().getBadConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRecordTheValidationOfIdleConnections() throws Exception {
+    dataSource.setPoolPingEnabled(true);
+    dataSource.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+    dataSource.setPoolPingConnectionsNotUsedFor(60000);
+    Connection conn = dataSource.getConnection();
+    conn.close();
+
+    dataSource.housekeep();
+    PooledConnection idle = dataSource.getPoolState().idleConnections.get(0);
+    assertThat(idle.getLastValidatedTimestamp()).isPositive();
+  }
+
+  @Test
+  void shouldValidateEveryIdleConnectionOnce() throws Exception {
+    dataSource.setPoolPingEnabled(true);
+    dataSource.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+    releaseAll(3);
+
+    Thread.sleep(10);
+    dataSource.housekeep();
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(3);
+    assertThat(dataSource.getPoolState().idleConnections).allMatch(conn -> conn.getLastValidatedTimestamp() > 0);
+  }
+
+  @Test
+  void shouldRunInTheBackground() throws Exception {
+    dataSource.setPoolMinimumIdleConnections(1);
+    dataSource.setPoolHousekeepingInterval(10);
+    long deadline = System.currentTimeMillis() + 5000;
+    while (dataSource.getPoolState().getIdleConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(dataSource.getPoolState().getIdleConnectionCount()).isEqualTo(1);
+  }
+
+  private void releaseAll(int count) throws Exception {
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      connections.add(dataSource.getConnection());
+    }
+    for (Connection conn : connections) {
+      conn.close();
+    }
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PooledStatementCacheTest {
+
+  private static final String SELECT_SUPPLIER = "select name from supplier where suppid = ?";
+  private static final String SELECT_ACCOUNT = "select email from account where userid = ?";
+
+  private PooledDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    dataSource = BaseDataTest.createPooledDataSource(BaseDataTest.JPETSTORE_PROPERTIES);
+    BaseDataTest.runScript(dataSource, BaseDataTest.JPETSTORE_DDL);
+    dataSource.setPoolMaximumActiveConnections(1);
+    dataSource.setPoolStatementCacheSize(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Test
+  void shouldReuseStatementsAcrossCheckouts() throws Exception {
+    PreparedStatement first = prepareAndRelease(SELECT_SUPPLIER);
+    PreparedStatement second = prepareAndRelease(SELECT_SUPPLIER);
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.isClosed()).isFalse();
+    assertThat(dataSource.getPoolState().getStatementCacheHitCount()).isEqualTo(1);
+    assertThat(dataSource.getPoolState().getStatementCacheMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldKeySameSqlByGeneratedKeysMode() throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.prepareStatement(SELECT_SUPPLIER).close();
+      PreparedStatement ps = connection.prepareStatement(SELECT_SUPPLIER, Statement.RETURN_GENERATED_KEYS);
+      ps.close();
+    }
+    assertThat(dataSource.getPoolState().getStatementCacheHitCount()).isZero();
+  }
+
+  @Test
+  void shouldEvictAndCloseLeastRecentlyUsedStatements() throws Exception {
+    PreparedStatement supplier = prepareAndRelease(SELECT_SUPPLIER);
+    prepareAndRelease(SELECT_ACCOUNT);
+
+    assertThat(supplier.isClosed()).isTrue();
+    assertThat(prepareAndRelease(SELECT_SUPPLIER)).isNotSameAs(supplier);
+  }
+
+  @Test
+  void shouldPrepareAnotherStatementWhileTheCachedOneIsInUse() throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      PreparedStatement ps1 = connection.prepareStatement(SELECT_SUPPLIER);
+      PreparedStatement ps2 = connection.prepareStatement(SELECT_SUPPLIER);
+      PreparedStatement real1 = ps1.unwrap(PreparedStatement.class);
+      PreparedStatement real2 = ps2.unwrap(PreparedStatement.class);
+      assertThat(real2).isNotSameAs(real1);
+      ps1.close();
+      ps2.close();
+      assertThat(real1.isClosed()).isFalse();
+      assertThat(real2.isClosed()).isTrue();
+    }
+  }
+
+  @Test
+  void shouldResetStatementWhenReleased() throws Exception {
+    int defaultFetchSize;
+    try (Connection connection = dataSource.getConnection()) {
+      PreparedStatement ps = connection.prepareStatement(SELECT_SUPPLIER);
+      defaultFetchSize = ps.getFetchSize();
+      assertThat(ps.getConnection()).isSameAs(connection);
+      ps.setFetchSize(defaultFetchSize + 10);
+      ps.setInt(1, 1);
+      ResultSet rs = ps.executeQuery();
+      ps.close();
+      assertThat(rs.isClosed()).isTrue();
+      assertThat(ps.isClosed()).isTrue();
+      assertThatThrownBy(ps::executeQuery).isInstanceOf(SQLException.class).hasMessage("Statement is closed.");
+    }
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement ps = connection.prepareStatement(SELECT_SUPPLIER)) {
+      assertThat(ps.getFetchSize()).isEqualTo(defaultFetchSize);
+    }
+  }
+
+  @Test
+  void shouldKeepOnlyTheResultSetsOfTheCurrentExecution() throws Exception {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement ps = connection.prepareStatement(SELECT_SUPPLIER)) {
+      ps.setInt(1, 1);
+      ResultSet first = ps.executeQuery();
+      ResultSet second = ps.executeQuery();
+      assertThat(first.isClosed()).isTrue();
+      assertThat(second.isClosed()).isFalse();
+    }
+  }
+
+  @Test
+  void shouldNotCacheWhenDisabled() throws Exception {
+    dataSource.setPoolStatementCacheSize(0);
+    PreparedStatement statement = prepareAndRelease(SELECT_SUPPLIER);
+    assertThat(statement.isClosed()).isTrue();
+  }
+
+  private PreparedStatement prepareAndRelease(String sql) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      PreparedStatement ps = connection.prepareStatement(sql);
+      PreparedStatement real = ps.unwrap(PreparedStatement.class);
+      ps.close();
+      return real;
+    }
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -19,8 +19,10 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 import java.util.Enumeration;
 
 import org.junit.jupiter.api.Disabled;
@@ -40,6 +42,18 @@ class UnpooledDataSourceTest {
     assertEquals(before, countRegisteredDrivers());
   }
 
+  @Test
+  void shouldConnectThroughTheDriverDirectly() throws Exception {
+    UnpooledDataSource dataSource = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:directdriver", "sa", "");
+    dataSource.setDirectDriverConnect(true);
+    try (Connection connection = dataSource.getConnection()) {
+      assertTrue(connection.isValid(1));
+    }
+    dataSource.setUrl("jdbc:unknown:directdriver");
+    SQLException e = assertThrows(SQLException.class, dataSource::getConnection);
+    assertEquals("08001", e.getSQLState());
+  }
+
   @Disabled("Requires MySQL server and a driver.")
   @Test
   void shouldRegisterDynamicallyLoadedDriver() throws Exception {
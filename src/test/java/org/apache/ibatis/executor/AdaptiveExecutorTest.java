@@ -0,0 +1,119 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveExecutorTest extends BaseExecutorTest {
+
+  @Test
+  void shouldBatchConsecutiveUpdatesOfTheSameStatement() throws Exception {
+    DataSource ds = createBlogDataSource();
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      int[] rows = new int[5];
+      for (int i = 0; i < rows.length; i++) {
+        rows[i] = executor.update(insertStatement, new Author(200 + i, "user" + i, "******", "user@apache.org", null, Section.NEWS));
+      }
+      assertEquals(1, rows[0]);
+      assertEquals(1, rows[1]);
+      for (int i = AdaptiveExecutor.BATCH_THRESHOLD - 1; i < rows.length; i++) {
+        assertEquals(BatchExecutor.BATCH_UPDATE_RETURN_VALUE, rows[i]);
+      }
+
+      // the query executes the pending batch first
+      List<Author> authors = executor.query(selectStatement, 204, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+      assertEquals("user4", authors.get(0).getUsername());
+
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(3, results.get(0).getParameterObjects().size());
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldExecuteInterleavedUpdatesDirectly() throws Exception {
+    DataSource ds = createBlogDataSource();
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      for (int i = 0; i < 4; i++) {
+        int rows = executor.update(insertStatement, new Author(300 + i, "user" + i, "******", "user@apache.org", null, Section.NEWS));
+        assertEquals(1, rows);
+        List<Author> authors = executor.query(selectStatement, 300 + i, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        assertEquals(1, authors.size());
+      }
+      assertTrue(executor.flushStatements().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldDiscardPendingBatchOnRollback() throws Exception {
+    DataSource ds = createBlogDataSource();
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      for (int i = 0; i < AdaptiveExecutor.BATCH_THRESHOLD; i++) {
+        executor.update(insertStatement, new Author(400 + i, "user" + i, "******", "user@apache.org", null, Section.NEWS));
+      }
+      executor.rollback(true);
+      List<Author> authors = executor.query(selectStatement, 400 + AdaptiveExecutor.BATCH_THRESHOLD - 1, RowBounds.DEFAULT,
+          Executor.NO_RESULT_HANDLER);
+      assertTrue(authors.isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldCreateAdaptiveExecutorForExecutorType() {
+    config.setCacheEnabled(false);
+    assertTrue(config.newExecutor(null, ExecutorType.ADAPTIVE) instanceof AdaptiveExecutor);
+  }
+
+  @Override
+  protected Executor createExecutor(Transaction transaction) {
+    return new AdaptiveExecutor(config, transaction);
+  }
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -416,6 +416,29 @@ class BaseExecutorTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldLearnFetchSizeFromRowsRead() throws Exception {
+    config.setAdaptiveFetchSizeEnabled(true);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement selectAuthors = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+      List<Author> authors = executor.query(selectAuthors, null, RowBounds.DEFAULT, context -> { });
+      assertEquals(0, authors.size());
+      assertEquals(3, config.getAdaptiveFetchSize().getFetchSize(selectAuthors));
+
+      MappedStatement selectPosts = ExecutorTestHelper.prepareSelectPostsForBlogMappedStatement(config);
+      config.addMappedStatement(ExecutorTestHelper.prepareComplexSelectBlogMappedStatement(config));
+      config.addMappedStatement(selectPosts);
+      List<Post> posts = executor.query(selectPosts, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(2, posts.size());
+      // the joined rows of the tags and comments are counted, not the posts
+      assertTrue(config.getAdaptiveFetchSize().getFetchSize(selectPosts) > posts.size() + 1);
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Test
   void shouldMapConstructorResults() throws Exception {
 
@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.Transaction;
+import org.junit.jupiter.api.Test;
+
+class JdbcLogSamplingTest {
+
+  @Test
+  void shouldLogOneInNStatementExecutions() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setJdbcLogSampleRate(3);
+    Transaction transaction = mock(Transaction.class);
+    when(transaction.getConnection()).thenReturn(mock(Connection.class));
+    Log log = mock(Log.class);
+    when(log.isDebugEnabled()).thenReturn(true);
+    SimpleExecutor executor = new SimpleExecutor(configuration, transaction);
+
+    int logged = 0;
+    for (int i = 0; i < 9; i++) {
+      if (Proxy.isProxyClass(executor.getConnection(log).getClass())) {
+        logged++;
+      }
+    }
+
+    assertThat(logged).isEqualTo(3);
+  }
+
+  @Test
+  void shouldNotProxyConnectionWhenDebugIsDisabled() throws Exception {
+    Configuration configuration = new Configuration();
+    Transaction transaction = mock(Transaction.class);
+    Connection connection = mock(Connection.class);
+    when(transaction.getConnection()).thenReturn(connection);
+    SimpleExecutor executor = new SimpleExecutor(configuration, transaction);
+
+    assertThat(executor.getConnection(mock(Log.class))).isSameAs(connection);
+  }
+
+}
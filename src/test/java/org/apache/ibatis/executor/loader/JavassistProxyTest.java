@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -19,7 +19,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Set;
 
 import javassist.util.proxy.Proxy;
 
@@ -48,6 +50,26 @@ class JavassistProxyTest extends SerializableProxyTest {
     assertTrue(author2 instanceof Proxy);
   }
 
+  @Test
+  void shouldReuseTheProxyClassOfAType() {
+    Set<String> lazyProperties = Collections.singleton("bio");
+    Object proxy1 = proxyFactory.createProxy(author, new ResultLoaderMap(), lazyProperties, new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    Object proxy2 = proxyFactory.createProxy(author, new ResultLoaderMap(), lazyProperties, new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    assertSame(proxy1.getClass(), proxy2.getClass());
+  }
+
+  @Test
+  void shouldOnlyInterceptAccessorsOfLazyProperties() {
+    ResultLoaderMap loader = new ResultLoaderMap();
+    loader.addLoader("bio", null, null);
+    loader.addLoader("email", null, null);
+    Author proxy = (Author) proxyFactory.createProxy(author, loader, Collections.singleton("bio"), new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    proxy.setEmail("other@somewhere.com");
+    assertTrue(loader.hasLoader("email"));
+    proxy.setBio("other");
+    assertFalse(loader.hasLoader("bio"));
+  }
+
   @Test
   void shouldFailCallingAnUnloadedProperty() {
     // yes, it must go in uppercase
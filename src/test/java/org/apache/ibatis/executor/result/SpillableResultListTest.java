@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SpillableResultListTest {
+
+  @Test
+  void shouldDeleteTheSpillFileOnClose() {
+    Set<String> before = spillFiles();
+    SpillableResultList<Integer> list = spilledList();
+    assertThat(spillFiles()).hasSize(before.size() + 1);
+    list.close();
+    assertThat(spillFiles()).isEqualTo(before);
+  }
+
+  @Test
+  void shouldDeleteTheSpillFileOfDiscardedLists() throws Exception {
+    Set<String> before = spillFiles();
+    spilledList();
+    assertThat(spillFiles()).hasSize(before.size() + 1);
+    for (int i = 0; i < 50; i++) {
+      System.gc();
+      Thread.sleep(20);
+      // files of collected lists are deleted when another list spills
+      spilledList().close();
+      if (spillFiles().equals(before)) {
+        break;
+      }
+    }
+    assertThat(spillFiles()).isEqualTo(before);
+  }
+
+  private static SpillableResultList<Integer> spilledList() {
+    SpillableResultList<Integer> list = new SpillableResultList<>(2, 2);
+    for (int i = 0; i < 5; i++) {
+      list.add(i);
+    }
+    assertThat(list.isSpilled()).isTrue();
+    assertThat(list).containsExactly(0, 1, 2, 3, 4);
+    return list;
+  }
+
+  private static Set<String> spillFiles() {
+    String[] names = new File(System.getProperty("java.io.tmpdir"))
+        .list((dir, name) -> name.startsWith("mybatis-result-") && name.endsWith(".spill"));
+    return names == null ? new HashSet<>() : new HashSet<>(Arrays.asList(names));
+  }
+
+}
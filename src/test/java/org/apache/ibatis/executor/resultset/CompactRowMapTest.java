@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.jupiter.api.Test;
+
+class CompactRowMapTest {
+
+  private final CompactRowMap.Keys keys = new CompactRowMap.Keys(Arrays.asList("ID", "NAME", "EMAIL"));
+
+  @Test
+  void shouldBehaveLikeAHashMap() {
+    CompactRowMap row = new CompactRowMap(keys);
+    assertThat(row).isEmpty();
+    assertThat(row.put("ID", 1)).isNull();
+    assertThat(row.put("EMAIL", null)).isNull();
+    assertThat(row.put("extra", "x")).isNull();
+    assertThat(row.put("ID", 2)).isEqualTo(1);
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("ID", 2);
+    expected.put("EMAIL", null);
+    expected.put("extra", "x");
+    assertThat(row).isEqualTo(expected).hasSameHashCodeAs(expected);
+    assertThat(row.containsKey("EMAIL")).isTrue();
+    assertThat(row.containsKey("NAME")).isFalse();
+    assertThat(row.get("NAME")).isNull();
+    assertThat(row.keySet()).containsExactly("ID", "EMAIL", "extra");
+
+    assertThat(row.remove("EMAIL")).isNull();
+    assertThat(row.remove("extra")).isEqualTo("x");
+    assertThat(row.remove("missing")).isNull();
+    assertThat(row).hasSize(1).containsEntry("ID", 2);
+    row.clear();
+    assertThat(row).isEmpty();
+  }
+
+  @Test
+  void shouldShareKeysBetweenRows() {
+    CompactRowMap first = new CompactRowMap(keys);
+    CompactRowMap second = new CompactRowMap(keys);
+    first.put("NAME", "jim");
+    second.put("NAME", "sally");
+    assertThat(first.get("NAME")).isEqualTo("jim");
+    assertThat(second.get("NAME")).isEqualTo("sally");
+  }
+
+  @Test
+  void shouldModifyEntriesThroughTheIterator() {
+    CompactRowMap row = new CompactRowMap(keys);
+    row.put("ID", 1);
+    row.put("NAME", "jim");
+    row.put("extra", "x");
+    for (Iterator<Entry<String, Object>> iterator = row.entrySet().iterator(); iterator.hasNext();) {
+      Entry<String, Object> entry = iterator.next();
+      if ("NAME".equals(entry.getKey())) {
+        entry.setValue("sally");
+      } else {
+        iterator.remove();
+      }
+    }
+    assertThat(row).hasSize(1).containsEntry("NAME", "sally");
+  }
+
+  @Test
+  void shouldSerializeAsLinkedHashMap() throws Exception {
+    CompactRowMap row = new CompactRowMap(keys);
+    row.put("ID", 1);
+    row.put("NAME", "jim");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(row);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Object copy = in.readObject();
+      assertThat(copy).isInstanceOf(LinkedHashMap.class).isEqualTo(row);
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveFetchSizeTest {
+
+  private final Configuration configuration = new Configuration();
+  private final AdaptiveFetchSize adaptiveFetchSize = new AdaptiveFetchSize();
+
+  private MappedStatement select(String id) {
+    return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "select 1"),
+        SqlCommandType.SELECT).build();
+  }
+
+  @Test
+  void shouldNotAdviseBeforeFirstExecution() {
+    assertThat(adaptiveFetchSize.getFetchSize(select("unknown"))).isNull();
+  }
+
+  @Test
+  void shouldFollowTheUsualRowCount() {
+    MappedStatement ms = select("lookup");
+    adaptiveFetchSize.record(ms, 1);
+    assertThat(adaptiveFetchSize.getFetchSize(ms)).isEqualTo(2);
+
+    // a single large result only moves the estimate partially
+    adaptiveFetchSize.record(ms, 101);
+    assertThat(adaptiveFetchSize.getFetchSize(ms)).isEqualTo(22);
+  }
+
+  @Test
+  void shouldCapFetchSize() {
+    MappedStatement ms = select("export");
+    adaptiveFetchSize.record(ms, 1_000_000);
+    assertThat(adaptiveFetchSize.getFetchSize(ms)).isEqualTo(AdaptiveFetchSize.MAX_FETCH_SIZE);
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,12 +15,15 @@
  */
 package org.apache.ibatis.executor.statement;
 
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -44,6 +47,9 @@ class BaseStatementHandlerTest {
     @Mock
     Statement statement;
 
+    @Mock
+    Connection connection;
+
     private MappedStatement.Builder mappedStatementBuilder;
 
     @BeforeEach
@@ -53,7 +59,7 @@ class BaseStatementHandlerTest {
 
     @AfterEach
     void resetMocks() {
-        reset(configuration, statement);
+        reset(configuration, statement, connection);
     }
 
     @Test
@@ -145,4 +151,68 @@ class BaseStatementHandlerTest {
         verify(statement).setQueryTimeout(10);
     }
 
+    @Test
+    void specifyStreamingOnMysql() throws SQLException {
+        configuration.setDatabaseId("mysql");
+        mappedStatementBuilder.streaming(true);
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+        handler.setFetchSize(statement);
+
+        verify(statement).setFetchSize(Integer.MIN_VALUE); // stream row by row
+    }
+
+    @Test
+    void specifyStreamingOnPostgresql() throws SQLException {
+        configuration.setDatabaseId("postgresql");
+        mappedStatementBuilder.streaming(true);
+        doReturn(connection).when(statement).getConnection();
+        doReturn(false).when(connection).getAutoCommit();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+        handler.setFetchSize(statement);
+
+        verify(statement).setFetchSize(ResultSetStreaming.DEFAULT_FETCH_SIZE);
+    }
+
+    @Test
+    void specifyStreamingOnPostgresqlInAutoCommitMode() throws SQLException {
+        configuration.setDatabaseId("postgresql");
+        mappedStatementBuilder.streaming(true);
+        doReturn(connection).when(statement).getConnection();
+        doReturn(true).when(connection).getAutoCommit();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+        handler.setFetchSize(statement);
+
+        verify(connection, never()).setAutoCommit(anyBoolean()); // the driver only uses a cursor outside auto-commit
+        verify(statement, never()).setFetchSize(anyInt());
+    }
+
+    @Test
+    void specifyStreamingWithMappedStatementFetchSize() throws SQLException {
+        configuration.setDatabaseId("oracle");
+        mappedStatementBuilder.streaming(true).fetchSize(500);
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, null, null, null);
+        handler.setFetchSize(statement);
+
+        verify(statement).setFetchSize(500);
+    }
+
+    @Test
+    void specifyAdaptiveFetchSize() throws SQLException {
+        configuration.setAdaptiveFetchSizeEnabled(true);
+        configuration.setDefaultFetchSize(100);
+        MappedStatement mappedStatement = mappedStatementBuilder.build();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatement, null, null, null, null);
+        handler.setFetchSize(statement);
+        verify(statement).setFetchSize(100); // nothing learned yet, apply the default fetch size
+
+        configuration.getAdaptiveFetchSize().record(mappedStatement, 5);
+        handler.setFetchSize(statement);
+        verify(statement).setFetchSize(6); // the usual row count and one row to see the end
+    }
+
 }
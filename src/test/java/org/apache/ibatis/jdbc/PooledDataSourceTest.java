@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -85,4 +85,36 @@ class PooledDataSourceTest extends BaseDataTest {
     JDBCConnection realConnection = (JDBCConnection) PooledDataSource.unwrapConnection(c);
     c.close();
   }
+
+  @Test
+  void shouldWarmUpIdleConnectionsOnFirstUse() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumIdleConnections(3);
+      ds.setPoolWarmUpConnections(5);
+      Connection c = ds.getConnection();
+      assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      c.close();
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+      ds.warmUp();
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldOpenConnectionsThroughTheDriverDirectly() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setDirectDriverConnect(true);
+      assertTrue(ds.isDirectDriverConnect());
+      try (Connection c = ds.getConnection()) {
+        assertTrue(c.isValid(1));
+      }
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
 }
@@ -0,0 +1,95 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.logging.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.logging.Log;
+import org.junit.jupiter.api.Test;
+
+class AsyncJdbcLogWriterTest {
+
+  @Test
+  void shouldFormatMessagesOnTheWriterThread() throws Exception {
+    AsyncJdbcLogWriter writer = new AsyncJdbcLogWriter(16);
+    Log log = mock(Log.class);
+    Thread caller = Thread.currentThread();
+    Thread[] formatter = new Thread[1];
+
+    writer.submit(log, false, () -> {
+      formatter[0] = Thread.currentThread();
+      return "debug";
+    });
+    writer.submit(log, true, () -> "trace");
+
+    assertThat(writer.flush(1000)).isTrue();
+    verify(log).debug("debug");
+    verify(log).trace("trace");
+    assertThat(formatter[0]).isNotSameAs(caller);
+  }
+
+  @Test
+  void shouldDropMessagesWhenFull() throws Exception {
+    AsyncJdbcLogWriter writer = new AsyncJdbcLogWriter(1);
+    Log log = mock(Log.class);
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    writer.submit(log, false, () -> {
+      blocked.countDown();
+      try {
+        release.await(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "first";
+    });
+    assertThat(blocked.await(1, TimeUnit.SECONDS)).isTrue();
+
+    writer.submit(log, false, () -> "second");
+    writer.submit(log, false, () -> "third");
+    release.countDown();
+
+    assertThat(writer.flush(1000)).isTrue();
+    assertThat(writer.getDroppedCount()).isEqualTo(1);
+    verify(log).debug("first");
+    verify(log).debug("second");
+  }
+
+  @Test
+  void shouldCaptureParametersBeforeTheyAreCleared() throws Exception {
+    AsyncJdbcLogWriter writer = new AsyncJdbcLogWriter(16);
+    Log log = mock(Log.class);
+    when(log.isDebugEnabled()).thenReturn(true);
+    PreparedStatement ps = PreparedStatementLogger.newInstance(mock(PreparedStatement.class), log, 1, writer);
+
+    ps.setInt(1, 10);
+    ps.execute();
+    ps.setString(1, "a");
+    ps.execute();
+
+    assertThat(writer.flush(1000)).isTrue();
+    verify(log).debug("==> Parameters: 10(Integer)");
+    verify(log).debug("==> Parameters: a(String)");
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -19,10 +19,12 @@ import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.BDDAssertions.then;
 
 import java.lang.reflect.Field;
+import java.util.Properties;
 
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +45,24 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testExpiring() {
+    Properties properties = new Properties();
+    properties.setProperty("expireAfterWrite", "60000");
+    Cache cache = new CacheBuilder("test").properties(properties).build();
+
+    Assertions.assertThat(cache).isInstanceOf(ExpiringCache.class);
+  }
+
+  @Test
+  void testRefreshAheadRequiresExpireAfterWrite() {
+    Properties properties = new Properties();
+    properties.setProperty("refreshAhead", "1000");
+    when(() -> new CacheBuilder("test").properties(properties).build());
+    then(caughtException()).isInstanceOf(CacheException.class)
+      .hasMessageContaining("Failed cache initialization for 'test' on 'org.apache.ibatis.cache.decorators.ExpiringCache'");
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
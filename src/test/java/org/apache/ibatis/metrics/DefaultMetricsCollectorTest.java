@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.metrics.DefaultMetricsCollector.CacheMetrics;
+import org.apache.ibatis.metrics.DefaultMetricsCollector.StatementMetrics;
+import org.junit.jupiter.api.Test;
+
+class DefaultMetricsCollectorTest {
+
+  @Test
+  void shouldAggregateStatementMetrics() {
+    DefaultMetricsCollector collector = new DefaultMetricsCollector();
+    collector.recordStatement("select", 1000, 3);
+    collector.recordStatement("select", 3000, 2);
+    collector.recordBatch("insert", 10);
+    collector.recordBatch("insert", 20);
+
+    StatementMetrics select = collector.getStatementMetrics("select");
+    assertThat(select.getExecutions()).isEqualTo(2);
+    assertThat(select.getRows()).isEqualTo(5);
+    assertThat(select.getLatencies().getMean()).isEqualTo(2000.0);
+    assertThat(select.getLatencies().getMax()).isEqualTo(3000);
+
+    StatementMetrics insert = collector.getStatementMetrics("insert");
+    assertThat(insert.getBatchSizes().getCount()).isEqualTo(2);
+    assertThat(insert.getBatchSizes().getTotal()).isEqualTo(30);
+  }
+
+  @Test
+  void shouldAggregateCacheMetrics() {
+    DefaultMetricsCollector collector = new DefaultMetricsCollector();
+    collector.recordCacheMiss("users");
+    collector.recordCacheHit("users");
+    collector.recordCacheHit("users");
+    collector.recordCacheHit("users");
+    collector.recordCacheEviction("users");
+
+    CacheMetrics users = collector.getCacheMetrics("users");
+    assertThat(users.getHits()).isEqualTo(3);
+    assertThat(users.getMisses()).isEqualTo(1);
+    assertThat(users.getEvictions()).isEqualTo(1);
+    assertThat(users.getHitRatio()).isEqualTo(0.75);
+  }
+
+  @Test
+  void shouldReset() {
+    DefaultMetricsCollector collector = new DefaultMetricsCollector();
+    collector.recordStatement("select", 1000, 1);
+    collector.recordCacheHit("users");
+    collector.recordConnectionCheckout(500);
+
+    collector.reset();
+
+    assertThat(collector.getStatementMetrics()).isEmpty();
+    assertThat(collector.getCacheMetrics()).isEmpty();
+    assertThat(collector.getConnectionCheckoutTimes().getCount()).isZero();
+  }
+
+  @Test
+  void shouldExportMetricsThroughJmx() throws Exception {
+    DefaultMetricsCollector collector = new DefaultMetricsCollector();
+    JmxMetricsExporter exporter = new JmxMetricsExporter(collector);
+    exporter.register("DefaultMetricsCollectorTest");
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = exporter.getObjectName();
+      assertThat(server.isRegistered(name)).isTrue();
+
+      collector.recordStatement("select", 1000, 4);
+      collector.recordCacheHit("users");
+      collector.recordConnectionCheckout(200);
+
+      assertThat(server.getAttribute(name, "statement[select].count")).isEqualTo(1L);
+      assertThat(server.getAttribute(name, "statement[select].rows")).isEqualTo(4L);
+      assertThat(server.getAttribute(name, "cache[users].hits")).isEqualTo(1L);
+      assertThat(server.getAttribute(name, "cache[users].hitRatio")).isEqualTo(1.0);
+      assertThat(server.getAttribute(name, "connectionCheckout.count")).isEqualTo(1L);
+      assertThat(server.getMBeanInfo(name).getAttributes()).extracting("name").contains("statement[select].p99Nanos");
+
+      server.invoke(name, "reset", null, null);
+      assertThat(collector.getStatementMetrics()).isEmpty();
+    } finally {
+      exporter.unregister();
+    }
+    assertThat(exporter.getObjectName()).isNull();
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class ExecutionTraceTest {
+
+  private MappedStatement statement(Configuration configuration, String id) {
+    return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "select 1"),
+        SqlCommandType.SELECT).build();
+  }
+
+  @Test
+  void shouldNotTraceWhenDisabled() {
+    Configuration configuration = new Configuration();
+    assertThat(ExecutionTrace.start(statement(configuration, "select"))).isNull();
+    assertThat(ExecutionTrace.current()).isNull();
+    assertThat(ExecutionTrace.mark()).isZero();
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, 0);
+  }
+
+  @Test
+  void shouldEnableTracingWithSlowStatementThreshold() {
+    Configuration configuration = new Configuration();
+    configuration.setSlowStatementThreshold(1000);
+    assertThat(configuration.isExecutionTracingEnabled()).isTrue();
+  }
+
+  @Test
+  void shouldRecordPhasesAsSelfTime() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setExecutionTracingEnabled(true);
+    DefaultMetricsCollector metrics = new DefaultMetricsCollector();
+    configuration.setMetricsCollector(metrics);
+
+    ExecutionTrace outer = ExecutionTrace.start(statement(configuration, "outer"));
+    long mapping = ExecutionTrace.mark();
+    Thread.sleep(5);
+    ExecutionTrace inner = ExecutionTrace.start(statement(configuration, "inner"));
+    assertThat(ExecutionTrace.current()).isSameAs(inner);
+    long execute = ExecutionTrace.mark();
+    Thread.sleep(20);
+    ExecutionTrace.record(ExecutionPhase.EXECUTE, execute);
+    inner.finish();
+    assertThat(ExecutionTrace.current()).isSameAs(outer);
+    ExecutionTrace.record(ExecutionPhase.RESULT_MAPPING, mapping);
+    outer.finish();
+    assertThat(ExecutionTrace.current()).isNull();
+
+    long innerExecute = inner.getPhaseNanos(ExecutionPhase.EXECUTE);
+    assertThat(innerExecute).isGreaterThanOrEqualTo(20_000_000L);
+    assertThat(outer.getPhaseNanos(ExecutionPhase.EXECUTE)).isEqualTo(innerExecute);
+    assertThat(outer.getPhaseNanos(ExecutionPhase.RESULT_MAPPING)).isGreaterThanOrEqualTo(5_000_000L)
+        .isLessThan(outer.getElapsedNanos() - innerExecute + 1);
+    assertThat(outer.toString()).startsWith("outer took ").contains("execute: ", "result_mapping: ");
+
+    assertThat(metrics.getStatementMetrics("inner").getPhaseTimes(ExecutionPhase.EXECUTE).getCount()).isEqualTo(1);
+    assertThat(metrics.getStatementMetrics("outer").getPhaseTimes(ExecutionPhase.RESULT_MAPPING).getCount())
+        .isEqualTo(1);
+    assertThat(metrics.getStatementMetrics("outer").getPhaseTimes(ExecutionPhase.PREPARE).getCount()).isZero();
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.MethodHandleReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.junit.jupiter.api.Test;
+
+class MethodHandleInvokerFactoryTest {
+
+  private final ReflectorFactory reflectorFactory = new MethodHandleReflectorFactory();
+
+  @Test
+  void shouldAccessPropertiesThroughMethodHandles() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    assertThat(reflector.getSetInvoker("name")).isInstanceOf(MethodHandleInvoker.class);
+    assertThat(reflector.getGetInvoker("name")).isInstanceOf(MethodHandleInvoker.class);
+    assertThat(reflector.getSetInvoker("count")).isInstanceOf(MethodHandleInvoker.class);
+    assertThat(reflector.getGetInvoker("count")).isInstanceOf(MethodHandleInvoker.class);
+
+    Bean bean = new Bean();
+    reflector.getSetInvoker("name").invoke(bean, new Object[] { "foo" });
+    reflector.getSetInvoker("count").invoke(bean, new Object[] { 3 });
+    assertEquals("foo", reflector.getGetInvoker("name").invoke(bean, new Object[0]));
+    assertEquals(3, reflector.getGetInvoker("count").invoke(bean, null));
+    assertEquals(String.class, reflector.getGetInvoker("name").getType());
+    assertEquals(int.class, reflector.getSetInvoker("count").getType());
+  }
+
+  @Test
+  void shouldAccessStaticField() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    reflector.getSetInvoker("shared").invoke(null, new Object[] { "bar" });
+    assertEquals("bar", reflector.getGetInvoker("shared").invoke(new Bean(), new Object[0]));
+  }
+
+  @Test
+  void shouldWrapExceptionThrownByAccessor() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> reflector.getGetInvoker("broken").invoke(new Bean(), new Object[0]));
+    assertThat(e.getTargetException()).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldNotWrapArgumentMismatches() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    assertThrows(IllegalArgumentException.class,
+        () -> reflector.getSetInvoker("name").invoke(new Bean(), new Object[] { 1 }));
+    assertThrows(IllegalArgumentException.class,
+        () -> reflector.getSetInvoker("count").invoke(new Bean(), new Object[] { null }));
+    assertThrows(IllegalArgumentException.class,
+        () -> reflector.getGetInvoker("name").invoke("not a bean", new Object[0]));
+    assertThrows(NullPointerException.class, () -> reflector.getGetInvoker("name").invoke(null, new Object[0]));
+  }
+
+  @Test
+  void shouldWorkWithMetaObject() {
+    Bean bean = new Bean();
+    MetaObject metaObject = MetaObject.forObject(bean, new DefaultObjectFactory(), new DefaultObjectWrapperFactory(),
+        reflectorFactory);
+    metaObject.setValue("name", "baz");
+    metaObject.setValue("count", 7);
+    assertEquals("baz", metaObject.getValue("name"));
+    assertEquals(7, metaObject.getValue("count"));
+  }
+
+  static class Bean {
+    private static String shared;
+    private String name;
+    private int count;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getBroken() {
+      throw new IllegalStateException("broken");
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.property;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PropertyPathTest {
+
+  @Test
+  void shouldSplitNestedExpression() {
+    PropertyPath path = PropertyPath.compile("order.customer.address[0].city");
+    assertEquals(4, path.size());
+    assertFalse(path.isSimple());
+
+    assertEquals("order", path.getSegment(0).getName());
+    assertNull(path.getSegment(0).getChildren());
+    assertEquals("address", path.getSegment(2).getName());
+    assertEquals("0", path.getSegment(2).getIndex());
+    assertEquals("address[0]", path.getSegment(2).getIndexedName());
+    assertNull(path.getSegment(2).getChildren());
+
+    assertEquals("customer.address[0].city", path.getSubExpression(1));
+    assertEquals("address[0].city", path.getTokenizer(1).getChildren());
+    assertEquals("city", path.getSegment(3).getName());
+    assertEquals("city", path.getSubExpression(3));
+  }
+
+  @Test
+  void shouldCompileSimpleExpression() {
+    PropertyPath path = PropertyPath.compile("name");
+    assertTrue(path.isSimple());
+    assertSame(path.getTokenizer(0), path.getSegment(0));
+    assertEquals("name", path.getSegment(0).getName());
+  }
+
+  @Test
+  void shouldCacheCompiledPath() {
+    assertSame(PropertyPath.compile("a.b[key].c"), PropertyPath.compile("a.b[key].c"));
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.PreparedStatement;
@@ -27,9 +28,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.builder.StaticSqlSource;
 import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.MapWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeException;
@@ -70,6 +77,87 @@ class DefaultParameterHandlerTest {
 
   }
 
+  @Test
+  void shouldBindStaticStatementParametersFromBean() throws SQLException {
+    final Configuration config = new Configuration();
+    RawSqlSource sqlSource = new RawSqlSource(config, "select * from author where id = #{id} and username = #{username}", Author.class);
+    MappedStatement mappedStatement = new MappedStatement.Builder(config, "testSelect", sqlSource, SqlCommandType.SELECT).build();
+
+    for (int i = 1; i <= 2; i++) {
+      Author author = new Author(i, "user" + i);
+      BoundSql boundSql = mappedStatement.getBoundSql(author);
+      PreparedStatement ps = mock(PreparedStatement.class);
+      new DefaultParameterHandler(mappedStatement, author, boundSql).setParameters(ps);
+      verify(ps).setInt(1, i);
+      verify(ps).setString(2, "user" + i);
+    }
+  }
+
+  @Test
+  void shouldBindStaticStatementParametersFromMap() throws SQLException {
+    final Configuration config = new Configuration();
+    RawSqlSource sqlSource = new RawSqlSource(config, "select * from author where id = #{id} and username = #{author.username}", Map.class);
+    MappedStatement mappedStatement = new MappedStatement.Builder(config, "testSelect", sqlSource, SqlCommandType.SELECT).build();
+
+    Map<String, Object> param = new HashMap<>();
+    param.put("id", 3);
+    param.put("author", new Author(4, "user4"));
+    BoundSql boundSql = mappedStatement.getBoundSql(param);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    new DefaultParameterHandler(mappedStatement, param, boundSql).setParameters(ps);
+    verify(ps).setInt(1, 3);
+    verify(ps).setString(2, "user4");
+  }
+
+  @Test
+  void shouldBindMapParametersThroughACustomObjectWrapper() throws SQLException {
+    final Configuration config = new Configuration();
+    config.setObjectWrapperFactory(new ObjectWrapperFactory() {
+      @Override
+      public boolean hasWrapperFor(Object object) {
+        return object instanceof Map;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public ObjectWrapper getWrapperFor(MetaObject metaObject, Object object) {
+        return new MapWrapper(metaObject, (Map<String, Object>) object) {
+          @Override
+          public Object get(PropertyTokenizer prop) {
+            return "wrapped-" + super.get(prop);
+          }
+        };
+      }
+    });
+    RawSqlSource sqlSource = new RawSqlSource(config, "select * from author where username = #{username}", Map.class);
+    MappedStatement mappedStatement = new MappedStatement.Builder(config, "testSelect", sqlSource, SqlCommandType.SELECT).build();
+
+    Map<String, Object> param = new HashMap<>();
+    param.put("username", "user5");
+    BoundSql boundSql = mappedStatement.getBoundSql(param);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    new DefaultParameterHandler(mappedStatement, param, boundSql).setParameters(ps);
+    verify(ps).setString(1, "wrapped-user5");
+  }
+
+  public static class Author {
+    private final Integer id;
+    private final String username;
+
+    public Author(Integer id, String username) {
+      this.id = id;
+      this.username = username;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+  }
+
   MappedStatement getMappedStatement() {
     final Configuration config = new Configuration();
     final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
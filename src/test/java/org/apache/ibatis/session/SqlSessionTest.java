@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -46,6 +46,7 @@ import org.apache.ibatis.domain.blog.mappers.AuthorMapper;
 import org.apache.ibatis.domain.blog.mappers.AuthorMapperWithMultipleHandlers;
 import org.apache.ibatis.domain.blog.mappers.AuthorMapperWithRowBounds;
 import org.apache.ibatis.domain.blog.mappers.BlogMapper;
+import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.io.Resources;
@@ -53,6 +54,7 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.apache.ibatis.util.LongKeyMap;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -179,6 +181,35 @@ class SqlSessionTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldSelectAllAuthorsAsPresizedMap() {
+    try (SqlSession session = sqlMapper.openSession()) {
+      final Map<Integer, Author> authors = session.selectMap("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors", null, "id", 2);
+      assertEquals(2, authors.size());
+      for (Map.Entry<Integer, Author> authorEntry : authors.entrySet()) {
+        assertEquals(authorEntry.getKey(), (Integer) authorEntry.getValue().getId());
+      }
+    }
+  }
+
+  @Test
+  void shouldSelectAllAuthorsAsLongKeyMap() {
+    try (SqlSession session = sqlMapper.openSession()) {
+      final LongKeyMap<Author> authors = session.selectLongKeyMap("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors", null, "id", 2);
+      assertEquals(2, authors.size());
+      assertEquals("jim", authors.get(101L).getUsername());
+      assertEquals("sally", authors.get(102).getUsername());
+    }
+  }
+
+  @Test
+  void shouldRejectNonIntegralKeysOfLongKeyMap() {
+    try (SqlSession session = sqlMapper.openSession()) {
+      Assertions.assertThrows(PersistenceException.class,
+          () -> session.selectLongKeyMap("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors", null, "username", 2));
+    }
+  }
+
   @Test
   void shouldSelectCountOfPosts() {
     try (SqlSession session = sqlMapper.openSession()) {
@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper_method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncMapperMethodTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_mapper_method/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_mapper_method/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRunIndependentSelectsConcurrently() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> user = mapper.getUser(1);
+      CompletableFuture<List<User>> users = mapper.getUsers();
+      CompletableFuture<Map<Integer, User>> usersById = mapper.getUsersById();
+      CompletableFuture<Optional<String>> missing = mapper.getUserName(3).toCompletableFuture();
+      CompletableFuture.allOf(user, users, usersById, missing).get();
+      assertThat(user.get().getName()).isEqualTo("User1");
+      assertThat(users.get()).extracting(User::getName).containsExactly("User1", "User2");
+      assertThat(usersById.get()).containsOnlyKeys(1, 2);
+      assertThat(missing.get()).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldCommitTheSessionOfAnUpdate() throws Exception {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    sqlSessionFactory.getConfiguration().setAsyncMapperExecutorService(executorService);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      user.setId(3);
+      user.setName("User3");
+      assertThat(mapper.insertUser(user).get()).isEqualTo(1);
+      assertThat(mapper.getUserName(3).toCompletableFuture().get()).contains("User3");
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyWhenTheStatementFails() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CompletableFuture<List<User>> users = sqlSession.getMapper(Mapper.class).getUsersFromMissingTable();
+      assertThatThrownBy(users::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(PersistenceException.class);
+    }
+  }
+
+  @Test
+  void shouldRejectAsynchronousCursors() {
+    sqlSessionFactory.getConfiguration().addMapper(CursorMapper.class);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorMapper mapper = sqlSession.getMapper(CursorMapper.class);
+      assertThatThrownBy(mapper::getUsers).isInstanceOf(BindingException.class).hasMessageContaining("Cursor");
+    }
+  }
+
+}
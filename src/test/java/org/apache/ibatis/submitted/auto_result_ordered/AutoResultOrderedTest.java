@@ -0,0 +1,95 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.auto_result_ordered;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AutoResultOrderedTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/auto_result_ordered/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/auto_result_ordered/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapOrderedRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogsOrdered();
+      assertThat(blogs).extracting(Blog::getTitle).containsExactly("Blog1", "Blog2");
+      assertThat(blogs.get(0).getPosts()).extracting(Post::getSubject).containsExactly("Post1", "Post3");
+      assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post2", "Post4");
+    }
+  }
+
+  @Test
+  void shouldPassCompleteObjectsToAResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Integer> postCounts = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).getBlogsOrdered(context -> postCounts.add(context.getResultObject().getPosts().size()));
+      assertThat(postCounts).containsExactly(2, 2);
+    }
+  }
+
+  @Test
+  void shouldMapUnorderedRowsWithoutReleasingObjectsEarly() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogsUnordered();
+      assertThat(blogs).extracting(Blog::getTitle).containsExactly("Blog1", "Blog2");
+      assertThat(blogs.get(0).getPosts()).extracting(Post::getSubject).containsExactly("Post1", "Post3");
+      assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post2", "Post4");
+    }
+  }
+
+  @Test
+  void shouldTellApartIdsWithTheSameHashCode() {
+    assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogsByTitle();
+      assertThat(blogs).extracting(Blog::getTitle).containsExactly("Aa", "BB", "Blog1", "Blog2");
+      assertThat(blogs).extracting(Blog::getId).containsExactly(3, 4, 1, 2);
+      assertThat(blogs.get(2).getPosts()).extracting(Post::getSubject).containsExactly("Post1", "Post3");
+    }
+  }
+
+  @Test
+  void shouldMapUnorderedRowsWhenDisabled() {
+    sqlSessionFactory.getConfiguration().setAutoResultOrdered(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogsUnordered();
+      assertThat(blogs).extracting(Blog::getTitle).containsExactly("Blog1", "Blog2");
+      assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post2", "Post4");
+    }
+  }
+
+}
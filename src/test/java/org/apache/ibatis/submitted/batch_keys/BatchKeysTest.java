@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.apache.ibatis.submitted.batch_keys;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.io.Reader;
 import java.sql.Connection;
@@ -26,6 +27,7 @@ import java.sql.Statement;
 import java.util.List;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
@@ -108,6 +110,36 @@ class BatchKeysTest {
     }
   }
 
+  @Test
+  void testInsertJdbc3WithBatchFlushSize() {
+    sqlSessionFactory.getConfiguration().setBatchFlushSize(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      User user1 = new User(null, "Pocoyo");
+      sqlSession.insert("insertIdentity", user1);
+      assertNull(user1.getId());
+      User user2 = new User(null, "Valentina");
+      sqlSession.insert("insertIdentity", user2);
+      // the first chunk has been executed and its keys assigned
+      assertEquals(Integer.valueOf(0), user1.getId());
+      assertEquals(Integer.valueOf(1), user2.getId());
+      User user3 = new User(null, "Pato");
+      sqlSession.insert("insertIdentity", user3);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(Integer.valueOf(2), user3.getId());
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).getParameterObjects().size());
+      assertEquals(1, results.get(1).getParameterObjects().size());
+      sqlSession.commit();
+    } finally {
+      sqlSessionFactory.getConfiguration().setBatchFlushSize(null);
+    }
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.selectList("selectIdentity");
+      Assertions.assertEquals(3, users.size());
+    }
+  }
+
   @Test
   void testInsertWithMapper() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
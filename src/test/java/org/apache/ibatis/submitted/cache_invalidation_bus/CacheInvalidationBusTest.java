@@ -0,0 +1,104 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_invalidation_bus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationBusTest {
+
+  private SqlSessionFactory node1;
+  private SqlSessionFactory node2;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    node1 = newSqlSessionFactory();
+    node2 = newSqlSessionFactory();
+
+    // populate in-memory database
+    BaseDataTest.runScript(node1.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_invalidation_bus/CreateDB.sql");
+  }
+
+  @AfterEach
+  void tearDown() {
+    node1.getConfiguration().getCacheInvalidationBus().close();
+    node2.getConfiguration().getCacheInvalidationBus().close();
+  }
+
+  private static SqlSessionFactory newSqlSessionFactory() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_invalidation_bus/mybatis-config.xml")) {
+      return new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @Test
+  void shouldClearNamespaceOnOtherNode() {
+    try (SqlSession sqlSession = node1.openSession()) {
+      assertThat(sqlSession.getMapper(OrderMapper.class).getItemUntracked(1)).isEqualTo("Item1");
+    }
+    try (SqlSession sqlSession = node2.openSession(true)) {
+      sqlSession.getMapper(OrderMapper.class).renameItem(1, "Changed");
+    }
+    try (SqlSession sqlSession = node1.openSession()) {
+      assertThat(sqlSession.getMapper(OrderMapper.class).getItemUntracked(1)).isEqualTo("Changed");
+    }
+  }
+
+  @Test
+  void shouldInvalidateTablesOnOtherNode() {
+    try (SqlSession sqlSession = node1.openSession()) {
+      OrderMapper mapper = sqlSession.getMapper(OrderMapper.class);
+      assertThat(mapper.getItem(1)).isEqualTo("Item1");
+      assertThat(mapper.getItemWithUserName(1)).isEqualTo("Item1 User1");
+    }
+    try (SqlSession sqlSession = node2.openSession(true)) {
+      sqlSession.getMapper(OrderMapper.class).renameItemSilently(1, "Changed");
+      sqlSession.getMapper(UserMapper.class).renameUser(1, "Renamed");
+    }
+    try (SqlSession sqlSession = node1.openSession()) {
+      OrderMapper mapper = sqlSession.getMapper(OrderMapper.class);
+      assertThat(mapper.getItem(1)).isEqualTo("Item1");
+      assertThat(mapper.getItemWithUserName(1)).isEqualTo("Changed Renamed");
+    }
+  }
+
+  @Test
+  void shouldNotApplyRolledBackWrites() {
+    try (SqlSession sqlSession = node1.openSession()) {
+      assertThat(sqlSession.getMapper(UserMapper.class).getUserName(1)).isEqualTo("User1");
+    }
+    try (SqlSession sqlSession = node2.openSession()) {
+      sqlSession.getMapper(OrderMapper.class).renameItemSilently(1, "Changed");
+      sqlSession.getMapper(UserMapper.class).renameUser(1, "Renamed");
+      sqlSession.rollback();
+    }
+    try (SqlSession sqlSession = node1.openSession()) {
+      assertThat(sqlSession.getMapper(UserMapper.class).getUserName(1)).isEqualTo("User1");
+    }
+  }
+
+}
@@ -1,5 +1,5 @@
 /*
- *    Copyright 2009-2021 the original author or authors.
+ *    Copyright 2009-2022 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.apache.ibatis.submitted.call_setters_on_nulls;
 
 import java.io.Reader;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -72,6 +73,27 @@ class CallSettersOnNullsTest {
     }
   }
 
+  @Test
+  void shouldCallNullOnCompactMap() {
+    sqlSessionFactory.getConfiguration().setCompactMapResultsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Map user = mapper.getUserInMap(1);
+      Assertions.assertFalse(user instanceof HashMap);
+      Assertions.assertTrue(user.containsKey("NAME"));
+    } finally {
+      sqlSessionFactory.getConfiguration().setCompactMapResultsEnabled(false);
+    }
+  }
+
+  @Test
+  void shouldReturnHashMapsByDefault() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assertions.assertTrue(mapper.getUserInMap(1) instanceof HashMap);
+    }
+  }
+
   @Test
   void shouldCallNullOnMapForSingleColumn() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
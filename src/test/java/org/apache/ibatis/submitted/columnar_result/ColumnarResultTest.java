@@ -0,0 +1,162 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.columnar_result;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Reader;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.ColumnarResult;
+import org.apache.ibatis.executor.result.ColumnarResult.ColumnType;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.ResultLimitBehavior;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ColumnarResultTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/columnar_result/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/columnar_result/CreateDB.sql");
+  }
+
+  @Test
+  void shouldReadColumnsIntoPrimitiveArrays() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ColumnarResult sales = sqlSession.getMapper(Mapper.class).getSales();
+      assertThat(sales.getRowCount()).isEqualTo(4);
+      assertThat(sales.getColumnNames()).containsExactly("ID", "STORE_ID", "AMOUNT", "REGION", "SOLD_ON");
+
+      int id = sales.getColumnIndex("id");
+      int storeId = sales.getColumnIndex("store_id");
+      int amount = sales.getColumnIndex("amount");
+      int region = sales.getColumnIndex("region");
+      int soldOn = sales.getColumnIndex("sold_on");
+      assertThat(sales.getColumnType(id)).isEqualTo(ColumnType.LONG);
+      assertThat(sales.getColumnType(storeId)).isEqualTo(ColumnType.INT);
+      assertThat(sales.getColumnType(amount)).isEqualTo(ColumnType.DOUBLE);
+      assertThat(sales.getColumnType(region)).isEqualTo(ColumnType.STRING);
+      assertThat(sales.getColumnType(soldOn)).isEqualTo(ColumnType.OBJECT);
+
+      assertThat(sales.getLongs(id)).containsExactly(1L, 2L, 3L, 4L);
+      assertThat(sales.getInts(storeId)).containsExactly(10, 20, 0, 10);
+      assertThat(sales.isNull(storeId, 2)).isTrue();
+      assertThat(sales.getDoubles(amount)).containsExactly(12.5, 0.0, 7.25, 1.0);
+      assertThat(sales.getNulls(amount).cardinality()).isEqualTo(1);
+      assertThat(sales.getDictionary(region)).containsExactly("north", "south");
+      assertThat(sales.getCodes(region)).containsExactly(0, 1, 0, -1);
+      assertThat(sales.getString(region, 2)).isEqualTo("north");
+      assertThat(sales.getValue(soldOn, 0)).isEqualTo(Date.valueOf("2022-01-01"));
+      assertThat(sales.getValue(soldOn, 3)).isNull();
+      assertThat(sales.getDouble(storeId, 1)).isEqualTo(20.0);
+      assertThat(sales.getColumnIndex("missing")).isEqualTo(-1);
+    }
+  }
+
+  @Test
+  void shouldRejectAccessAsAnotherType() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ColumnarResult sales = sqlSession.getMapper(Mapper.class).getSales();
+      assertThatThrownBy(() -> sales.getLongs(sales.getColumnIndex("region"))).isInstanceOf(ExecutorException.class)
+          .hasMessageContaining("REGION");
+      assertThatThrownBy(() -> sales.getLong(0, 4)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+  }
+
+  @Test
+  void shouldApplyRowBoundsAndPassTheResultToAHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<ColumnarResult> page = sqlSession.selectList("org.apache.ibatis.submitted.columnar_result.Mapper.getSales", null,
+          new RowBounds(1, 2));
+      assertThat(page).hasSize(1);
+      assertThat(page.get(0).getLongs(0)).containsExactly(2L, 3L);
+
+      List<ColumnarResult> results = new ArrayList<>();
+      mapper.getSalesRegions(context -> results.add(context.getResultObject()));
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).getColumnCount()).isEqualTo(2);
+      assertThat(results.get(0).getRowCount()).isEqualTo(4);
+    }
+  }
+
+  @Test
+  void shouldFailWhenTheResultExceedsMaxResultRows() {
+    sqlSessionFactory.getConfiguration().setMaxResultRows(3);
+    sqlSessionFactory.getConfiguration().setResultLimitBehavior(ResultLimitBehavior.SPILL);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThatThrownBy(mapper::getSales).isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("exceeded the maximum of 3 rows");
+      assertThatThrownBy(() -> mapper.getSalesRegions(context -> { })).isInstanceOf(PersistenceException.class)
+          .hasMessageContaining("exceeded the maximum of 3 rows");
+      List<ColumnarResult> page = sqlSession.selectList("org.apache.ibatis.submitted.columnar_result.Mapper.getSales", null,
+          new RowBounds(1, 3));
+      assertThat(page.get(0).getRowCount()).isEqualTo(3);
+    } finally {
+      sqlSessionFactory.getConfiguration().setMaxResultRows(null);
+      sqlSessionFactory.getConfiguration().setResultLimitBehavior(ResultLimitBehavior.FAIL);
+    }
+  }
+
+  @Test
+  void shouldGrowBeyondTheInitialCapacityAndSerialize() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 1000; i++) {
+        mapper.insertSale(100 + i, i % 7, i / 2.0, "r" + i % 3);
+      }
+      ColumnarResult sales = mapper.getSales();
+      assertThat(sales.getRowCount()).isEqualTo(1004);
+      assertThat(sales.getLongs(0)).hasSize(1004);
+      assertThat(sales.getLong(0, 1003)).isEqualTo(1099L);
+      assertThat(sales.getDictionary(3)).hasSize(5);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+        out.writeObject(sales);
+      }
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+        ColumnarResult copy = (ColumnarResult) in.readObject();
+        assertThat(copy.getDoubles(2)).containsExactly(sales.getDoubles(2));
+        assertThat(copy.getString(3, 1003)).isEqualTo("r0");
+      }
+      sqlSession.rollback();
+    }
+  }
+
+}
@@ -0,0 +1,32 @@
+--
+--    Copyright 2009-2022 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table sales if exists;
+
+create table sales (
+  id bigint,
+  store_id int,
+  amount double,
+  region varchar(10),
+  sold_on date
+);
+
+insert into sales (id, store_id, amount, region, sold_on) values
+(1, 10, 12.5, 'north', '2022-01-01'),
+(2, 20, null, 'south', '2022-01-02'),
+(3, null, 7.25, 'north', '2022-01-03'),
+(4, 10, 1.0, null, null);
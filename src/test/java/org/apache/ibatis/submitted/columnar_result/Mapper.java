@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.columnar_result;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.executor.result.ColumnarResult;
+import org.apache.ibatis.session.ResultHandler;
+
+public interface Mapper {
+
+  @Select("select id, store_id, amount, region, sold_on from sales order by id")
+  ColumnarResult getSales();
+
+  @Select("select id, region from sales order by id")
+  @ResultType(ColumnarResult.class)
+  void getSalesRegions(ResultHandler<ColumnarResult> resultHandler);
+
+  @Insert("insert into sales (id, store_id, amount, region) values (#{id}, #{storeId}, #{amount}, #{region})")
+  void insertSale(@Param("id") long id, @Param("storeId") int storeId, @Param("amount") double amount,
+      @Param("region") String region);
+
+}
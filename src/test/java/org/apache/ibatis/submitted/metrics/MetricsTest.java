@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.metrics.DefaultMetricsCollector;
+import org.apache.ibatis.metrics.DefaultMetricsCollector.CacheMetrics;
+import org.apache.ibatis.metrics.DefaultMetricsCollector.StatementMetrics;
+import org.apache.ibatis.metrics.ExecutionPhase;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+  private static final String NAMESPACE = Mapper.class.getName();
+
+  private SqlSessionFactory sqlSessionFactory;
+  private DefaultMetricsCollector metrics;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/metrics/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/metrics/CreateDB.sql");
+    metrics = (DefaultMetricsCollector) sqlSessionFactory.getConfiguration().getMetricsCollector();
+    metrics.reset();
+  }
+
+  @Test
+  void shouldRecordStatementsAndConnectionCheckouts() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUserName(1)).isEqualTo("User1");
+      assertThat(sqlSession.getMapper(Mapper.class).insertUser(3, "User3")).isEqualTo(1);
+    }
+    StatementMetrics select = metrics.getStatementMetrics(NAMESPACE + ".getUserName");
+    assertThat(select.getExecutions()).isEqualTo(1);
+    assertThat(select.getRows()).isEqualTo(1);
+    assertThat(metrics.getStatementMetrics(NAMESPACE + ".insertUser").getRows()).isEqualTo(1);
+    assertThat(metrics.getConnectionCheckoutTimes().getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCountTheRowsPassedToAResultHandler() {
+    List<String> names = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUserNames(context -> names.add(context.getResultObject()));
+    }
+    assertThat(names).containsExactly("User1", "User2");
+    assertThat(metrics.getStatementMetrics(NAMESPACE + ".getUserNames").getRows()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldRecordExecutionPhases() {
+    sqlSessionFactory.getConfiguration().setExecutionTracingEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUserName(1);
+      sqlSession.getMapper(Mapper.class).insertUser(3, "User3");
+    }
+    StatementMetrics select = metrics.getStatementMetrics(NAMESPACE + ".getUserName");
+    for (ExecutionPhase phase : ExecutionPhase.values()) {
+      assertThat(select.getPhaseTimes(phase).getCount()).as(phase.name()).isEqualTo(1);
+    }
+    StatementMetrics insert = metrics.getStatementMetrics(NAMESPACE + ".insertUser");
+    assertThat(insert.getPhaseTimes(ExecutionPhase.BOUND_SQL).getCount()).isEqualTo(1);
+    assertThat(insert.getPhaseTimes(ExecutionPhase.EXECUTE).getCount()).isEqualTo(1);
+    assertThat(insert.getPhaseTimes(ExecutionPhase.RESULT_MAPPING).getCount()).isZero();
+  }
+
+  @Test
+  void shouldRecordBatchSizes() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(3, "User3");
+      mapper.insertUser(4, "User4");
+      mapper.insertUser(5, "User5");
+      sqlSession.flushStatements();
+    }
+    StatementMetrics insert = metrics.getStatementMetrics(NAMESPACE + ".insertUser");
+    assertThat(insert.getBatchSizes().getCount()).isEqualTo(1);
+    assertThat(insert.getBatchSizes().getTotal()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldRecordCacheHitsMissesAndEvictions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUserName(1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUserName(1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // the cache holds a single entry, this one evicts user 1
+      sqlSession.getMapper(Mapper.class).getUserName(2);
+    }
+    CacheMetrics cache = metrics.getCacheMetrics(NAMESPACE);
+    assertThat(cache.getMisses()).isEqualTo(2);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getEvictions()).isEqualTo(1);
+    assertThat(metrics.getStatementMetrics(NAMESPACE + ".getUserName").getExecutions()).isEqualTo(2);
+  }
+
+}
@@ -0,0 +1,51 @@
+--
+--    Copyright 2009-2022 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table payments if exists;
+drop table order_lines if exists;
+drop table orders if exists;
+drop table customers if exists;
+
+create table customers (
+  id int,
+  name varchar(20)
+);
+
+create table orders (
+  id int,
+  customer_id int
+);
+
+create table order_lines (
+  order_id int,
+  product varchar(20)
+);
+
+create table payments (
+  order_id int,
+  amount int
+);
+
+insert into customers (id, name) values(1, 'alice');
+insert into orders (id, customer_id) values(1, 1);
+insert into orders (id, customer_id) values(2, 1);
+insert into order_lines (order_id, product) values(1, 'apple');
+insert into order_lines (order_id, product) values(1, 'pear');
+insert into order_lines (order_id, product) values(2, 'plum');
+insert into payments (order_id, amount) values(1, 10);
+insert into payments (order_id, amount) values(2, 20);
+insert into payments (order_id, amount) values(2, 5);
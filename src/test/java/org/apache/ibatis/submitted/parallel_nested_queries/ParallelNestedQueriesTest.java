@@ -0,0 +1,119 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_nested_queries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelNestedQueriesTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_nested_queries/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_nested_queries/CreateDB.sql");
+  }
+
+  @Test
+  void shouldLoadNestedSelectsOnThePool() throws Exception {
+    AtomicInteger executed = new AtomicInteger();
+    ExecutorService pool = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+      @Override
+      protected void beforeExecute(Thread t, Runnable r) {
+        executed.incrementAndGet();
+      }
+    };
+    sqlSessionFactory.getConfiguration().setNestedQueryExecutorService(pool);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Order> orders = sqlSession.getMapper(Mapper.class).getOrders();
+      assertOrders(orders);
+      // the first nested select of each order runs on the calling thread, and the customer of the second order is
+      // read from the local cache
+      assertThat(executed.get()).isEqualTo(3);
+    } finally {
+      sqlSessionFactory.getConfiguration().setNestedQueryExecutorService(null);
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void shouldNotBorrowMoreThanHalfOfThePool() throws Exception {
+    SqlSessionFactory singleConnectionFactory;
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_nested_queries/mybatis-config.xml")) {
+      singleConnectionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    PooledDataSource dataSource = (PooledDataSource) singleConnectionFactory.getConfiguration().getEnvironment().getDataSource();
+    dataSource.setPoolMaximumActiveConnections(1);
+    AtomicInteger executed = new AtomicInteger();
+    ExecutorService pool = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+      @Override
+      protected void beforeExecute(Thread t, Runnable r) {
+        executed.incrementAndGet();
+      }
+    };
+    singleConnectionFactory.getConfiguration().setNestedQueryExecutorService(pool);
+    try (SqlSession sqlSession = singleConnectionFactory.openSession()) {
+      assertOrders(sqlSession.getMapper(Mapper.class).getOrders());
+      assertThat(executed.get()).isZero();
+    } finally {
+      pool.shutdown();
+      dataSource.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldLoadTheSameResultsAsSequentialSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertOrders(sqlSession.getMapper(Mapper.class).getOrders());
+    }
+    sqlSessionFactory.getConfiguration().setParallelNestedQueriesEnabled(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertOrders(sqlSession.getMapper(Mapper.class).getOrders());
+    } finally {
+      sqlSessionFactory.getConfiguration().setParallelNestedQueriesEnabled(true);
+    }
+  }
+
+  private void assertOrders(List<Order> orders) {
+    assertThat(orders).hasSize(2);
+    assertThat(orders.get(0).getLines()).containsExactly("apple", "pear");
+    assertThat(orders.get(0).getPayments()).containsExactly(10);
+    assertThat(orders.get(1).getLines()).containsExactly("plum");
+    assertThat(orders.get(1).getPayments()).containsExactly(5, 20);
+    assertThat(orders).extracting(Order::getCustomerName).containsExactly("alice", "alice");
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.result_limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.result.SpillableResultList;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ResultLimitTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/result_limit/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/result_limit/CreateDB.sql");
+  }
+
+  @Test
+  void shouldFailWhenGlobalLimitIsExceeded() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      PersistenceException e = assertThrows(PersistenceException.class, mapper::getAllUsers);
+      assertThat(e).hasMessageContaining("exceeded the maximum of 5 rows");
+    }
+  }
+
+  @Test
+  void shouldReturnResultsWithinLimit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getFirstUsers()).hasSize(5);
+    }
+  }
+
+  @Test
+  void shouldUseStatementLimit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getAllUsersUnlimited()).hasSize(7);
+    }
+  }
+
+  @Test
+  void shouldSpillRowsToDisk() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = mapper.getAllUsersSpilled();
+      assertThat(users).isInstanceOf(SpillableResultList.class);
+      assertThat(((SpillableResultList<User>) users).isSpilled()).isTrue();
+      assertThat(users).hasSize(7);
+      for (int i = 0; i < users.size(); i++) {
+        assertThat(users.get(i).getId()).isEqualTo(i + 1);
+        assertThat(users.get(i).getName()).isEqualTo("User" + (i + 1));
+      }
+      assertThat(users).extracting(User::getId).containsExactly(1, 2, 3, 4, 5, 6, 7);
+      ((SpillableResultList<User>) users).close();
+    }
+  }
+
+  @Test
+  void shouldNotCacheSpilledResults() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getAllUsersSpilled();
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getAllUsersSpilled();
+      assertThat(users).isInstanceOf(SpillableResultList.class);
+      assertThat(((SpillableResultList<User>) users).isSpilled()).isTrue();
+    }
+  }
+
+}
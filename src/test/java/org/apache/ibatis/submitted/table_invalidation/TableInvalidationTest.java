@@ -0,0 +1,124 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.table_invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableDependencies;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableInvalidationTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/table_invalidation/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/table_invalidation/CreateDB.sql");
+  }
+
+  @Test
+  void shouldOnlyInvalidateEntriesDependingOnWrittenTables() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      OrderMapper mapper = sqlSession.getMapper(OrderMapper.class);
+      assertThat(mapper.getItem(1)).isEqualTo("Item1");
+      assertThat(mapper.getItemWithUserName(1)).isEqualTo("Item1 User1");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      // changes orders without invalidating anything
+      sqlSession.getMapper(OrderMapper.class).renameItemSilently(1, "Changed");
+      sqlSession.getMapper(UserMapper.class).renameUser(1, "Renamed");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      OrderMapper mapper = sqlSession.getMapper(OrderMapper.class);
+      assertThat(mapper.getItem(1)).isEqualTo("Item1");
+      assertThat(mapper.getItemWithUserName(1)).isEqualTo("Changed Renamed");
+      assertThat(sqlSession.getMapper(UserMapper.class).getUserName(1)).isEqualTo("Renamed");
+    }
+  }
+
+  @Test
+  void shouldClearNamespaceWithUntrackedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      OrderMapper mapper = sqlSession.getMapper(OrderMapper.class);
+      assertThat(mapper.getItemUntracked(1)).isEqualTo("Item1");
+      assertThat(mapper.getItem(1)).isEqualTo("Item1");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(OrderMapper.class).renameItemSilently(1, "Changed");
+      sqlSession.getMapper(UserMapper.class).renameUser(1, "Renamed");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(OrderMapper.class).getItemUntracked(1)).isEqualTo("Item1");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.getMapper(OrderMapper.class).renameItem(1, "Changed again");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      OrderMapper mapper = sqlSession.getMapper(OrderMapper.class);
+      assertThat(mapper.getItemUntracked(1)).isEqualTo("Changed again");
+      assertThat(mapper.getItem(1)).isEqualTo("Changed again");
+    }
+  }
+
+  @Test
+  void shouldStopTrackingCacheWhenUntrackedSelectIsAddedLater() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    TableDependencies tableDependencies = configuration.getTableDependencies();
+    Cache cache = configuration.getCache(UserMapper.class.getName());
+    assertThat(tableDependencies.isTracked(cache)).isTrue();
+
+    configuration.addMappedStatement(new MappedStatement.Builder(configuration, UserMapper.class.getName() + ".getUserNames",
+        new StaticSqlSource(configuration, "select name from users"), SqlCommandType.SELECT).cache(cache).useCache(true).build());
+    assertThat(tableDependencies.isTracked(cache)).isFalse();
+  }
+
+  @Test
+  void shouldNotUseCachedEntriesOfTablesWrittenInTransaction() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(UserMapper.class).getUserName(1)).isEqualTo("User1");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      UserMapper mapper = sqlSession.getMapper(UserMapper.class);
+      mapper.renameUser(1, "Renamed");
+      assertThat(mapper.getUserName(1)).isEqualTo("Renamed");
+      sqlSession.rollback();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(UserMapper.class).getUserName(1)).isEqualTo("User1");
+    }
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+
+/**
+ * Tests for {@link BlobReadableByteChannelTypeHandler}.
+ */
+class BlobReadableByteChannelTypeHandlerTest extends BaseTypeHandlerTest {
+
+  private static final TypeHandler<ReadableByteChannel> TYPE_HANDLER = new BlobReadableByteChannelTypeHandler();
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @Mock
+  protected Blob blob;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeAll
+  static void setupSqlSessionFactory() throws Exception {
+    DataSource dataSource = BaseDataTest.createUnpooledDataSource("org/apache/ibatis/type/jdbc.properties");
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("Production", transactionFactory, dataSource);
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/type/BlobReadableByteChannelTypeHandlerTest.sql");
+  }
+
+  @Override
+  @Test
+  public void shouldSetParameter() throws Exception {
+    ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream("Hello".getBytes()));
+    TYPE_HANDLER.setParameter(ps, 1, channel, null);
+    verify(ps).setBinaryStream(eq(1), any(InputStream.class));
+  }
+
+  @Test
+  void shouldSetFileChannelParameterWithRemainingLength() throws Exception {
+    Path file = Files.write(tempDir.resolve("content"), "Hello".getBytes());
+    try (FileChannel channel = FileChannel.open(file)) {
+      channel.position(1);
+      TYPE_HANDLER.setParameter(ps, 1, channel, null);
+      verify(ps).setBinaryStream(eq(1), any(InputStream.class), eq(4L));
+    }
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultFromResultSetByName() throws Exception {
+    when(rs.getBlob("column")).thenReturn(blob);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream("Hello".getBytes()));
+    assertThat(read(TYPE_HANDLER.getResult(rs, "column"))).isEqualTo("Hello");
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultNullFromResultSetByName() throws Exception {
+    when(rs.getBlob("column")).thenReturn(null);
+    assertThat(TYPE_HANDLER.getResult(rs, "column")).isNull();
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultFromResultSetByPosition() throws Exception {
+    when(rs.getBlob(1)).thenReturn(blob);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream("Hello".getBytes()));
+    assertThat(read(TYPE_HANDLER.getResult(rs, 1))).isEqualTo("Hello");
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultNullFromResultSetByPosition() throws Exception {
+    when(rs.getBlob(1)).thenReturn(null);
+    assertThat(TYPE_HANDLER.getResult(rs, 1)).isNull();
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultFromCallableStatement() throws Exception {
+    when(cs.getBlob(1)).thenReturn(blob);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream("Hello".getBytes()));
+    assertThat(read(TYPE_HANDLER.getResult(cs, 1))).isEqualTo("Hello");
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultNullFromCallableStatement() throws Exception {
+    when(cs.getBlob(1)).thenReturn(null);
+    assertThat(TYPE_HANDLER.getResult(cs, 1)).isNull();
+  }
+
+  @Test
+  void integrationTest() throws IOException {
+    Path file = Files.write(tempDir.resolve("content"), "Hello".getBytes());
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      // insert (FileChannel -> Blob)
+      try (FileChannel channel = FileChannel.open(file)) {
+        BlobContent blobContent = new BlobContent();
+        blobContent.setId(1);
+        blobContent.setContent(channel);
+        mapper.insert(blobContent);
+        session.commit();
+      }
+      // select (Blob -> ReadableByteChannel)
+      {
+        BlobContent blobContent = mapper.findOne(1);
+        assertThat(read(blobContent.getContent())).isEqualTo("Hello");
+      }
+    }
+  }
+
+  private static String read(ReadableByteChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    while (channel.read(buffer) >= 0) {
+      // read to the end
+    }
+    buffer.flip();
+    return StandardCharsets.UTF_8.decode(buffer).toString();
+  }
+
+  interface Mapper {
+    @Select("SELECT ID, CONTENT FROM TEST_BLOB_CHANNEL WHERE ID = #{id}")
+    BlobContent findOne(int id);
+
+    @Insert("INSERT INTO TEST_BLOB_CHANNEL (ID, CONTENT) VALUES(#{id}, #{content})")
+    void insert(BlobContent blobContent);
+  }
+
+  static class BlobContent {
+    private int id;
+    private ReadableByteChannel content;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public ReadableByteChannel getContent() {
+      return content;
+    }
+
+    public void setContent(ReadableByteChannel content) {
+      this.content = content;
+    }
+  }
+
+}
@@ -0,0 +1,213 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Blob;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+/**
+ * Tests for {@link PathTypeHandler}.
+ */
+class PathTypeHandlerTest extends BaseTypeHandlerTest {
+
+  private static final TypeHandler<Path> TYPE_HANDLER = new PathTypeHandler();
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @Mock
+  protected Blob blob;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeAll
+  static void setupSqlSessionFactory() throws Exception {
+    DataSource dataSource = BaseDataTest.createUnpooledDataSource("org/apache/ibatis/type/jdbc.properties");
+    TransactionFactory transactionFactory = new JdbcTransactionFactory();
+    Environment environment = new Environment("Production", transactionFactory, dataSource);
+    Configuration configuration = new Configuration(environment);
+    configuration.addMapper(Mapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/type/PathTypeHandlerTest.sql");
+  }
+
+  @Override
+  @Test
+  public void shouldSetParameter() throws Exception {
+    Path file = Files.write(tempDir.resolve("content"), "Hello".getBytes());
+    TYPE_HANDLER.setParameter(ps, 1, file, null);
+    ArgumentCaptor<InputStream> in = ArgumentCaptor.forClass(InputStream.class);
+    verify(ps).setBinaryStream(eq(1), in.capture(), eq(5L));
+    byte[] buffer = new byte[5];
+    assertThat(in.getValue().read(buffer)).isEqualTo(5);
+    assertThat(buffer).isEqualTo("Hello".getBytes());
+    // the file is closed once its length has been read
+    assertThat(in.getValue().read()).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldOpenTheFileOnlyWhenTheDriverReadsIt() throws Exception {
+    Path file = Files.write(tempDir.resolve("content"), "Hello".getBytes());
+    Path empty = Files.write(tempDir.resolve("empty"), new byte[0]);
+    TYPE_HANDLER.setParameter(ps, 1, file, null);
+    TYPE_HANDLER.setParameter(ps, 2, empty, null);
+    ArgumentCaptor<InputStream> in = ArgumentCaptor.forClass(InputStream.class);
+    verify(ps).setBinaryStream(eq(1), in.capture(), eq(5L));
+    verify(ps).setBinaryStream(eq(2), in.capture(), eq(0L));
+    Files.delete(file);
+    Files.delete(empty);
+    assertThatThrownBy(() -> in.getAllValues().get(0).read()).isInstanceOf(NoSuchFileException.class);
+    // an empty file is never opened
+    assertThat(in.getAllValues().get(1).read()).isEqualTo(-1);
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultFromResultSetByName() throws Exception {
+    when(rs.getBlob("column")).thenReturn(blob);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream("Hello".getBytes()));
+    assertThat(readAndDelete(TYPE_HANDLER.getResult(rs, "column"))).isEqualTo("Hello");
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultNullFromResultSetByName() throws Exception {
+    when(rs.getBlob("column")).thenReturn(null);
+    assertThat(TYPE_HANDLER.getResult(rs, "column")).isNull();
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultFromResultSetByPosition() throws Exception {
+    when(rs.getBlob(1)).thenReturn(blob);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream("Hello".getBytes()));
+    assertThat(readAndDelete(TYPE_HANDLER.getResult(rs, 1))).isEqualTo("Hello");
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultNullFromResultSetByPosition() throws Exception {
+    when(rs.getBlob(1)).thenReturn(null);
+    assertThat(TYPE_HANDLER.getResult(rs, 1)).isNull();
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultFromCallableStatement() throws Exception {
+    when(cs.getBlob(1)).thenReturn(blob);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream("Hello".getBytes()));
+    assertThat(readAndDelete(TYPE_HANDLER.getResult(cs, 1))).isEqualTo("Hello");
+  }
+
+  @Override
+  @Test
+  public void shouldGetResultNullFromCallableStatement() throws Exception {
+    when(cs.getBlob(1)).thenReturn(null);
+    assertThat(TYPE_HANDLER.getResult(cs, 1)).isNull();
+  }
+
+  @Test
+  void integrationTest() throws IOException {
+    Path file = Files.write(tempDir.resolve("content"), "Hello".getBytes());
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      Mapper mapper = session.getMapper(Mapper.class);
+      // insert (Path -> Blob)
+      {
+        BlobContent blobContent = new BlobContent();
+        blobContent.setId(1);
+        blobContent.setContent(file);
+        mapper.insert(blobContent);
+        session.commit();
+      }
+      // select (Blob -> Path)
+      {
+        BlobContent blobContent = mapper.findOne(1);
+        assertThat(blobContent.getContent()).isNotEqualTo(file);
+        assertThat(readAndDelete(blobContent.getContent())).isEqualTo("Hello");
+      }
+    }
+  }
+
+  private static String readAndDelete(Path file) throws IOException {
+    try {
+      return new String(Files.readAllBytes(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  interface Mapper {
+    @Select("SELECT ID, CONTENT FROM TEST_BLOB_PATH WHERE ID = #{id}")
+    BlobContent findOne(int id);
+
+    @Insert("INSERT INTO TEST_BLOB_PATH (ID, CONTENT) VALUES(#{id}, #{content})")
+    void insert(BlobContent blobContent);
+  }
+
+  static class BlobContent {
+    private int id;
+    private Path content;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public Path getContent() {
+      return content;
+    }
+
+    public void setContent(Path content) {
+      this.content = content;
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+  @Test
+  void shouldSummarizeRecordedValues() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+    assertThat(histogram.getCount()).isEqualTo(100);
+    assertThat(histogram.getTotal()).isEqualTo(5050);
+    assertThat(histogram.getMax()).isEqualTo(100);
+    assertThat(histogram.getMean()).isEqualTo(50.5);
+    assertThat(histogram.getPercentile(0.5)).isBetween(50L, 63L);
+    assertThat(histogram.getPercentile(0.99)).isEqualTo(100);
+  }
+
+  @Test
+  void shouldBeEmptyAfterReset() {
+    Histogram histogram = new Histogram();
+    histogram.record(0);
+    histogram.record(Long.MAX_VALUE);
+    assertThat(histogram.getPercentile(0.5)).isEqualTo(0);
+    histogram.reset();
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getPercentile(0.5)).isZero();
+  }
+
+}
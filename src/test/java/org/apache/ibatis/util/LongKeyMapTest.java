@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2009-2022 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongKeyMapTest {
+
+  @Test
+  void shouldPutAndGetUnboxedKeys() {
+    LongKeyMap<String> map = new LongKeyMap<>(2);
+    assertThat(map.put(1L, "one")).isNull();
+    assertThat(map.put(Long.MIN_VALUE, "min")).isNull();
+    assertThat(map.put(1L, "uno")).isEqualTo("one");
+    assertThat(map).hasSize(2);
+    assertThat(map.get(1L)).isEqualTo("uno");
+    assertThat(map.get(Long.MIN_VALUE)).isEqualTo("min");
+    assertThat(map.get(2L)).isNull();
+  }
+
+  @Test
+  void shouldFindIntegralKeysOfAnyType() {
+    LongKeyMap<String> map = new LongKeyMap<>();
+    map.put(7L, "seven");
+    assertThat(map.get((Object) 7L)).isEqualTo("seven");
+    assertThat(map.get(Integer.valueOf(7))).isEqualTo("seven");
+    assertThat(map.containsKey(Short.valueOf((short) 7))).isTrue();
+    assertThat(map.get("7")).isNull();
+    assertThat(map.get(7.0d)).isNull();
+  }
+
+  @Test
+  void shouldBehaveLikeHashMapAcrossResizesAndRemovals() {
+    LongKeyMap<Long> map = new LongKeyMap<>();
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 20000; i++) {
+      long key = random.nextInt(5000);
+      if (random.nextInt(3) == 0) {
+        assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+      } else {
+        assertThat(map.put(key, Long.valueOf(i))).isEqualTo(expected.put(key, Long.valueOf(i)));
+      }
+    }
+    assertThat(map).hasSize(expected.size());
+    assertThat(map).isEqualTo(expected);
+    for (long key = 0; key < 5000; key++) {
+      assertThat(map.get(key)).isEqualTo(expected.get(key));
+    }
+  }
+
+  @Test
+  void shouldClear() {
+    LongKeyMap<String> map = new LongKeyMap<>();
+    map.put(1L, "one");
+    map.clear();
+    assertThat(map).isEmpty();
+    assertThat(map.containsKey(1L)).isFalse();
+  }
+
+}